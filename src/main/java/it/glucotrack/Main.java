@@ -1,5 +1,6 @@
 package it.glucotrack;
 
+import it.glucotrack.util.StartupPipeline;
 import it.glucotrack.view.ViewNavigator;
 import javafx.application.Application;
 import javafx.scene.image.Image;
@@ -13,9 +14,10 @@ public class Main extends Application {
 
             System.out.println("[Main] Inizio avvio applicazione");
 
-            it.glucotrack.util.DatabaseInitializer.initializeDatabase();
-            System.out.println("[Main] Database inizializzato");
+            // Database and alert sweeper come up in the background, the login waits for them
+            StartupPipeline.startDatabase();
 
+            long start = System.nanoTime();
             Image icon = new Image(getClass().getResourceAsStream("/assets/icons/Logo.png"));
             primaryStage.getIcons().add(icon);
 
@@ -32,14 +34,21 @@ public class Main extends Application {
             primaryStage.setMaximized(true);
 
             primaryStage.show();
-            System.out.println("[Main] Stage mostrato");
+            StartupPipeline.record("login view shown", start);
         } catch (Exception e) {
             System.err.println("[Main] Errore in fase di avvio: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void stop() {
+        it.glucotrack.util.AlertSweeper.stop();
+    }
+
     public static void main(String[] args) {
+        // --diagnostics: dump the tables at startup
+        StartupPipeline.configure(args);
         launch(args);
     }
 }
\ No newline at end of file
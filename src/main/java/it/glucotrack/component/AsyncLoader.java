@@ -0,0 +1,240 @@
+package it.glucotrack.component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import it.glucotrack.util.DatabaseInteraction;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+
+/*
+* ASYNC LOADER
+* Runs the DAO queries of a view on background threads and hands the results to the FX thread,
+* so a slow query never freezes the window. One loader per controller, bound to one of its nodes:
+* - loads have a key; a new load with the key of a pending one replaces it (one query runs),
+*   while a running one is cancelled and its result dropped (the latest request wins)
+* - when the node leaves the scene (the user navigated away) every load is cancelled, and run
+*   again when it is shown again: a cached view never comes back with data that was never loaded
+* - loadingProperty() is true while something is loading, for placeholders and disabled controls
+* Callbacks run on the FX thread and never after a cancel.
+*/
+
+public class AsyncLoader {
+
+    @FunctionalInterface
+    public interface Query<T> {
+        T call() throws SQLException;
+    }
+
+    // Shared by all views; bounded so that the loads cannot take every read connection
+    private static final int THREADS = 2;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "data-loader-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, LoadTask<?>> inFlight = new HashMap<>();
+    // Loads cancelled because the owner left the scene, by key
+    private final Map<String, LoadTask<?>> detached = new LinkedHashMap<>();
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(this, "loading", false);
+
+    public AsyncLoader(Node owner) {
+        owner.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                detach();
+            } else if (oldScene == null && newScene != null) {
+                resumeDetached();
+            }
+        });
+    }
+
+
+    //=================
+    //==== LOADING ====
+    //=================
+
+    public <T> Task<T> load(String key, Query<T> query, Consumer<T> onLoaded) {
+        return load(key, query, onLoaded, error ->
+                System.err.println("Error loading " + key + ": " + error.getMessage()));
+    }
+
+    // Call from the FX thread, or from initialize() while the view is not shown yet
+    public synchronized <T> Task<T> load(String key, Query<T> query, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        detached.remove(key); // superseded by this request
+        LoadTask<?> previous = inFlight.get(key);
+        if (previous != null) {
+            @SuppressWarnings("unchecked")
+            LoadTask<T> pending = (LoadTask<T>) previous;
+            if (pending.replace(query, onLoaded, onFailed)) {
+                return pending;
+            }
+            previous.cancel(false);
+        }
+
+        LoadTask<T> task = new LoadTask<>(key, query, onLoaded, onFailed);
+        inFlight.put(key, task);
+        loading.set(true);
+        executor.execute(task);
+        return task;
+    }
+
+    public synchronized void cancel(String key) {
+        detached.remove(key);
+        LoadTask<?> task = inFlight.remove(key);
+        if (task != null) {
+            task.cancel(false);
+        }
+        loading.set(!inFlight.isEmpty());
+    }
+
+    public synchronized void cancelAll() {
+        for (LoadTask<?> task : inFlight.values()) {
+            task.cancel(false);
+        }
+        inFlight.clear();
+        detached.clear();
+        loading.set(false);
+    }
+
+    public ReadOnlyBooleanProperty loadingProperty() {return loading.getReadOnlyProperty();}
+    public boolean isLoading() {return loading.get();}
+
+
+    //======================
+    //==== PLACEHOLDERS ====
+    //======================
+
+    // The table shows "Loading..." instead of its own placeholder while this loader is busy
+    public void showPlaceholderWhileLoading(TableView<?> table) {
+        Node emptyPlaceholder = table.getPlaceholder();
+        Label loadingPlaceholder = new Label("Loading...");
+        table.setPlaceholder(isLoading() ? loadingPlaceholder : emptyPlaceholder);
+        loading.addListener((obs, wasLoading, isLoading) ->
+                table.setPlaceholder(isLoading ? loadingPlaceholder : emptyPlaceholder));
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    // Cancel the loads in flight but keep them, to run again if the owner is shown again
+    private synchronized void detach() {
+        for (LoadTask<?> task : inFlight.values()) {
+            task.cancel(false);
+            detached.put(task.key, task);
+        }
+        inFlight.clear();
+        loading.set(false);
+    }
+
+    // A load requested since (e.g. by refresh()) already took the detached one's place
+    private synchronized void resumeDetached() {
+        List<LoadTask<?>> tasks = new ArrayList<>(detached.values());
+        detached.clear();
+        for (LoadTask<?> task : tasks) {
+            resume(task);
+        }
+    }
+
+    private <T> void resume(LoadTask<T> task) {
+        Query<T> query;
+        Consumer<T> onLoaded;
+        Consumer<Throwable> onFailed;
+        synchronized (task) {
+            query = task.query;
+            onLoaded = task.onLoaded;
+            onFailed = task.onFailed;
+        }
+        load(task.key, query, onLoaded, onFailed);
+    }
+
+    // False if the task was cancelled or superseded meanwhile: its result must be dropped
+    private synchronized boolean finished(LoadTask<?> task) {
+        boolean current = inFlight.get(task.key) == task;
+        if (current) {
+            inFlight.remove(task.key);
+        }
+        loading.set(!inFlight.isEmpty());
+        return current;
+    }
+
+    // Callbacks are read when the task completes, so a replace() before it starts takes effect
+    private final class LoadTask<T> extends Task<T> {
+        private final String key;
+        private Query<T> query;
+        private Consumer<T> onLoaded;
+        private Consumer<Throwable> onFailed;
+        private boolean started = false;
+
+        private LoadTask(String key, Query<T> query, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+            this.key = key;
+            this.query = query;
+            this.onLoaded = onLoaded;
+            this.onFailed = onFailed;
+        }
+
+        // Coalesce into this task if its query has not started yet
+        private synchronized boolean replace(Query<T> query, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+            if (started || isCancelled()) return false;
+            this.query = query;
+            this.onLoaded = onLoaded;
+            this.onFailed = onFailed;
+            return true;
+        }
+
+        @Override
+        protected T call() throws SQLException {
+            Query<T> current;
+            synchronized (this) {
+                started = true;
+                current = query;
+            }
+            try {
+                return current.call();
+            } finally {
+                // Pool threads live on: give the read connection back between loads
+                DatabaseInteraction.releaseThreadConnection();
+            }
+        }
+
+        @Override
+        protected void succeeded() {
+            if (!finished(this)) return;
+            Consumer<T> callback;
+            synchronized (this) {
+                callback = onLoaded;
+            }
+            callback.accept(getValue());
+        }
+
+        @Override
+        protected void failed() {
+            if (!finished(this)) return;
+            Consumer<Throwable> callback;
+            synchronized (this) {
+                callback = onFailed;
+            }
+            callback.accept(getException());
+        }
+
+        @Override
+        protected void cancelled() {
+            finished(this);
+        }
+    }
+}
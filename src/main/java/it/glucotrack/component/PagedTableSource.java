@@ -0,0 +1,133 @@
+package it.glucotrack.component;
+
+import java.sql.SQLException;
+
+import it.glucotrack.model.KeysetPage;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+/*
+* PAGED TABLE SOURCE
+* Infinite-scroll items for a TableView backed by a keyset-paginated DAO query.
+* The first page is loaded on reload(); the next one when the table is scrolled
+* to the bottom, or straight away while the rows loaded so far do not fill it.
+* Pages are read through the view's AsyncLoader under the "page" key, one at a time,
+* with its "Loading..." placeholder on the table while the first one is on its way.
+* Filters live in the loader: change them with setLoader(), which starts again.
+*/
+
+public class PagedTableSource<T> {
+
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        KeysetPage<T> load(KeysetPage.Key after, int limit) throws SQLException;
+    }
+
+    private static final double LOAD_THRESHOLD = 0.95;
+    private static final String PAGE_KEY = "page";
+
+    private final TableView<T> table;
+    private final AsyncLoader asyncLoader;
+    private final int pageSize;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+
+    private PageLoader<T> loader;
+    private KeysetPage.Key nextKey;
+    private boolean hasMore;
+    private boolean loadingPage;
+    private ScrollBar verticalBar;
+
+
+    public PagedTableSource(TableView<T> table, AsyncLoader asyncLoader, int pageSize, PageLoader<T> loader) {
+        this.table = table;
+        this.asyncLoader = asyncLoader;
+        this.pageSize = pageSize;
+        this.loader = loader;
+        table.setItems(items);
+        asyncLoader.showPlaceholderWhileLoading(table);
+        // The scroll bar exists only once the table has a skin
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::fillViewport));
+        attachScrollBar();
+    }
+
+
+    //=================
+    //==== LOADING ====
+    //=================
+
+    public void setLoader(PageLoader<T> loader) {
+        this.loader = loader;
+        reload();
+    }
+
+    // Drop what is loaded and fetch the first page again; a page still loading is superseded
+    public void reload() {
+        items.clear();
+        nextKey = null;
+        hasMore = true;
+        loadingPage = false;
+        loadNextPage();
+    }
+
+    // False if there is nothing more to load or a page is already on its way
+    public boolean loadNextPage() {
+        if (!hasMore || loadingPage) return false;
+        loadingPage = true;
+        KeysetPage.Key after = nextKey;
+        PageLoader<T> current = loader;
+        asyncLoader.load(PAGE_KEY, () -> current.load(after, pageSize), page -> {
+            loadingPage = false;
+            items.addAll(page.getItems());
+            nextKey = page.getNextKey();
+            hasMore = page.hasMore();
+            if (hasMore) {
+                Platform.runLater(this::fillViewport);
+            }
+        }, error -> {
+            System.err.println("Error loading table page: " + error.getMessage());
+            loadingPage = false;
+            hasMore = false;
+        });
+        return true;
+    }
+
+    public ObservableList<T> getItems() {return items;}
+    public boolean hasMore() {return hasMore;}
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private void attachScrollBar() {
+        if (verticalBar != null) return;
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                verticalBar = (ScrollBar) node;
+                verticalBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= verticalBar.getMax() * LOAD_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    // Without a visible scroll bar the user cannot reach the bottom: keep loading until there is one
+    private void fillViewport() {
+        attachScrollBar();
+        if (!hasMore || verticalBar == null) return;
+        // Lay out first so the bar visibility reflects the rows just added
+        table.applyCss();
+        table.layout();
+        if (!verticalBar.isVisible()) {
+            loadNextPage();
+        }
+    }
+}
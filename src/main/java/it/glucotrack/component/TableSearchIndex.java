@@ -0,0 +1,162 @@
+package it.glucotrack.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/*
+* TABLE SEARCH INDEX
+* Search box filtering for a table whose rows are all loaded: the rows shown are those whose
+* text (lowercased, the fields joined by "\n") contains what was typed within one field.
+* - every substring of 1 to GRAM characters of each row is indexed once, so a short query is one
+*   lookup and a longer one only checks the rows holding its rarest trigram
+* - a query containing the previous one only re-checks the previous matches (typing narrows)
+* - a change of the rows drops the index, rebuilt on the next search; call invalidate() after
+*   editing a row in place
+* A search costs about the number of matches, not of rows. Use it on the FX thread.
+*/
+
+public class TableSearchIndex<T> {
+
+    private static final int GRAM = 3;
+
+    private final ObservableList<T> rows;
+    private final Function<T, String> text;
+    private final ObservableList<T> shownRows = FXCollections.observableArrayList();
+
+    // Built on demand from a snapshot of the rows; positions index both arrays
+    private List<T> indexedRows = null;
+    private String[] texts;
+    private Map<String, Postings> postings;
+
+    private String query = "";
+    private int[] lastMatches = null; // positions matching query, null when it is empty
+
+    public TableSearchIndex(ObservableList<T> rows, Function<T, String> text) {
+        this.rows = rows;
+        this.text = text;
+        rows.addListener((ListChangeListener.Change<? extends T> change) -> {
+            invalidate();
+            shownRows.setAll(search(query));
+        });
+    }
+
+
+    //================
+    //==== SEARCH ====
+    //================
+
+    // The table items: the rows matching the current query, in the order of the source list
+    public ObservableList<T> getShownRows() {return shownRows;}
+
+    public void filter(String searchText) {
+        shownRows.setAll(search(searchText));
+    }
+
+    public List<T> search(String searchText) {
+        String newQuery = searchText == null ? "" : searchText.toLowerCase(Locale.ROOT);
+        if (newQuery.isEmpty()) {
+            query = "";
+            lastMatches = null;
+            return new ArrayList<>(rows);
+        }
+        ensureIndexed();
+
+        int[] matches;
+        if (newQuery.indexOf('\n') >= 0) {
+            matches = new int[0]; // spans two fields
+        } else if (lastMatches != null && newQuery.contains(query)) {
+            // Anything matching the longer query matched the previous one
+            matches = verify(lastMatches, lastMatches.length, newQuery);
+        } else if (newQuery.length() <= GRAM) {
+            Postings exact = postings.get(newQuery);
+            matches = exact == null ? new int[0] : Arrays.copyOf(exact.positions, exact.size);
+        } else {
+            Postings rarest = rarestTrigram(newQuery);
+            matches = rarest == null ? new int[0] : verify(rarest.positions, rarest.size, newQuery);
+        }
+        query = newQuery;
+        lastMatches = matches;
+
+        List<T> result = new ArrayList<>(matches.length);
+        for (int position : matches) {
+            result.add(indexedRows.get(position));
+        }
+        return result;
+    }
+
+    // The rows changed, or a row was edited in place
+    public void invalidate() {
+        indexedRows = null;
+        texts = null;
+        postings = null;
+        lastMatches = null;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private void ensureIndexed() {
+        if (indexedRows != null) return;
+        indexedRows = new ArrayList<>(rows);
+        texts = new String[indexedRows.size()];
+        postings = new HashMap<>();
+        for (int position = 0; position < texts.length; position++) {
+            String rowText = text.apply(indexedRows.get(position)).toLowerCase(Locale.ROOT);
+            texts[position] = rowText;
+            for (int start = 0; start < rowText.length(); start++) {
+                for (int end = start + 1; end <= Math.min(start + GRAM, rowText.length()); end++) {
+                    if (rowText.charAt(end - 1) == '\n') break; // no gram spans two fields
+                    postings.computeIfAbsent(rowText.substring(start, end), gram -> new Postings()).add(position);
+                }
+            }
+        }
+    }
+
+    private Postings rarestTrigram(String searchQuery) {
+        Postings rarest = null;
+        for (int start = 0; start + GRAM <= searchQuery.length(); start++) {
+            Postings candidate = postings.get(searchQuery.substring(start, start + GRAM));
+            if (candidate == null) return null; // a trigram no row has: nothing matches
+            if (rarest == null || candidate.size < rarest.size) {
+                rarest = candidate;
+            }
+        }
+        return rarest;
+    }
+
+    private int[] verify(int[] candidates, int count, String searchQuery) {
+        int[] matches = new int[count];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (texts[candidates[i]].contains(searchQuery)) {
+                matches[found++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(matches, found);
+    }
+
+    // Ascending positions of the rows holding a gram, each once
+    private static final class Postings {
+        private int[] positions = new int[4];
+        private int size = 0;
+
+        private void add(int position) {
+            if (size > 0 && positions[size - 1] == position) return;
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.BorderPane;
 
 import it.glucotrack.model.User;
+import it.glucotrack.view.ViewNavigator;
 
 public class AdminDashboardController {
 
@@ -44,8 +45,7 @@ public class AdminDashboardController {
 
     private void loadCenterContent(String fxmlPath) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
-            Parent content = loader.load();
+            Parent content = ViewNavigator.getInstance().loadSection(fxmlPath);
 
             contentPane.getChildren().clear();
             contentPane.getChildren().add(content);
@@ -2,16 +2,20 @@ package it.glucotrack.controller;
 
 import java.net.URL;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 
+import it.glucotrack.component.AsyncLoader;
+import it.glucotrack.component.TableSearchIndex;
 import it.glucotrack.model.User;
 import it.glucotrack.util.UserDAO;
+import it.glucotrack.view.Refreshable;
+import it.glucotrack.view.ViewNavigator;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -31,7 +35,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
 
-public class AdminDashboardHomeController implements Initializable {
+public class AdminDashboardHomeController implements Initializable, Refreshable {
 
     @FXML private TextField searchField;
     @FXML private Button addUserBtn;
@@ -51,33 +55,42 @@ public class AdminDashboardHomeController implements Initializable {
     @FXML private Label totalUserLabel;
 
     private ObservableList<UserTableData> userTableData;
-    private FilteredList<UserTableData> filteredUsers;
+    private TableSearchIndex<UserTableData> userSearch;
     private UserTableData selectedUser;
     private UserDAO userDAO;
     private User currentAdmin;
     private Runnable onDataSaved;
+    private AsyncLoader loader;
 
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         userDAO = new UserDAO();
+        loader = new AsyncLoader(usersTable);
         setupTable();
         setupSearch();
         setupButtons();
         setupContextMenu();
+        loader.showPlaceholderWhileLoading(usersTable);
         loadUsersData();
-        updateStatusBar();
 
     }
 
+    // Shown again from the view cache: users may have been added or edited from the profile view
+    @Override
+    public void refresh() {
+        loadUsersData();
+    }
+
     public void setCurrentAdmin(User admin) {
         this.currentAdmin = admin;
     }
 
     private void setupTable() {
         userTableData = FXCollections.observableArrayList();
-        filteredUsers = new FilteredList<>(userTableData);
-        usersTable.setItems(filteredUsers);
+        userSearch = new TableSearchIndex<>(userTableData,
+                u -> u.getIdString() + "\n" + u.getFullName() + "\n" + u.getEmail() + "\n" + u.getType());
+        usersTable.setItems(userSearch.getShownRows());
 
         idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
@@ -114,37 +127,40 @@ public class AdminDashboardHomeController implements Initializable {
     }
 
     private void loadUsersData() {
-        userTableData.clear();
-        try {
+        loadUsersData(null);
+    }
+
+    // The rows are built in the background; afterLoad (may be null) runs once they are shown
+    private void loadUsersData(Runnable afterLoad) {
+        statusLabel.setText("Loading users...");
+        loader.load("users", () -> {
+            List<UserTableData> rows = new ArrayList<>();
             List<User> users = userDAO.getAllUsers();
             if (users != null) {
                 for (User user : users) {
-                    userTableData.add(new UserTableData(user));
+                    rows.add(new UserTableData(user));
                 }
             }
-            statusLabel.setText("Users loaded successfully from database");
-        } catch (SQLException e) {
-            e.printStackTrace();
-            statusLabel.setText("Error loading users: " + e.getMessage());
-        }
+            return rows;
+        }, rows -> {
+            userTableData.setAll(rows);
+            updateStatusBar();
+            if (afterLoad != null) afterLoad.run();
+        }, error -> {
+            error.printStackTrace();
+            statusLabel.setText("Error loading users: " + error.getMessage());
+        });
     }
 
+    // Id, name, email or type containing the text, looked up in the index of the loaded rows
     private void filterUsers(String searchText) {
-        if (searchText == null || searchText.isEmpty()) {
-            filteredUsers.setPredicate(null);
-        } else {
-            String lc = searchText.toLowerCase();
-            filteredUsers.setPredicate(u -> u.getIdString().contains(lc)
-                    || u.getFullName().toLowerCase().contains(lc)
-                    || u.getEmail().toLowerCase().contains(lc)
-                    || u.getType().toLowerCase().contains(lc));
-        }
+        userSearch.filter(searchText);
         updateStatusBar();
     }
 
     private void updateStatusBar() {
         int total = userTableData.size();
-        int filtered = filteredUsers.size();
+        int filtered = userSearch.getShownRows().size();
         if (filtered == total) {
             totalUserLabel.setText("Total: " + total + " users");
             statusLabel.setText("All users displayed");
@@ -232,8 +248,8 @@ public class AdminDashboardHomeController implements Initializable {
             if (response == ButtonType.YES) {
                 try {
                     if (userDAO.deleteUser(userData.getId())) {
-                        loadUsersData();
-                        statusLabel.setText(userData.getFullName() + " deleted successfully.");
+                        ViewNavigator.getInstance().invalidate(ViewNavigator.USER_SECTIONS);
+                        loadUsersData(() -> statusLabel.setText(userData.getFullName() + " deleted successfully."));
                     } else {
                         statusLabel.setText("Failed to delete " + userData.getFullName());
                     }
@@ -246,6 +246,7 @@ public class AdminDashboardInsertController {
             }
 
             if (success) {
+                ViewNavigator.getInstance().invalidate(ViewNavigator.USER_SECTIONS);
                 showSuccessAlert("Registration Successful",
                         "Your " + accountType.toLowerCase() + " account has been created successfully!");
                 clearForm();
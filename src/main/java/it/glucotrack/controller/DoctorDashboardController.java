@@ -10,8 +10,10 @@ import javafx.scene.control.Button;
 import javafx.scene.layout.StackPane;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.List;
 
 import it.glucotrack.util.SessionManager;
+import it.glucotrack.view.ViewNavigator;
 import it.glucotrack.model.User;
 import it.glucotrack.model.Doctor;
 
@@ -52,6 +54,10 @@ public class DoctorDashboardController {
         loadCenterContent("DoctorDashboardHome.fxml");
         setActiveButton(dashboardBtn);
 
+        // The other sections load in the background while the home is on screen
+        ViewNavigator.getInstance().prewarm(List.of(
+                "/assets/fxml/DoctorDashboardPatients.fxml",
+                "/assets/fxml/DoctorDashboardMedications.fxml"));
     }
 
     private void loadDoctorInfo() {
@@ -116,8 +122,7 @@ public class DoctorDashboardController {
 
     void loadCenterContent(String fxmlFile) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/assets/fxml/" + fxmlFile));
-            Node node = loader.load();
+            Node node = ViewNavigator.getInstance().loadSection("/assets/fxml/" + fxmlFile);
             contentPane.getChildren().setAll(node);
             } catch (IOException e) {
             e.printStackTrace();
@@ -1,14 +1,17 @@
 package it.glucotrack.controller;
 
+import it.glucotrack.component.AsyncLoader;
 import it.glucotrack.model.*;
 import it.glucotrack.model.Alert;
 import it.glucotrack.util.*;
+import it.glucotrack.view.Refreshable;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -16,10 +19,11 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
 
-public class DoctorDashboardHomeController {
+public class DoctorDashboardHomeController implements Refreshable {
 
     @FXML
     private ListView<String> alertsList;
@@ -41,31 +45,63 @@ public class DoctorDashboardHomeController {
 
     private List<Alert> allAlerts;
     private Map<Integer, Patient> patientMap;
+    private AsyncLoader loader;
 
     @FXML
     public void initialize() throws SQLException {
 
+        loader = new AsyncLoader(alertsContainer);
         doctorId = SessionManager.getCurrentUser().getId();
 
-        List<Patient> patients = new PatientDAO().getPatientsByDoctorId(doctorId);
-        patientMap = patients.stream().collect(Collectors.toMap(Patient::getId, p -> p));
-
         patientFilterCombo.setItems(FXCollections.observableArrayList("All Patients"));
-        patients.forEach(p -> patientFilterCombo.getItems().add(p.getName() + " " + p.getSurname()));
         patientFilterCombo.getSelectionModel().selectFirst();
+        // The patient names join the filter once loaded; "All Patients" stays selected meanwhile
+        loader.load("patients", () -> new PatientDAO().getPatientsByDoctorId(doctorId), patients -> {
+            patientMap = patients.stream().collect(Collectors.toMap(Patient::getId, p -> p));
+            patients.forEach(p -> patientFilterCombo.getItems().add(p.getName() + " " + p.getSurname()));
+        });
 
         severityFilterCombo.setItems(FXCollections.observableArrayList("All Severities", "CRITICAL", "WARNING", "INFO"));
         severityFilterCombo.getSelectionModel().selectFirst();
 
-        allAlerts = AlertManagement.generateDoctorAlerts(doctorId);
-
-        applyFilters();
-
         patientFilterCombo.setOnAction(e -> applyFilters());
         severityFilterCombo.setOnAction(e -> applyFilters());
+
+        allAlerts = new ArrayList<>();
         loadAlerts();
     }
 
+    // Shown again from the view cache: the stored alerts are read again
+    @Override
+    public void refresh() {
+        loadAlerts();
+    }
+
+    // Alerts kept in the alerts table by AlertSweeper; patients written since its last pass are stored first
+    private void loadAlerts() {
+        if (allAlerts.isEmpty()) {
+            Label placeholder = new Label("Loading alerts...");
+            placeholder.setStyle("-fx-text-fill: #8892b0;");
+            alertsContainer.getChildren().setAll(placeholder);
+        }
+        loader.load("alerts", () -> {
+            AlertSweeper.syncDoctor(doctorId);
+            return AlertDAO.getActiveAlertsByDoctorId(doctorId);
+        }, alerts -> {
+            allAlerts = alerts;
+            applyFilters();
+        });
+    }
+
+    private void acknowledge(Alert alert) {
+        loader.load("acknowledge:" + alert.getKey(), () -> AlertDAO.acknowledge(alert.getKey()), done -> {
+            if (done) {
+                alert.setAcknowledged(true);
+                applyFilters();
+            }
+        });
+    }
+
     private void applyFilters() {
         alertsContainer.getChildren().clear();
 
@@ -77,7 +113,7 @@ public class DoctorDashboardHomeController {
                 .filter(a -> selectedPatient.equals("All Patients") ||
                         (a.getPatient() != null &&
                                 (a.getPatient().getName() + " " + a.getPatient().getSurname()).equals(selectedPatient)))
-                .sorted(Comparator.comparing(Alert::getType, Comparator.comparingInt(this::severityPriority))
+                .sorted(Comparator.comparing(Alert::getType, Comparator.comparingInt(this::severityPriority).reversed())
                         .thenComparing(Alert::getDateAndTime, Comparator.reverseOrder()))
                 .collect(Collectors.toList());
 
@@ -100,36 +136,6 @@ public class DoctorDashboardHomeController {
         this.doctorId = doctorId;
     }
 
-    private void loadAlerts() throws SQLException {
-        alertsContainer.getChildren().clear();
-
-        List<Alert> alerts = AlertManagement.generateDoctorAlerts(this.doctorId);
-
-
-        alerts.sort((a1, a2) -> {
-            int severity1 = getSeverity(a1.getType());
-            int severity2 = getSeverity(a2.getType());
-            if (severity1 != severity2) return severity2 - severity1;
-            return a2.getDateAndTime().compareTo(a1.getDateAndTime());
-        });
-
-
-        for (Alert alert : alerts) {
-            HBox alertBox = createAlertBox(alert);
-            alertsContainer.getChildren().add(alertBox);
-        }
-    }
-
-    private int getSeverity(AlertType type) {
-        switch (type) {
-            case CRITICAL: return 3;
-            case WARNING: return 2;
-            case INFO: return 1;
-            default: return 0;
-        }
-    }
-
-
     private HBox createAlertBox(Alert alert) {
         HBox box = new HBox(10);
         box.setStyle("-fx-background-radius: 10; -fx-padding: 15; -fx-alignment: center-left;");
@@ -164,6 +170,22 @@ public class DoctorDashboardHomeController {
 
         content.getChildren().addAll(title, patientInfo);
         box.getChildren().add(content);
+        HBox.setHgrow(content, Priority.ALWAYS);
+
+        if (alert.isAcknowledged()) {
+            box.setOpacity(0.6);
+            Label acknowledged = new Label("Acknowledged");
+            acknowledged.setStyle("-fx-text-fill: white; -fx-font-size: 12px;");
+            box.getChildren().add(acknowledged);
+        } else {
+            Button acknowledgeButton = new Button("Acknowledge");
+            acknowledgeButton.getStyleClass().add("secondary-btn");
+            acknowledgeButton.setOnAction(e -> {
+                acknowledgeButton.setDisable(true);
+                acknowledge(alert);
+            });
+            box.getChildren().add(acknowledgeButton);
+        }
 
         return box;
     }
@@ -1,7 +1,10 @@
 package it.glucotrack.controller;
 
+import it.glucotrack.component.AsyncLoader;
 import it.glucotrack.model.*;
 import it.glucotrack.util.*;
+import it.glucotrack.view.Refreshable;
+import it.glucotrack.view.ViewNavigator;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -26,7 +29,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 
-public class DoctorDashboardMedicationsController implements Initializable {
+public class DoctorDashboardMedicationsController implements Initializable, Refreshable {
 
     @FXML
     private Button logMedicationBtn;
@@ -51,27 +54,28 @@ public class DoctorDashboardMedicationsController implements Initializable {
 
     private ObservableList<Medication> prescribedMedications;
 
-    private Doctor currentDoctor;
+    private int doctorId;
+    private AsyncLoader loader;
 
 
     public void initialize(URL location, ResourceBundle resources) {
 
-        try {
-            this.currentDoctor = DoctorDAO.getDoctorById(SessionManager.getCurrentUser().getId());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        this.doctorId = SessionManager.getCurrentUser().getId();
+        this.loader = new AsyncLoader(prescribedMedicationsTable);
+        loader.showPlaceholderWhileLoading(prescribedMedicationsTable);
+
         setupPrescribedMedicationsTable();
-        try {
-            loadData();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        loadData();
 
         setupEventHandlers();
 
     }
 
+    @Override
+    public void refresh() {
+        loadData();
+    }
+
     @FXML
     private void onInsertMedication() {
         try{
@@ -97,10 +101,12 @@ public class DoctorDashboardMedicationsController implements Initializable {
 
     private void setupPrescribedMedicationsTable() {
         System.out.println("setupPrescribedMedicationsTable");
+        // Called for every visible cell on each scroll: the header cache answers after the first lookup
         patientFullNameColumn.setCellValueFactory( cell ->
                 {
                     try {
-                        return new SimpleStringProperty(PatientDAO.getPatientById(cell.getValue().getPatient_id()).getFullName());
+                        UserHeader patient = UserDAO.getUserHeader(cell.getValue().getPatient_id());
+                        return new SimpleStringProperty(patient != null ? patient.getFullName() : "Unknown");
                     } catch (SQLException e) {
                         throw new RuntimeException(e);
                     }
@@ -408,7 +414,7 @@ public class DoctorDashboardMedicationsController implements Initializable {
             "Patient: %s\n" +
             "Medication: %s\n" +
             "Frequency: %s\n",
-        PatientDAO.getPatientById(selectedMedication.getPatient_id()).getFullName(),
+        UserDAO.getUserHeader(selectedMedication.getPatient_id()).getFullName(),
         selectedMedication.getName_medication(),
         selectedMedication.getFreq().name()
     ));
@@ -420,6 +426,7 @@ public class DoctorDashboardMedicationsController implements Initializable {
                 boolean deletedLog = LogMedicationDAO.deleteLogsByMedicationId(selectedMedication.getId());
 
                 if (deleted) {
+                    ViewNavigator.getInstance().invalidate(ViewNavigator.MEDICATION_SECTIONS);
                     loadData();
                     javafx.scene.control.Alert successAlert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.INFORMATION);
                     successAlert.setTitle("Success");
@@ -456,7 +463,7 @@ public class DoctorDashboardMedicationsController implements Initializable {
             javafx.scene.layout.VBox content = controller.getPopupContent();
             content.getChildren().clear();
 
-            Label lblPatient = new Label("Patient: " + PatientDAO.getPatientById(med.getPatient_id()).getFullName());
+            Label lblPatient = new Label("Patient: " + UserDAO.getUserHeader(med.getPatient_id()).getFullName());
             lblPatient.setTextFill(Color.WHITE);
             Label lblMedication = new Label("Medication: " + med.getName_medication());
             lblMedication.setTextFill(Color.WHITE);
@@ -484,19 +491,21 @@ public class DoctorDashboardMedicationsController implements Initializable {
     }
 
 
-    void loadData() throws SQLException {
-
-        List<Patient> patients = PatientDAO.getPatientsByDoctorId(currentDoctor.getId());
-        List<Medication> meds = new ArrayList<>();
-        for(Patient patient : patients){
-            meds.addAll(patient.getMedications());
-        }
-        System.out.println(meds);
-        prescribedMedications = FXCollections.observableArrayList(
-                meds
-        );
-        prescribedMedicationsTable.setItems(prescribedMedications);
-
+    // The patients' medications are fetched in the background; the table keeps its rows until they arrive
+    void loadData() {
+        loader.load("medications", () -> {
+            List<Patient> patients = PatientDAO.getPatientsByDoctorId(doctorId);
+            List<Medication> meds = new ArrayList<>();
+            for(Patient patient : patients){
+                meds.addAll(patient.getMedications());
+            }
+            return meds;
+        }, meds -> {
+            prescribedMedications = FXCollections.observableArrayList(
+                    meds
+            );
+            prescribedMedicationsTable.setItems(prescribedMedications);
+        });
     }
 
     private void showErrorAlert(String title, String message) {
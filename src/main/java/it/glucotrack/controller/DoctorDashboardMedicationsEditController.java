@@ -8,14 +8,17 @@ import javafx.scene.layout.StackPane;
 import it.glucotrack.model.Frequency;
 import it.glucotrack.model.Medication;
 import it.glucotrack.model.Patient;
+import it.glucotrack.util.DatabaseInteraction;
 import it.glucotrack.util.MedicationDAO;
 import it.glucotrack.util.PatientDAO;
 import it.glucotrack.util.LogMedicationDAO;
 import it.glucotrack.model.LogMedication;
+import it.glucotrack.view.ViewNavigator;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class DoctorDashboardMedicationsEditController {
@@ -240,19 +243,22 @@ public class DoctorDashboardMedicationsEditController {
             currentMedication.setEnd_date(endDatePicker.getValue());
             currentMedication.setInstructions(notesTextArea.getText().trim().isEmpty() ? null : notesTextArea.getText().trim());
 
-            // Update in database
-            boolean success = medicationDAO.updateMedication(currentMedication, currentMedication.getPatient_id());
+            // Check if we need to recreate medication logs
+            boolean needsLogUpdate = !originalStartDate.equals(currentMedication.getStart_date()) ||
+                    !originalEndDate.equals(currentMedication.getEnd_date()) ||
+                    !originalFrequency.equals(currentMedication.getFreq());
 
-            if (success) {
-                // Check if we need to recreate medication logs
-                boolean needsLogUpdate = !originalStartDate.equals(currentMedication.getStart_date()) ||
-                        !originalEndDate.equals(currentMedication.getEnd_date()) ||
-                        !originalFrequency.equals(currentMedication.getFreq());
-
-                if (needsLogUpdate) {
+            // Update, edit history and schedule regeneration commit (or roll back) as one unit
+            boolean success = DatabaseInteraction.inTransactionReturning(conn -> {
+                boolean updated = medicationDAO.updateMedication(currentMedication, currentMedication.getPatient_id());
+                if (updated && needsLogUpdate) {
                     updateMedicationLogs(originalStartDate, originalEndDate, originalFrequency);
                 }
+                return updated;
+            });
 
+            if (success) {
+                ViewNavigator.getInstance().invalidate(ViewNavigator.MEDICATION_SECTIONS);
                 showSuccess("Medication updated successfully!" +
                         (needsLogUpdate ? "\nMedication schedule has been updated accordingly." : ""));
                 navigateBackToMedicationsList();
@@ -291,20 +297,13 @@ public class DoctorDashboardMedicationsEditController {
                 !currentNotes.equals(newNotes);
     }
 
-    private void updateMedicationLogs(LocalDate originalStartDate, LocalDate originalEndDate, Frequency originalFrequency) {
-        try {
-            // Delete existing future medication logs (from today onwards)
-            logMedicationDAO.deleteFutureLogMedications(currentMedication.getId(), LocalDateTime.now());
-
-            // Create new medication logs based on updated schedule
-
-            createLogMedications(currentMedication.getId(), currentMedication, LocalDate.now());
+    private void updateMedicationLogs(LocalDate originalStartDate, LocalDate originalEndDate, Frequency originalFrequency) throws SQLException {
+        // Delete existing future medication logs (from today onwards)
+        logMedicationDAO.deleteFutureLogMedications(currentMedication.getId(), LocalDateTime.now());
 
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Warning", "Medication updated but there was an issue updating the medication schedule. Please check the logs manually.");
-        }
+        // Create new medication logs based on updated schedule
+        logMedicationDAO.insertBatchLogMedications(
+                createLogMedications(currentMedication.getId(), currentMedication, LocalDate.now()));
     }
 
     private boolean validateForm() {
@@ -344,87 +343,76 @@ public class DoctorDashboardMedicationsEditController {
         return true;
     }
 
-    private void createLogMedications(int medicationId, Medication medication, LocalDate startFrom) {
-        try {
-            LocalDate startDate = startFrom.isAfter(medication.getStart_date()) ? startFrom : medication.getStart_date();
-            LocalDate endDate = medication.getEnd_date();
-            String frequency = medication.getFreq().toString();
-
-            LocalDate currentDate = startDate;
-
-            while (!currentDate.isAfter(endDate)) {
-                switch (frequency.toLowerCase()) {
-                    case "once a day":
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "twice a day":
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        createLogMedicationEntry(medicationId, currentDate, "21:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "three times a day":
-                        createLogMedicationEntry(medicationId, currentDate, "08:00");
-                        createLogMedicationEntry(medicationId, currentDate, "14:00");
-                        createLogMedicationEntry(medicationId, currentDate, "20:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "every 6 hours":
-                        createLogMedicationEntry(medicationId, currentDate, "06:00");
-                        createLogMedicationEntry(medicationId, currentDate, "12:00");
-                        createLogMedicationEntry(medicationId, currentDate, "18:00");
-                        createLogMedicationEntry(medicationId, currentDate, "00:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "every 8 hours":
-                        createLogMedicationEntry(medicationId, currentDate, "06:00");
-                        createLogMedicationEntry(medicationId, currentDate, "14:00");
-                        createLogMedicationEntry(medicationId, currentDate, "22:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "once a week":
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusWeeks(1);
-                        break;
-
-                    case "every other day":
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusDays(2);
-                        break;
-
-                    default:
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-                }
+    // Builds the dose schedule from startFrom on; the caller stores it with a single batch insert
+    private List<LogMedication> createLogMedications(int medicationId, Medication medication, LocalDate startFrom) {
+        List<LogMedication> logs = new ArrayList<>();
+        LocalDate startDate = startFrom.isAfter(medication.getStart_date()) ? startFrom : medication.getStart_date();
+        LocalDate endDate = medication.getEnd_date();
+        String frequency = medication.getFreq().toString();
+
+        LocalDate currentDate = startDate;
+
+        while (!currentDate.isAfter(endDate)) {
+            switch (frequency.toLowerCase()) {
+                case "once a day":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "twice a day":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "21:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "three times a day":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "08:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "14:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "20:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "every 6 hours":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "06:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "12:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "18:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "00:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "every 8 hours":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "06:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "14:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "22:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "once a week":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusWeeks(1);
+                    break;
+
+                case "every other day":
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusDays(2);
+                    break;
+
+                default:
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to create medication schedule: " + e.getMessage());
         }
+
+        return logs;
     }
 
-    private void createLogMedicationEntry(int medicationId, LocalDate date, String time) {
-        try {
-            LogMedication logMedication = new LogMedication();
-            logMedication.setMedication_id(medicationId);
-            logMedication.setDateAndTime(LocalDateTime.parse(date + "T" + time + ":00"));
-            logMedication.setTaken(false);
-
-            boolean success = logMedicationDAO.insertLogMedication(logMedication);
-            if (!success) {
-                System.err.println("Failed to create log medication entry for " + date + " " + time);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Failed to log for medication " + medicationId + " on " + date + " at " + time + ": " + e.getMessage());
-        }
+    private void createLogMedicationEntry(List<LogMedication> logs, int medicationId, LocalDate date, String time) {
+        LogMedication logMedication = new LogMedication();
+        logMedication.setMedication_id(medicationId);
+        logMedication.setDateAndTime(LocalDateTime.parse(date + "T" + time + ":00"));
+        logMedication.setTaken(false);
+        logs.add(logMedication);
     }
 
     private void navigateBackToMedicationsList() {
@@ -1,5 +1,6 @@
 package it.glucotrack.controller;
 
+import it.glucotrack.util.DatabaseInteraction;
 import it.glucotrack.util.SessionManager;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -13,10 +14,12 @@ import it.glucotrack.util.MedicationDAO;
 import it.glucotrack.util.PatientDAO;
 import it.glucotrack.util.LogMedicationDAO;
 import it.glucotrack.model.LogMedication;
+import it.glucotrack.view.ViewNavigator;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class DoctorDashboardMedicationsInsertController {
@@ -188,11 +191,18 @@ public class DoctorDashboardMedicationsInsertController {
                     notes.isEmpty() ? null : notes
             );
 
-            int medicationId = medicationDAO.insertMedicationAndGetId(medication, SessionManager.getCurrentUser().getId());
-            medication.setId(medicationId);
+            // Medication, edit history and every scheduled dose are committed together
+            int medicationId = DatabaseInteraction.inTransactionReturning(conn -> {
+                int insertedId = medicationDAO.insertMedicationAndGetId(medication, SessionManager.getCurrentUser().getId());
+                medication.setId(insertedId);
+                if (insertedId > 0) {
+                    logMedicationDAO.insertBatchLogMedications(createLogMedications(insertedId, medication));
+                }
+                return insertedId;
+            });
 
             if (medicationId > 0) {
-                createLogMedications(medicationId, medication);
+                ViewNavigator.getInstance().invalidate(ViewNavigator.MEDICATION_SECTIONS);
                 showSuccess("Medication prescribed successfully!\nSchedule logs have been created for the patient.");
                 clearForm();
                 navigateBackToMedicationsList();
@@ -253,95 +263,84 @@ public class DoctorDashboardMedicationsInsertController {
         notesTextArea.clear();
     }
 
-    private void createLogMedications(int medicationId, Medication medication) {
-        try {
-            LocalDate startDate = medication.getStart_date();
-            LocalDate endDate = medication.getEnd_date();
-            String frequency = medication.getFreq().toString();
-            
-            LocalDate currentDate = startDate;
-            
-            while (!currentDate.isAfter(endDate)) {
-                switch (frequency.toLowerCase()) {
-                    case "once a day":
-                        // Create one log per day
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-                        
-                    case "twice a day":
-                        // Create two logs per day
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        createLogMedicationEntry(medicationId, currentDate, "21:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-                        
-                    case "three times a day":
-                        // Create three logs per day
-                        createLogMedicationEntry(medicationId, currentDate, "08:00");
-                        createLogMedicationEntry(medicationId, currentDate, "14:00");
-                        createLogMedicationEntry(medicationId, currentDate, "20:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "Every 6 hours":
-                        // Create four logs per day
-                        createLogMedicationEntry(medicationId, currentDate, "06:00");
-                        createLogMedicationEntry(medicationId, currentDate, "12:00");
-                        createLogMedicationEntry(medicationId, currentDate, "18:00");
-                        createLogMedicationEntry(medicationId, currentDate, "00:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "Every 8 hours":
-                        // Create three logs per day
-                        createLogMedicationEntry(medicationId, currentDate, "06:00");
-                        createLogMedicationEntry(medicationId, currentDate, "14:00");
-                        createLogMedicationEntry(medicationId, currentDate, "22:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-
-                    case "once a week":
-                        // Create one log per week (same day of week as start date)
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusWeeks(1);
-                        break;
-                        
-                    case "every other day":
-                        // Create one log every two days
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusDays(2);
-                        break;
-                        
-                    default:
-                        // Default to daily if frequency not recognized
-                        createLogMedicationEntry(medicationId, currentDate, "09:00");
-                        currentDate = currentDate.plusDays(1);
-                        break;
-                }
+    // Builds the dose schedule; the caller stores it with a single batch insert
+    private List<LogMedication> createLogMedications(int medicationId, Medication medication) {
+        List<LogMedication> logs = new ArrayList<>();
+        LocalDate startDate = medication.getStart_date();
+        LocalDate endDate = medication.getEnd_date();
+        String frequency = medication.getFreq().toString();
+        
+        LocalDate currentDate = startDate;
+        
+        while (!currentDate.isAfter(endDate)) {
+            switch (frequency.toLowerCase()) {
+                case "once a day":
+                    // Create one log per day
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+                    
+                case "twice a day":
+                    // Create two logs per day
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "21:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+                    
+                case "three times a day":
+                    // Create three logs per day
+                    createLogMedicationEntry(logs, medicationId, currentDate, "08:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "14:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "20:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "Every 6 hours":
+                    // Create four logs per day
+                    createLogMedicationEntry(logs, medicationId, currentDate, "06:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "12:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "18:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "00:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "Every 8 hours":
+                    // Create three logs per day
+                    createLogMedicationEntry(logs, medicationId, currentDate, "06:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "14:00");
+                    createLogMedicationEntry(logs, medicationId, currentDate, "22:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
+
+                case "once a week":
+                    // Create one log per week (same day of week as start date)
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusWeeks(1);
+                    break;
+                    
+                case "every other day":
+                    // Create one log every two days
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusDays(2);
+                    break;
+                    
+                default:
+                    // Default to daily if frequency not recognized
+                    createLogMedicationEntry(logs, medicationId, currentDate, "09:00");
+                    currentDate = currentDate.plusDays(1);
+                    break;
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Error", "Failed to create medication schedule: " + e.getMessage());
         }
+
+        return logs;
     }
     
-    private void createLogMedicationEntry(int medicationId, LocalDate date, String time) {
-        try {
-            LogMedication logMedication = new LogMedication();
-            logMedication.setMedication_id(medicationId);
-            logMedication.setDateAndTime(LocalDateTime.parse(date + "T" + time + ":00")); // Format: YYYY-MM-DDTHH:MM:SS
-            logMedication.setTaken(false); // Default to not taken
-            
-            boolean success = logMedicationDAO.insertLogMedication(logMedication);
-            if (!success) {
-                System.err.println("Failed to create log entry for " + logMedication.getDateAndTime());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Error creating log medication entry: " + e.getMessage());
-        }
+    private void createLogMedicationEntry(List<LogMedication> logs, int medicationId, LocalDate date, String time) {
+        LogMedication logMedication = new LogMedication();
+        logMedication.setMedication_id(medicationId);
+        logMedication.setDateAndTime(LocalDateTime.parse(date + "T" + time + ":00")); // Format: YYYY-MM-DDTHH:MM:SS
+        logMedication.setTaken(false); // Default to not taken
+        logs.add(logMedication);
     }
 
     private void navigateBackToMedicationsList() {
@@ -1,24 +1,23 @@
 package it.glucotrack.controller;
 
 import java.net.URL;
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 
-import it.glucotrack.model.Doctor;
-import it.glucotrack.model.GlucoseMeasurement;
 import it.glucotrack.model.Patient;
-import it.glucotrack.util.GlucoseMeasurementDAO;
-import it.glucotrack.util.PatientDAO;
-import it.glucotrack.util.DoctorDAO;
+import it.glucotrack.model.PatientSummary;
+import it.glucotrack.util.PatientSummaryDAO;
+import it.glucotrack.component.AsyncLoader;
+import it.glucotrack.component.TableSearchIndex;
+import it.glucotrack.view.Refreshable;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -40,7 +39,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
 
-public class DoctorDashboardPatientsController implements Initializable {
+public class DoctorDashboardPatientsController implements Initializable, Refreshable {
 
     // Search and filter elements
     @FXML private TextField searchField;
@@ -51,6 +50,8 @@ public class DoctorDashboardPatientsController implements Initializable {
     @FXML private TableColumn<PatientTableData, String> lastGlucoseColumn;
     @FXML private TableColumn<PatientTableData, String> riskStatusColumn;
     @FXML private TableColumn<PatientTableData, String> lastReadingColumn;
+    @FXML private TableColumn<PatientTableData, String> weeklyAverageColumn;
+    @FXML private TableColumn<PatientTableData, Integer> missedDosesColumn;
     @FXML private TableColumn<PatientTableData, Integer> ageColumn;
 
     // Context menu
@@ -63,43 +64,42 @@ public class DoctorDashboardPatientsController implements Initializable {
 
     // Data and DAOs
     private ObservableList<PatientTableData> patientTableData;
-    private FilteredList<PatientTableData> filteredPatients;
+    private TableSearchIndex<PatientTableData> patientSearch;
     private PatientTableData selectedPatient;
-    private PatientDAO patientDAO;
-    private GlucoseMeasurementDAO glucoseMeasurementDAO;
-    private Doctor doctorUser;
     private int doctorId;
+    private AsyncLoader loader;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        this.patientDAO = new PatientDAO();
-        this.glucoseMeasurementDAO = new GlucoseMeasurementDAO();
-
-
         this.doctorId = it.glucotrack.util.SessionManager.getInstance().getCurrentUser().getId();
-        try {
-            this.doctorUser = DoctorDAO.getDoctorById(it.glucotrack.util.SessionManager.getInstance().getCurrentUser().getId());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        this.loader = new AsyncLoader(patientsTable);
         setupTable();
         setupSearch();
         setupContextMenu();
+        loader.showPlaceholderWhileLoading(patientsTable);
+        loadPatientsData();
+    }
+
+    // Shown again from the view cache: the search text is kept and applied to the reloaded rows
+    @Override
+    public void refresh() {
         loadPatientsData();
-        updateStatusBar();
     }
 
 
 
     private void setupTable() {
         patientTableData = FXCollections.observableArrayList();
-        filteredPatients = new FilteredList<>(patientTableData);
-        patientsTable.setItems(filteredPatients);
+        patientSearch = new TableSearchIndex<>(patientTableData,
+                p -> p.getFullName() + "\n" + p.getRiskStatus() + "\n" + p.getLastGlucoseReading() + "\n" + p.getPatient().getEmail());
+        patientsTable.setItems(patientSearch.getShownRows());
 
         patientNameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
         lastGlucoseColumn.setCellValueFactory(new PropertyValueFactory<>("lastGlucoseReading"));
         riskStatusColumn.setCellValueFactory(new PropertyValueFactory<>("riskStatus"));
         lastReadingColumn.setCellValueFactory(new PropertyValueFactory<>("lastReadingFormatted"));
+        weeklyAverageColumn.setCellValueFactory(new PropertyValueFactory<>("weeklyAverage"));
+        missedDosesColumn.setCellValueFactory(new PropertyValueFactory<>("missedDoses"));
         ageColumn.setCellValueFactory(new PropertyValueFactory<>("age"));
 
         setupRiskStatusColumn();
@@ -202,46 +202,38 @@ public class DoctorDashboardPatientsController implements Initializable {
     }
 
     private void loadPatientsData() {
-        patientTableData.clear();
-        try {
-            // Fetch patients from the database assigned to this doctor
-            List<Patient> patients = patientDAO.getPatientsByDoctorId(this.doctorId);
-            if (patients != null) {
-                for (Patient patient : patients) {
-                    // Fetch the latest glucose measurement for each patient
-                    GlucoseMeasurement lastMeasurement = glucoseMeasurementDAO.getLatestMeasurementByPatientId(patient.getId());
-                    if (lastMeasurement != null) {
-                        patient.getGlucoseReadings().add(lastMeasurement);
-                    }
-                    PatientTableData tableData = new PatientTableData(patient);
-                    patientTableData.add(tableData);
-                }
+        loadPatientsData(null);
+    }
+
+    // The rows are built in the background; afterLoad (may be null) runs once they are shown
+    private void loadPatientsData(Runnable afterLoad) {
+        statusLabel.setText("Loading patients...");
+        loader.load("patients", () -> {
+            // One query for all patients of this doctor, latest reading and weekly figures included
+            List<PatientTableData> rows = new ArrayList<>();
+            for (PatientSummary summary : PatientSummaryDAO.getSummariesByDoctorId(doctorId)) {
+                rows.add(new PatientTableData(summary));
             }
-            statusLabel.setText("Patients loaded successfully from the database");
-        } catch (SQLException e) {
-            statusLabel.setText("Error loading patients: " + e.getMessage());
-            e.printStackTrace();
-        }
+            return rows;
+        }, rows -> {
+            patientTableData.setAll(rows);
+            updateStatusBar();
+            if (afterLoad != null) afterLoad.run();
+        }, error -> {
+            statusLabel.setText("Error loading patients: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
+    // Name, risk status, last reading or email containing the text, looked up in the index of the loaded rows
     private void filterPatients(String searchText) {
-        if (searchText == null || searchText.isEmpty()) {
-            filteredPatients.setPredicate(null);
-        } else {
-            String lowerCaseFilter = searchText.toLowerCase();
-            filteredPatients.setPredicate(patientData ->
-                    patientData.getFullName().toLowerCase().contains(lowerCaseFilter) ||
-                            patientData.getRiskStatus().toLowerCase().contains(lowerCaseFilter) ||
-                            patientData.getLastGlucoseReading().contains(searchText) ||
-                            patientData.getPatient().getEmail().toLowerCase().contains(lowerCaseFilter)
-            );
-        }
+        patientSearch.filter(searchText);
         updateStatusBar();
     }
 
     private void updateStatusBar() {
         int totalPatients = patientTableData.size();
-        int filteredCount = filteredPatients.size();
+        int filteredCount = patientSearch.getShownRows().size();
 
         if (filteredCount == totalPatients) {
             totalPatientsLabel.setText("Total: " + totalPatients + " patients");
@@ -280,9 +272,7 @@ public class DoctorDashboardPatientsController implements Initializable {
 
     // Public methods for external use
     public void refreshPatientsList() {
-        loadPatientsData();
-        updateStatusBar();
-        statusLabel.setText("Patients list refreshed");
+        loadPatientsData(() -> statusLabel.setText("Patients list refreshed"));
     }
 
     public void setSelectedPatient(PatientTableData patientData) {
@@ -305,27 +295,27 @@ public class DoctorDashboardPatientsController implements Initializable {
 
     // Wrapper class for table display
     public static class PatientTableData {
-        private final Patient patient;
+        private final PatientSummary summary;
         private final SimpleStringProperty fullName;
         private final SimpleStringProperty lastGlucoseReading;
         private final SimpleStringProperty riskStatus;
         private final SimpleStringProperty lastReadingFormatted;
+        private final SimpleStringProperty weeklyAverage;
+        private final SimpleIntegerProperty missedDoses;
         private final SimpleIntegerProperty age;
 
-        public PatientTableData(Patient patient) {
-            this.patient = patient;
+        public PatientTableData(PatientSummary summary) {
+            this.summary = summary;
+            Patient patient = summary.getPatient();
             this.fullName = new SimpleStringProperty(patient.getFullName());
 
             String glucoseDisplay = "No readings";
             String riskLevel = "Unknown";
             LocalDateTime lastReadingDateTime = null;
-            if (patient.getGlucoseReadings() != null && !patient.getGlucoseReadings().isEmpty()) {
-                GlucoseMeasurement lastReading = patient.getGlucoseReadings().get(patient.getGlucoseReadings().size() - 1);
-                if (lastReading != null) {
-                    glucoseDisplay = lastReading.getGlucoseLevel() + " mg/dL";
-                    riskLevel = calculateRiskStatus((int) lastReading.getGlucoseLevel());
-                    lastReadingDateTime = lastReading.getDateAndTime();
-                }
+            if (summary.hasReadings()) {
+                glucoseDisplay = summary.getLastGlucoseValue() + " mg/dL";
+                riskLevel = calculateRiskStatus(summary.getLastGlucoseValue().intValue());
+                lastReadingDateTime = summary.getLastGlucoseTime();
             }
 
             this.lastGlucoseReading = new SimpleStringProperty(glucoseDisplay);
@@ -339,6 +329,14 @@ public class DoctorDashboardPatientsController implements Initializable {
                 lastReading = formatlastReading(lastReadingDateTime);
             }
             this.lastReadingFormatted = new SimpleStringProperty(lastReading);
+
+            // Figures of the same summary query: average of the last 7 days and doses not taken so far
+            String average = "No readings";
+            if (summary.getAverageLast7Days() != null) {
+                average = String.format("%.1f mg/dL (%d)", summary.getAverageLast7Days(), summary.getReadingsLast7Days());
+            }
+            this.weeklyAverage = new SimpleStringProperty(average);
+            this.missedDoses = new SimpleIntegerProperty(summary.getMissedDoses());
         }
 
         private String calculateRiskStatus(int glucoseLevel) {
@@ -367,13 +365,18 @@ public class DoctorDashboardPatientsController implements Initializable {
         public String getLastGlucoseReading() { return lastGlucoseReading.get(); }
         public String getRiskStatus() { return riskStatus.get(); }
         public String getlastReadingFormatted() { return lastReadingFormatted.get(); }
+        public String getWeeklyAverage() { return weeklyAverage.get(); }
+        public int getMissedDoses() { return missedDoses.get(); }
         public int getAge() { return age.get(); }
-        public Patient getPatient() { return patient; }
+        public Patient getPatient() { return summary.getPatient(); }
+        public PatientSummary getSummary() { return summary; }
 
         public SimpleStringProperty fullNameProperty() { return fullName; }
         public SimpleStringProperty lastGlucoseReadingProperty() { return lastGlucoseReading; }
         public SimpleStringProperty riskStatusProperty() { return riskStatus; }
         public SimpleStringProperty lastReadingFormattedProperty() { return lastReadingFormatted; }
+        public SimpleStringProperty weeklyAverageProperty() { return weeklyAverage; }
+        public SimpleIntegerProperty missedDosesProperty() { return missedDoses; }
         public SimpleIntegerProperty ageProperty() { return age; }
     }
 }
\ No newline at end of file
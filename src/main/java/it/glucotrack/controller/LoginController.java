@@ -3,6 +3,7 @@ package it.glucotrack.controller;
 import it.glucotrack.model.User;
 import it.glucotrack.util.InputCheck;
 import it.glucotrack.util.SessionManager;
+import it.glucotrack.util.StartupPipeline;
 import it.glucotrack.view.ViewNavigator;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -42,6 +43,25 @@ public class LoginController {
         if (passwordField != null) {
             passwordField.setOnAction(this::handleLogin);
         }
+        waitForDatabase();
+    }
+
+    // The database may still be starting in the background: hold login and sign up until it is ready
+    private void waitForDatabase() {
+        if (StartupPipeline.isDatabaseReady() || loginButton == null) return;
+        String loginText = loginButton.getText();
+        loginButton.setDisable(true);
+        loginButton.setText("Preparing database...");
+        if (signUpLabel != null) signUpLabel.setDisable(true);
+
+        StartupPipeline.whenDatabaseReady(() -> {
+            loginButton.setText(loginText);
+            loginButton.setDisable(false);
+            if (signUpLabel != null) signUpLabel.setDisable(false);
+        }, error -> {
+            loginButton.setText("Database unavailable");
+            showErrorAlert("Database Error", "The database could not be opened: " + error.getMessage());
+        });
     }
 
     @FXML
@@ -53,6 +73,8 @@ public class LoginController {
             return;
         }
 
+        if (!StartupPipeline.isDatabaseReady()) return;
+
         String email = emailField.getText().trim();
         String password = passwordField.getText();
 
@@ -10,6 +10,7 @@ import javafx.scene.control.Button;
 import javafx.scene.layout.StackPane;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.List;
 
 import it.glucotrack.view.ViewNavigator;
 import it.glucotrack.util.SessionManager;
@@ -50,6 +51,12 @@ public class PatientDashboardController {
         loadCenterContent("PatientDashboardHome.fxml");
         setActiveButton(dashboardBtn); // Active the dashboard button by default
 
+        // The other sections load in the background while the home is on screen
+        ViewNavigator.getInstance().prewarm(List.of(
+                "/assets/fxml/PatientDashboardReadings.fxml",
+                "/assets/fxml/PatientDashboardMedications.fxml",
+                "/assets/fxml/PatientDashboardSymptoms.fxml"));
+
     }
     
     private Patient loadPatientInfo() {
@@ -115,7 +122,7 @@ public class PatientDashboardController {
     public void loadCenterContent(String fxmlFile) {
         try {
 
-            Node node = FXMLLoader.load(getClass().getResource("/assets/fxml/" + fxmlFile));
+            Node node = ViewNavigator.getInstance().loadSection("/assets/fxml/" + fxmlFile);
 
             contentPane.getChildren().setAll(node);
 
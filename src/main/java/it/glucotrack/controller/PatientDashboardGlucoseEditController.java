@@ -8,6 +8,7 @@ import it.glucotrack.model.GlucoseMeasurement;
 import it.glucotrack.model.User;
 import it.glucotrack.util.GlucoseMeasurementDAO;
 import it.glucotrack.util.SessionManager;
+import it.glucotrack.view.ViewNavigator;
 
 import java.net.URL;
 import java.sql.SQLException;
@@ -132,6 +133,7 @@ public class PatientDashboardGlucoseEditController implements Initializable {
                 boolean success = glucoseMeasurementDAO.updateGlucoseMeasurement(updatedMeasurement);
 
                 if (success) {
+                    ViewNavigator.getInstance().invalidate(ViewNavigator.GLUCOSE_SECTIONS);
                     showSuccessAlert();
                     
 
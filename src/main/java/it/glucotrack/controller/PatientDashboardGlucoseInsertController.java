@@ -12,6 +12,7 @@ import java.util.ResourceBundle;
 import it.glucotrack.model.GlucoseMeasurement;
 import it.glucotrack.util.GlucoseMeasurementDAO;
 import it.glucotrack.util.SessionManager;
+import it.glucotrack.view.ViewNavigator;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -113,6 +114,7 @@ public class PatientDashboardGlucoseInsertController implements Initializable {
                 boolean success = glucoseMeasurementDAO.insertGlucoseMeasurement(measurement);
 
                 if (success) {
+                    ViewNavigator.getInstance().invalidate(ViewNavigator.GLUCOSE_SECTIONS);
                     showSuccessAlert();
                     clearForm();
                     
@@ -1,7 +1,9 @@
 package it.glucotrack.controller;
 
+import it.glucotrack.component.AsyncLoader;
 import it.glucotrack.model.*;
 import it.glucotrack.util.*;
+import it.glucotrack.view.Refreshable;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -13,12 +15,11 @@ import javafx.event.ActionEvent;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
-public class PatientDashboardHomeController {
+public class PatientDashboardHomeController implements Refreshable {
 
     @FXML
     private ComboBox<String> timeRangeCombo;
@@ -38,87 +39,124 @@ public class PatientDashboardHomeController {
     @FXML
     private VBox alertsContainer;
 
-    private GlucoseMeasurementDAO glucoseMeasurementDAO;
-
     private Patient patient;
+    private AsyncLoader loader;
+
+    // Readings of the selected period; latest is the last reading overall, read only when the period is empty
+    private static final class PeriodReadings {
+        private final GlucoseSeries series;
+        private final GlucoseMeasurement latest;
+
+        private PeriodReadings(GlucoseSeries series, GlucoseMeasurement latest) {
+            this.series = series;
+            this.latest = latest;
+        }
+    }
 
     @FXML
     public void initialize() throws SQLException {
 
-        this.patient = PatientDAO.getPatientById(SessionManager.getInstance().getCurrentUser().getId());
+        loader = new AsyncLoader(alertsContainer);
 
+        loadPatient();
         loadAlerts();
 
-
-        // Initialize DAO
-        glucoseMeasurementDAO = new GlucoseMeasurementDAO();
-
         timeRangeCombo.getItems().addAll("Last 7 days", "Last 30 days", "Last year");
 
         timeRangeCombo.setOnAction(e -> {
             String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
             System.out.println("Change period: " + selectedPeriod);
 
-            javafx.application.Platform.runLater(() -> {
-                try {
-                    updateGlucoseData();
-                    updateChart();
-                } catch (Exception ex) {
-                    System.err.println("Error during change period: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            });
+            // Quick changes of period coalesce into one query
+            loadGlucoseData();
         });
 
 
         timeRangeCombo.getSelectionModel().select("Last 7 days");
 
-        updateGlucoseData();
-        updateChart();
+        loadGlucoseData();
     }
 
-    private void updateGlucoseData() {
-        try {
-            User currentUser = SessionManager.getInstance().getCurrentUser();
-            if (currentUser != null) {
-                List<GlucoseMeasurement> allMeasurements = glucoseMeasurementDAO.getGlucoseMeasurementsByPatientId(currentUser.getId());
-
-                if (!allMeasurements.isEmpty()) {
-
-                    String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
-                    int daysBack = getDaysFromPeriod(selectedPeriod);
-                    List<GlucoseMeasurement> filteredMeasurements = filterMeasurementsByPeriod(allMeasurements, daysBack);
-
-                    if (!filteredMeasurements.isEmpty()) {
+    // Shown again from the view cache: new readings, medications or symptoms may have changed the alerts
+    @Override
+    public void refresh() {
+        loadPatient();
+        loadAlerts();
+        loadGlucoseData();
+    }
 
-                        calculateAndDisplayStatistics(filteredMeasurements);
-                    } else {
+    private void loadPatient() {
+        int patientId = SessionManager.getInstance().getCurrentUser().getId();
+        loader.load("patient", () -> PatientDAO.getPatientById(patientId), loaded -> this.patient = loaded);
+    }
 
-                        GlucoseMeasurement latest = allMeasurements.get(0);
-                        currentGlucoseLabel.setText(String.format("%.0f", latest.getGlucoseLevel()));
-                        setStatusWithColor(latest.getGlucoseLevel());
-                        trendLabel.setText("N/A (no data in period)");
-                    }
-                } else {
-                    currentGlucoseLabel.setText("N/A");
+    // The readings of the selected period feed both the statistics and the chart; the latest reading
+    // is read on its own only when the period has none
+    private void loadGlucoseData() {
+        User currentUser = SessionManager.getInstance().getCurrentUser();
+        if (currentUser == null) return;
+        if (currentGlucoseLabel.getText() == null || currentGlucoseLabel.getText().isEmpty()) {
+            currentGlucoseLabel.setText("...");
+        }
+        int patientId = currentUser.getId();
+        String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
+        int daysBack = getDaysFromPeriod(selectedPeriod);
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        loader.load("glucose", () -> {
+                    GlucoseSeries series = GlucoseMeasurementDAO.getGlucoseSeriesByDateRange(patientId, now.minusDays(daysBack), now);
+                    GlucoseMeasurement latest = series.isEmpty()
+                            ? new GlucoseMeasurementDAO().getLatestMeasurementByPatientId(patientId) : null;
+                    return new PeriodReadings(series, latest);
+                },
+                readings -> {
+                    updateGlucoseData(readings);
+                    updateChart(readings.series, selectedPeriod);
+                },
+                error -> {
+                    System.err.println("Error loading glucose data: " + error.getMessage());
+                    currentGlucoseLabel.setText("Error");
                     trendLabel.setText("N/A");
-                    statusLabel.setText("No data");
-                }
-            }
-        } catch (SQLException e) {
-            currentGlucoseLabel.setText("Error");
+                    statusLabel.setText("Error");
+                });
+    }
+
+    private void updateGlucoseData(PeriodReadings readings) {
+        if (!readings.series.isEmpty()) {
+            calculateAndDisplayStatistics(readings.series, 0, readings.series.size());
+        } else if (readings.latest != null) {
+            int latest = Math.round(readings.latest.getGlucoseLevel());
+            currentGlucoseLabel.setText(String.valueOf(latest));
+            setStatusWithColor(latest);
+            trendLabel.setText("N/A (no data in period)");
+        } else {
+            currentGlucoseLabel.setText("N/A");
             trendLabel.setText("N/A");
-            statusLabel.setText("Error");
+            statusLabel.setText("No data");
         }
     }
 
-    private void loadAlerts() throws SQLException {
-
-        alertsContainer.getChildren().clear();
+    private void loadAlerts() {
+        if (alertsContainer.getChildren().isEmpty()) {
+            Label placeholder = new Label("Loading alerts...");
+            placeholder.setStyle("-fx-text-fill: #8892b0;");
+            alertsContainer.getChildren().add(placeholder);
+        }
 
-        List<Alert> alerts = AlertManagement.generatePatientAlerts(PatientDAO.getPatientById(
-                SessionManager.getInstance().getCurrentUser().getId()));
+        int patientId = SessionManager.getInstance().getCurrentUser().getId();
+        loader.load("alerts", () -> {
+            // Stored alerts (kept by AlertSweeper), plus the doses due within the hour, which change by the minute
+            AlertSweeper.syncPatient(patientId);
+            List<Alert> alerts = AlertDAO.getActiveAlertsByPatientId(patientId);
+            Patient current = PatientDAO.getPatientById(patientId);
+            if (current != null) {
+                alerts.addAll(AlertManagement.medicationToGetInTheNextHour(current));
+            }
+            return alerts;
+        }, this::showAlerts);
+    }
 
+    private void showAlerts(List<Alert> alerts) {
+        alertsContainer.getChildren().clear();
         for (Alert alert : alerts) {
             HBox alertBox = createAlertBox(alert);
             alertsContainer.getChildren().add(alertBox);
@@ -152,62 +190,32 @@ public class PatientDashboardHomeController {
         return box;
     }
 
-    private void updateChart() {
+    private void updateChart(GlucoseSeries measurements, String selectedPeriod) {
         try {
-            User currentUser = SessionManager.getInstance().getCurrentUser();
-            if (currentUser == null) return;
-
             glucoseChart.getData().clear();
             glucoseChart.getXAxis().setAnimated(false);
             glucoseChart.getYAxis().setAnimated(false);
             glucoseChart.setAnimated(false);
 
-
-            List<GlucoseMeasurement> measurements = glucoseMeasurementDAO.getGlucoseMeasurementsByPatientId(currentUser.getId());
-
             if (measurements.isEmpty()) {
                 System.err.println("No glucose measurements available for chart.");
                 return;
             }
 
 
-            String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
-            int daysBack = getDaysFromPeriod(selectedPeriod);
-
-
-            java.time.LocalDateTime cutoffDate = java.time.LocalDateTime.now().minusDays(daysBack);
-            List<GlucoseMeasurement> filteredMeasurements = measurements.stream()
-                .filter(m -> m.getDateAndTime().isAfter(cutoffDate))
-                .sorted((a, b) -> a.getDateAndTime().compareTo(b.getDateAndTime()))
-                .collect(Collectors.toList());
-
-
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName("Glicemia (mg/dL)");
+            // The series holds the period alone, ascending
+            int from = 0;
+            int to = measurements.size();
 
 
+            // Downsample keeping the curve shape and every bucket's lowest/highest reading
             int maxPoints = getMaxPointsForPeriod(selectedPeriod);
+            double[] times = measurements.timesAsDoubles(from, to);
+            double[] values = measurements.valuesAsDoubles(from, to);
+            int[] points = ChartDownsampler.downsample(times, values, maxPoints);
 
-            if (filteredMeasurements.size() > maxPoints) {
-
-                double step = (double) filteredMeasurements.size() / maxPoints;
-                for (int i = 0; i < maxPoints; i++) {
-                    int index = (int) Math.round(i * step);
-                    if (index >= filteredMeasurements.size()) {
-                        index = filteredMeasurements.size() - 1;
-                    }
-                    GlucoseMeasurement measurement = filteredMeasurements.get(index);
-                    String dateStr = formatDateForChart(measurement.getDateAndTime(), selectedPeriod);
-                    series.getData().add(new XYChart.Data<>(dateStr, measurement.getGlucoseLevel()));
-                }
-            } else {
-
-                for (int i = 0; i < filteredMeasurements.size(); i++) {
-                    GlucoseMeasurement measurement = filteredMeasurements.get(i);
-                    String dateStr = formatDateForChart(measurement.getDateAndTime(), selectedPeriod);
-                    series.getData().add(new XYChart.Data<>(dateStr, measurement.getGlucoseLevel()));
-                }
-            }
+            XYChart.Series<String, Number> series = ChartDownsampler.toSeries("Glicemia (mg/dL)", values, points,
+                    i -> formatDateForChart(measurements.getDateTime(from + i), selectedPeriod));
 
             glucoseChart.getData().add(series);
 
@@ -218,9 +226,6 @@ public class PatientDashboardHomeController {
                 glucoseChart.autosize();
             });
 
-        } catch (SQLException e) {
-            System.err.println("Error during chart update: " + e.getMessage());
-            e.printStackTrace();
         } catch (Exception e) {
             System.err.println("Generic error during chart update: " + e.getMessage());
             e.printStackTrace();
@@ -258,7 +263,7 @@ public class PatientDashboardHomeController {
         switch (period) {
             case "Last 7 days": return 7;
             case "Last 30 days": return 30;
-            case "Last anno": return 365;
+            case "Last year": return 365;
             default: return 7;
         }
     }
@@ -270,6 +275,7 @@ public class PatientDashboardHomeController {
 
     @FXML
     private void onContactClick(ActionEvent event)throws Exception {
+        if (patient == null) return; // still loading
         Doctor doctor = DoctorDAO.getDoctorById(patient.getDoctorId());
         MailHelper.openMailClient(doctor.getEmail());
     }
@@ -279,26 +285,18 @@ public class PatientDashboardHomeController {
         openSymptomInsertForm();
     }
 
-    private List<GlucoseMeasurement> filterMeasurementsByPeriod(List<GlucoseMeasurement> measurements, int daysBack) {
-        java.time.LocalDateTime cutoffDate = java.time.LocalDateTime.now().minusDays(daysBack);
-        return measurements.stream()
-                .filter(m -> m.getDateAndTime().isAfter(cutoffDate))
-                .collect(Collectors.toList());
-    }
-    
-    private void calculateAndDisplayStatistics(List<GlucoseMeasurement> measurements) {
-        if (measurements.isEmpty()) return;
-        
-        measurements.sort((a, b) -> b.getDateAndTime().compareTo(a.getDateAndTime()));
-        
-        GlucoseMeasurement latest = measurements.get(0);
-        currentGlucoseLabel.setText(String.format("%.0f", latest.getGlucoseLevel()));
-        
-        setStatusWithColor(latest.getGlucoseLevel());
-        
-        if (measurements.size() > 1) {
-            GlucoseMeasurement oldest = measurements.get(measurements.size() - 1);
-            double change = ((double)(latest.getGlucoseLevel() - oldest.getGlucoseLevel()) / oldest.getGlucoseLevel()) * 100;
+    // Readings [from, to) of the ascending series: the last one is the latest, the first the oldest
+    private void calculateAndDisplayStatistics(GlucoseSeries measurements, int from, int to) {
+        if (from >= to) return;
+
+        int latest = measurements.getValue(to - 1);
+        currentGlucoseLabel.setText(String.valueOf(latest));
+
+        setStatusWithColor(latest);
+
+        if (to - from > 1) {
+            int oldest = measurements.getValue(from);
+            double change = ((double)(latest - oldest) / oldest) * 100;
             
             String trendText;
             String trendColor;
@@ -353,8 +351,8 @@ public class PatientDashboardHomeController {
             // Get the controller of the form
             PatientDashboardGlucoseInsertController insertController = loader.getController();
 
+            // Going back home refreshes the statistics, the chart and the alerts
             insertController.setOnDataSaved(() -> {
-                updateGlucoseData();
 
                 returnToHome();
             });
@@ -381,8 +379,8 @@ public class PatientDashboardHomeController {
 
             PatientDashboardSymptomsInsertController insertController = loader.getController();
 
+            // Going back home refreshes the statistics, the chart and the alerts
             insertController.setOnDataSaved(() -> {
-                updateGlucoseData();
                 returnToHome();
             });
             
@@ -19,12 +19,17 @@ import java.net.URL;
 import java.sql.SQLException;
 import java.util.ResourceBundle;
 import java.util.Optional;
+import it.glucotrack.component.AsyncLoader;
+import it.glucotrack.component.PagedTableSource;
 import it.glucotrack.util.MedicationDAO;
 import it.glucotrack.util.LogMedicationDAO;
 import it.glucotrack.util.SessionManager;
 import it.glucotrack.model.Medication;
+import it.glucotrack.model.MedicationHeader;
+import it.glucotrack.view.Refreshable;
+import it.glucotrack.view.ViewNavigator;
 
-public class PatientDashboardMedicationsController implements Initializable {
+public class PatientDashboardMedicationsController implements Initializable, Refreshable {
 
 
     @FXML
@@ -55,28 +60,31 @@ public class PatientDashboardMedicationsController implements Initializable {
     private TableColumn<LogMedication, String> statusColumn;
 
     private ObservableList<Medication> prescribedMedications;
+    // The intake log is fetched one page at a time, newest first
+    private static final int LOG_PAGE_SIZE = 50;
+    private PagedTableSource<LogMedication> logSource;
     private ObservableList<LogMedication> LogMedications;
 
     private Patient currentPatient;
+    private AsyncLoader loader;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        try {
-            this.currentPatient = PatientDAO.getPatientById(SessionManager.getCurrentUser().getId());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        loader = new AsyncLoader(prescribedMedicationsTable);
+        loader.showPlaceholderWhileLoading(prescribedMedicationsTable);
 
         setupPrescribedMedicationsTable();
         setupIntakeLogTable();
 
         setupEventHandlers();
 
-        try {
-            loadData();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        loadData();
+    }
+
+    // Shown again from the view cache: the patient is fetched again since it keeps its medications once loaded
+    @Override
+    public void refresh() {
+        loadData();
     }
 
     private void setupPrescribedMedicationsTable() {
@@ -102,12 +110,13 @@ public class PatientDashboardMedicationsController implements Initializable {
                 new SimpleStringProperty(cell.getValue().getFormattedDateTime())
         );
 
+        // Cached header: loadData() reads the patient's medications, which keeps their headers warm
         medicationColumn.setCellValueFactory(cell -> {
             try {
-                return new SimpleStringProperty(
-                        MedicationDAO.getMedicationById(cell.getValue().getMedication_id()).getName_medication()
-                );
+                MedicationHeader medication = MedicationDAO.getMedicationHeader(cell.getValue().getMedication_id());
+                return new SimpleStringProperty(medication != null ? medication.getName() : "Unknown");
             } catch (SQLException e) {
+                e.printStackTrace();
                 return new SimpleStringProperty("Error");
             }
         });
@@ -268,6 +277,7 @@ public class PatientDashboardMedicationsController implements Initializable {
             selectedLog.setTaken(newStatus);
             try {
                 LogMedicationDAO.updateLogMedication(selectedLog);
+                ViewNavigator.getInstance().invalidate(ViewNavigator.MEDICATION_SECTIONS);
                 intakeLogTable.refresh();
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -333,21 +343,25 @@ public class PatientDashboardMedicationsController implements Initializable {
         }
     }
 
-    private void loadData() throws SQLException {
-
-        prescribedMedications = FXCollections.observableArrayList(
-                currentPatient.getMedications()
-        );
-        prescribedMedicationsTable.setItems(prescribedMedications);
-
-        ObservableList<LogMedication> logs = FXCollections.observableArrayList();
-        for (Medication med : currentPatient.getMedications()) {
-            System.out.println("Loading logs for medication: " + med.getName_medication());
-            logs.addAll(LogMedicationDAO.getLogMedicationsByMedicationId(med.getId()));
-        }
-        intakeLogTable.setItems(logs);
-        LogMedications = logs;
-
+    // The log is read after the medications, so that its medication names come from the header cache
+    private void loadData() {
+        int patientId = SessionManager.getCurrentUser().getId();
+        loader.load("medications", () -> {
+            Patient patient = PatientDAO.getPatientById(patientId);
+            patient.getMedications();
+            return patient;
+        }, patient -> {
+            currentPatient = patient;
+            prescribedMedications = FXCollections.observableArrayList(patient.getMedications());
+            prescribedMedicationsTable.setItems(prescribedMedications);
+
+            if (logSource == null) {
+                logSource = new PagedTableSource<>(intakeLogTable, loader, LOG_PAGE_SIZE,
+                        (after, limit) -> LogMedicationDAO.getLogMedicationsPageByPatientId(patientId, after, limit));
+                LogMedications = logSource.getItems();
+            }
+            logSource.reload();
+        });
     }
 
     private void handleLogMedicationIntake() {
@@ -358,6 +372,7 @@ public class PatientDashboardMedicationsController implements Initializable {
 
             try {
                 LogMedicationDAO.insertLogMedicationStatic(log);
+                ViewNavigator.getInstance().invalidate(ViewNavigator.MEDICATION_SECTIONS);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
@@ -22,13 +22,19 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ResourceBundle;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import it.glucotrack.component.AsyncLoader;
+import it.glucotrack.component.PagedTableSource;
 import it.glucotrack.util.SessionManager;
 import it.glucotrack.util.GlucoseMeasurementDAO;
 import it.glucotrack.model.User;
 import it.glucotrack.model.GlucoseMeasurement;
+import it.glucotrack.model.KeysetPage;
+import it.glucotrack.view.Refreshable;
+import it.glucotrack.view.ViewNavigator;
 
-public class PatientDashboardReadingsController implements Initializable {
+public class PatientDashboardReadingsController implements Initializable, Refreshable {
 
     @FXML
     private DatePicker startDatePicker;
@@ -57,11 +63,14 @@ public class PatientDashboardReadingsController implements Initializable {
     @FXML
     private TableColumn<GlucoseReading, String> statusColumn;
 
-    private ObservableList<GlucoseReading> readingsData;
-    private ObservableList<GlucoseReading> filteredData;
+    // Rows are fetched one page at a time, with the date and type filters applied in SQL
+    private static final int PAGE_SIZE = 50;
+    private PagedTableSource<GlucoseReading> readingsSource;
+    private AsyncLoader loader;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader = new AsyncLoader(readingsTable);
         initializeData();
         setupTableColumns();
         setupComboBox();
@@ -70,42 +79,36 @@ public class PatientDashboardReadingsController implements Initializable {
         applyFilters();
     }
 
-    private void initializeData() {
-        readingsData = FXCollections.observableArrayList();
-        filteredData = FXCollections.observableArrayList();
-
-        loadGlucoseReadingsFromDatabase();
+    // Shown again from the view cache: reload the first page with the filters left as they were
+    @Override
+    public void refresh() {
+        applyFilters();
+    }
 
-        readingsTable.setItems(filteredData);
+    private void initializeData() {
+        // The first page is loaded by applyFilters() once the filter controls are set up
+        readingsSource = new PagedTableSource<>(readingsTable, loader, PAGE_SIZE, readingsPageLoader());
     }
     
-    private void loadGlucoseReadingsFromDatabase() {
-        try {
-            User currentUser = SessionManager.getInstance().getCurrentUser();
-            if (currentUser == null) {
-                return;
-            }
-            
-            int patientId = currentUser.getId();
+    // The filters are read here, on the FX thread: the pages are queried on a loader thread
+    private PagedTableSource.PageLoader<GlucoseReading> readingsPageLoader() {
+        User currentUser = SessionManager.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            return (after, limit) -> new KeysetPage<>(new ArrayList<>(), null);
+        }
 
-            GlucoseMeasurementDAO glucoseDAO = new GlucoseMeasurementDAO();
-            List<GlucoseMeasurement> measurements = glucoseDAO.getGlucoseMeasurementsByPatientId(patientId);
-            
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        String selectedType = typeComboBox.getValue();
 
-            for (GlucoseMeasurement measurement : measurements) {
-                GlucoseReading reading = convertToGlucoseReading(measurement);
-                readingsData.add(reading);
-                filteredData.add(reading);
-            }
-            
+        // Whole days: from the start of startDate to the end of endDate
+        int patientId = currentUser.getId();
+        LocalDateTime from = startDate != null ? startDate.atStartOfDay() : null;
+        LocalDateTime to = endDate != null ? endDate.plusDays(1).atStartOfDay() : null;
+        String type = (selectedType == null || selectedType.equals("All Types")) ? null : selectedType;
 
-        } catch (SQLException e) {
-            System.err.println("Error from database: " + e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            System.err.println("Generic Error: " + e.getMessage());
-            e.printStackTrace();
-        }
+        return (after, limit) -> GlucoseMeasurementDAO.getGlucoseMeasurementsPage(patientId, from, to, type, after, limit)
+                .map(this::convertToGlucoseReading);
     }
     
     private GlucoseReading convertToGlucoseReading(GlucoseMeasurement measurement) {
@@ -249,14 +252,9 @@ public class PatientDashboardReadingsController implements Initializable {
                 User currentUser = SessionManager.getInstance().getCurrentUser();
                 if (currentUser != null) {
                     GlucoseMeasurementDAO glucoseDAO = new GlucoseMeasurementDAO();
-                    java.util.List<GlucoseMeasurement> measurements = glucoseDAO.getGlucoseMeasurementsByPatientId(currentUser.getId());
-                    for (GlucoseMeasurement m : measurements) {
-                        if (m.getDateAndTime().equals(reading.getDateTime()) &&
-                            m.getType().equals(reading.getType()) &&
-                            Math.round(m.getGlucoseLevel()) == reading.getValue()) {
-                            note = m.getNotes();
-                            break;
-                        }
+                    GlucoseMeasurement m = glucoseDAO.findGlucoseMeasurement(currentUser.getId(), reading.getDateTime(), reading.getValue());
+                    if (m != null && m.getType().equals(reading.getType())) {
+                        note = m.getNotes();
                     }
                 }
             } catch (Exception e) {
@@ -423,9 +421,9 @@ public class PatientDashboardReadingsController implements Initializable {
                     );
 
                     if (deleted) {
+                        ViewNavigator.getInstance().invalidate(ViewNavigator.GLUCOSE_SECTIONS);
                         // Remove from table data
-                        readingsData.remove(selectedReading);
-                        filteredData.remove(selectedReading);
+                        readingsSource.getItems().remove(selectedReading);
 
                         showSuccessAlert("Success", "Measurement deleted successfully.");
                     } else {
@@ -500,33 +498,9 @@ public class PatientDashboardReadingsController implements Initializable {
 
 
 
+    // Filters are part of the page query: start again from the first page
     private void applyFilters() {
-        filteredData.clear();
-
-        LocalDate startDate = startDatePicker.getValue();
-        LocalDate endDate = endDatePicker.getValue();
-        String selectedType = typeComboBox.getValue();
-
-        for (GlucoseReading reading : readingsData) {
-            LocalDate readingDate = reading.getDateTime().toLocalDate();
-            
-            // Veirfy the date range
-            boolean matchesDate = true;
-            if (startDate != null && endDate != null) {
-                matchesDate = (readingDate.isEqual(startDate) || readingDate.isAfter(startDate)) &&
-                             (readingDate.isEqual(endDate) || readingDate.isBefore(endDate));
-            } else if (startDate != null) {
-                matchesDate = readingDate.isEqual(startDate) || readingDate.isAfter(startDate);
-            } else if (endDate != null) {
-                matchesDate = readingDate.isEqual(endDate) || readingDate.isBefore(endDate);
-            }
-            
-            boolean matchesType = selectedType == null || selectedType.equals("All Types") || reading.getType().equals(selectedType);
-
-            if (matchesDate && matchesType) {
-                filteredData.add(reading);
-            }
-        }
+        readingsSource.setLoader(readingsPageLoader());
     }
 
     private void handleAddNewReading() {
@@ -535,22 +509,17 @@ public class PatientDashboardReadingsController implements Initializable {
 
     // Method to add new reading programmatically
     public void addReading(GlucoseReading reading) {
-        readingsData.add(reading);
         applyFilters();
     }
 
     // Method to refresh data (useful for external updates)
     public void refreshData() {
-
-        readingsData.clear();
-        filteredData.clear();
-        loadGlucoseReadingsFromDatabase();
         applyFilters();
     }
 
     // Getter for readings data (useful for other controllers)
     public ObservableList<GlucoseReading> getReadingsData() {
-        return readingsData;
+        return readingsSource.getItems();
     }
 
     // Inner class for GlucoseReading model
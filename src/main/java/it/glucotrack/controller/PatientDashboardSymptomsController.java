@@ -1,7 +1,5 @@
 package it.glucotrack.controller;
 
-import it.glucotrack.model.Patient;
-import it.glucotrack.util.PatientDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -22,11 +20,15 @@ import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.ResourceBundle;
+import it.glucotrack.component.AsyncLoader;
+import it.glucotrack.component.PagedTableSource;
 import it.glucotrack.model.Symptom;
 import it.glucotrack.util.SymptomDAO;
 import it.glucotrack.util.SessionManager;
+import it.glucotrack.view.Refreshable;
+import it.glucotrack.view.ViewNavigator;
 
-public class PatientDashboardSymptomsController implements Initializable {
+public class PatientDashboardSymptomsController implements Initializable, Refreshable {
 
     @FXML
     private Button addNewSymptomBtn;
@@ -46,32 +48,30 @@ public class PatientDashboardSymptomsController implements Initializable {
     @FXML
     private TableColumn<Symptom, String> durationColumn;
 
-    private ObservableList<Symptom> symptoms;
+    // Symptoms are fetched one page at a time as the table is scrolled
+    private static final int PAGE_SIZE = 50;
+    private PagedTableSource<Symptom> symptomsSource;
 
     private SymptomDAO symptomDAO;
 
-    private Patient currentPatient;
+    private AsyncLoader loader;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
 
-        try {
-            this.currentPatient = PatientDAO.getPatientById(SessionManager.getCurrentUser().getId());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
+        this.loader = new AsyncLoader(symptomsTable);
         this.symptomDAO = new SymptomDAO();
 
         setupSymptomsTable();
 
         setupEventHandlers();
 
-        try {
-            loadData();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        loadData();
+    }
+
+    @Override
+    public void refresh() {
+        loadData();
     }
 
     private void setupSymptomsTable() {
@@ -250,11 +250,7 @@ public class PatientDashboardSymptomsController implements Initializable {
             System.out.println("Setting up edit for symptom: " + selectedSymptom);
             // Set callbacks
             editController.setOnDataUpdated(() -> {
-                try {
-                    refreshData();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                refreshData();
                 returnToSymptoms();
             });
             
@@ -292,8 +288,9 @@ public class PatientDashboardSymptomsController implements Initializable {
                 boolean deleted = symptomDAO.deleteSymptomById(selectedSymptom.getId());
                 
                 if (deleted) {
+                    ViewNavigator.getInstance().invalidate(ViewNavigator.SYMPTOM_SECTIONS);
                     // Remove from table data
-                    symptoms.remove(selectedSymptom);
+                    symptomsSource.getItems().remove(selectedSymptom);
                     
                     showSuccessAlert("Success", "Symptom successfully deleted.");
                 } else {
@@ -337,13 +334,13 @@ public class PatientDashboardSymptomsController implements Initializable {
         return alert.showAndWait().orElse(no) == yes;
     }
 
-    private void loadData() throws SQLException {
-        System.out.println("Loading symptoms: " + SymptomDAO.getSymptomsByPatientId(currentPatient.getId()));
-        symptoms = FXCollections.observableArrayList(
-                SymptomDAO.getSymptomsForTable(currentPatient.getId())
-        );
-        System.out.println("Loaded symptoms: " + symptoms);
-        symptomsTable.setItems(symptoms);
+    private void loadData() {
+        if (symptomsSource == null) {
+            int patientId = SessionManager.getCurrentUser().getId();
+            symptomsSource = new PagedTableSource<>(symptomsTable, loader, PAGE_SIZE,
+                    (after, limit) -> SymptomDAO.getSymptomsPage(patientId, after, limit));
+        }
+        symptomsSource.reload();
     }
 
     private void handleAddNewSymptom() {
@@ -352,12 +349,12 @@ public class PatientDashboardSymptomsController implements Initializable {
 
 
 
-    public void refreshData() throws SQLException {
+    public void refreshData() {
         loadData();
     }
 
     public ObservableList<Symptom> getSymptoms() {
-        return symptoms;
+        return symptomsSource.getItems();
     }
 
     
@@ -372,11 +369,7 @@ public class PatientDashboardSymptomsController implements Initializable {
             PatientDashboardSymptomsInsertController insertController = loader.getController();
 
             insertController.setOnDataSaved(() -> {
-                try {
-                    refreshData();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                refreshData();
                 returnToSymptoms();
             });
             
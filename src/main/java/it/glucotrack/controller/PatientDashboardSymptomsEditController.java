@@ -6,6 +6,7 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import it.glucotrack.model.Symptom;
 import it.glucotrack.util.SymptomDAO;
+import it.glucotrack.view.ViewNavigator;
 
 import java.net.URL;
 import java.sql.SQLException;
@@ -136,6 +137,7 @@ public class PatientDashboardSymptomsEditController implements Initializable {
                 boolean success = symptomDAO.updateSymptom(updatedSymptom);
 
                 if (success) {
+                    ViewNavigator.getInstance().invalidate(ViewNavigator.SYMPTOM_SECTIONS);
                     showSuccessAlert();
                     
                     if (onDataUpdated != null) {
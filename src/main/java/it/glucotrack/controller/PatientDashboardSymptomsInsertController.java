@@ -7,6 +7,7 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 import it.glucotrack.util.SymptomDAO;
 import it.glucotrack.util.SessionManager;
+import it.glucotrack.view.ViewNavigator;
 
 import java.net.URL;
 import java.sql.SQLException;
@@ -119,6 +120,7 @@ public class PatientDashboardSymptomsInsertController implements Initializable {
                 boolean success = saveSymptom();
 
                 if (success) {
+                    ViewNavigator.getInstance().invalidate(ViewNavigator.SYMPTOM_SECTIONS);
                     showSuccessAlert();
                     clearForm();
                     
@@ -1,8 +1,10 @@
 package it.glucotrack.controller;
 
+import it.glucotrack.component.AsyncLoader;
 import it.glucotrack.model.*;
 import it.glucotrack.util.*;
 import it.glucotrack.model.Medication;
+import it.glucotrack.view.ViewNavigator;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -29,6 +31,7 @@ import javafx.scene.text.FontWeight;
 import java.net.URL;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -171,13 +174,14 @@ public class ProfileViewController implements Initializable {
     private SymptomDAO symptomDAO;
     private MedicationDAO medicationDAO;
 
-    private List<GlucoseMeasurement> filterMeasurementsByPeriod(List<GlucoseMeasurement> measurements, int daysBack) {
-        java.time.LocalDateTime cutoffDate = java.time.LocalDateTime.now().minusDays(daysBack);
-        return measurements.stream()
-                .filter(m -> m.getDateAndTime().isAfter(cutoffDate))
-                .collect(Collectors.toList());
-    }
+    private AsyncLoader loader;
 
+    // Figures of the selected period shown by the statistics cards
+    private static final class GlucoseSummary {
+        private GlucoseMeasurement latest;          // most recent reading, null without readings
+        private GlucoseMeasurement firstInPeriod;   // oldest reading of the period, null if none
+        private GlucoseStats period;
+    }
 
 
     @Override
@@ -190,9 +194,12 @@ public class ProfileViewController implements Initializable {
         this.currentUser = SessionManager.getCurrentUser();
         this.currentUserType = currentUser.getType();
 
+        this.loader = new AsyncLoader(patientNameLabel);
+        loader.showPlaceholderWhileLoading(prescribedMedicationsTable);
+        loader.showPlaceholderWhileLoading(therapyModificationsTable);
     }
 
-    public void refreshInitialize() throws SQLException {
+    public void refreshInitialize() {
         initializeComponents();
         setupTabs();
         setupCharts();
@@ -217,10 +224,12 @@ public class ProfileViewController implements Initializable {
                 new SimpleStringProperty(cellData.getValue().getEditTimestamp().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
         modifiedByColumn.setCellValueFactory(cellData -> {
             try {
-                Doctor doc = DoctorDAO.getDoctorById(PatientDAO.getPatientById(cellData.getValue().getDoctorId()).getDoctorId());
-                System.out.println(cellData.getValue().getDoctorId());
-                System.out.println("Loaded doctor for modification: " + doc);
-                String name = (doc != null) ? doc.getFullName() : "Unknown Doctor";
+                // edited_by holds the doctor, but the edit form stores the patient there: then show the patient's doctor
+                UserHeader editor = UserDAO.getUserHeader(cellData.getValue().getDoctorId());
+                if (editor != null && editor.isPatient()) {
+                    editor = UserDAO.getUserHeader(editor.getDoctorId());
+                }
+                String name = (editor != null) ? editor.getFullName() : "Unknown Doctor";
                 return new SimpleStringProperty(name);
             } catch (SQLException e) {
                 e.printStackTrace(); // logga l'errore
@@ -254,17 +263,8 @@ public class ProfileViewController implements Initializable {
         timeRangeCombo.getItems().addAll("Last 7 days", "Last 30 days", "Last year");
 
         timeRangeCombo.setOnAction(e -> {
-            String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
-            javafx.application.Platform.runLater(() -> {
-                try {
-                    updateGlucoseData();
-                    updateChart();
-                    updateStatusLabelOnStartup();
-                } catch (Exception ex) {
-                    System.err.println("Error during change period: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            });
+            updateGlucoseStatistics();
+            updateChart();
         });
 
         // Initialize therapy modifications list
@@ -273,22 +273,11 @@ public class ProfileViewController implements Initializable {
         timeRangeCombo.getSelectionModel().select("Last 7 days");
 
         // Inizialize data
-        updateGlucoseData();
+        updateGlucoseStatistics();
         updateChart();
-        updateStatusLabelOnStartup();
 
     }
 
-    private void updateStatusLabelOnStartup() {
-        if (currentPatient != null) {
-            List<GlucoseMeasurement> allMeasurements = currentPatient.getGlucoseReadings();
-            if (!allMeasurements.isEmpty()) {
-                GlucoseMeasurement latest = allMeasurements.get(0);
-                setStatusWithColor(latest.getGlucoseLevel());
-            }
-        }
-    }
-
     private void initializeAdditionalButtons() {
         if (addRiskBtn != null) {
             addRiskBtn.setOnAction(e -> handleAddRisk());
@@ -306,25 +295,10 @@ public class ProfileViewController implements Initializable {
     public void setUserRole(UserRole role, User viewedUser) throws SQLException {
         this.currentUserRole = role;
         this.viewedUser = viewedUser; // Salva sempre l'utente visualizzato
+        this.currentPatient = null;
 
         if (role == UserRole.ADMIN_OWN_PROFILE && viewedUser != null) {
             this.currentUser = viewedUser;
-            this.currentPatient = null;
-        } else if (role == UserRole.ADMIN_VIEWING_USER && viewedUser != null) {
-            // Per ADMIN_VIEWING_USER, viewedUser è l'utente da visualizzare
-            if (viewedUser.getType().equals("PATIENT")) {
-                this.currentPatient = PatientDAO.getPatientById(viewedUser.getId());
-            } else {
-                this.currentPatient = null;
-            }
-        } else if (viewedUser != null) {
-            if (viewedUser.getType().equals("PATIENT")) {
-                this.currentPatient = PatientDAO.getPatientById(viewedUser.getId());
-            } else {
-                this.currentPatient = null;
-            }
-        } else {
-            this.currentPatient = null;
         }
 
         if (timeRangeCombo != null && timeRangeCombo.getItems().isEmpty()) {
@@ -332,6 +306,19 @@ public class ProfileViewController implements Initializable {
             timeRangeCombo.getSelectionModel().select("Last 7 days");
         }
 
+        // A patient's profile is filled in once the patient is loaded off the FX thread
+        if (role != UserRole.ADMIN_OWN_PROFILE && viewedUser != null && viewedUser.getType().equals("PATIENT")) {
+            int patientId = viewedUser.getId();
+            loader.load("patient", () -> PatientDAO.getPatientById(patientId), patient -> {
+                this.currentPatient = patient;
+                showProfile();
+            }, error -> showError("Database Error", "Failed to load the patient", error.getMessage()));
+        } else {
+            showProfile();
+        }
+    }
+
+    private void showProfile() {
         refreshInitialize();
         updateViewForUserRole();
 
@@ -575,6 +562,7 @@ public class ProfileViewController implements Initializable {
                     boolean success = userDAO.deleteUser(viewedUser.getId());
 
                     if (success) {
+                        ViewNavigator.getInstance().invalidate(ViewNavigator.USER_SECTIONS);
                         Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
                         successAlert.setTitle("User Deleted");
                         successAlert.setHeaderText("Success");
@@ -640,28 +628,10 @@ public class ProfileViewController implements Initializable {
     }
 
     // Tab and UI setup methods
-    private void setupTabs() throws SQLException {
-        if (overviewTab != null) overviewTab.setOnAction(e -> {
-            try {
-                switchToTab("Overview");
-            } catch (SQLException ex) {
-                throw new RuntimeException(ex);
-            }
-        });
-        if (medicationTab != null) medicationTab.setOnAction(e -> {
-            try {
-                switchToTab("Medication");
-            } catch (SQLException ex) {
-                throw new RuntimeException(ex);
-            }
-        });
-        if (notesTab != null) notesTab.setOnAction(e -> {
-            try {
-                switchToTab("Personal Data");
-            } catch (SQLException ex) {
-                throw new RuntimeException(ex);
-            }
-        });
+    private void setupTabs() {
+        if (overviewTab != null) overviewTab.setOnAction(e -> switchToTab("Overview"));
+        if (medicationTab != null) medicationTab.setOnAction(e -> switchToTab("Medication"));
+        if (notesTab != null) notesTab.setOnAction(e -> switchToTab("Personal Data"));
         if (currentUserRole == UserRole.DOCTOR_VIEWING_PATIENT) {
             switchToTab("Overview");
         } else {
@@ -671,7 +641,7 @@ public class ProfileViewController implements Initializable {
 
     }
 
-    private void switchToTab(String tabName) throws SQLException {
+    private void switchToTab(String tabName) {
         // Hide all content and set unmanaged
         if (overviewContent != null) {
             overviewContent.setVisible(false);
@@ -771,7 +741,8 @@ public class ProfileViewController implements Initializable {
         }
     }
 
-    private void updatePatientSpecificData() throws SQLException {
+    // Each part is loaded off the FX thread and shown when its query returns
+    private void updatePatientSpecificData() {
         if (currentPatient != null) {
             updateGlucoseStatistics();
             loadSymptoms();
@@ -781,72 +752,6 @@ public class ProfileViewController implements Initializable {
         }
     }
 
-    private void updateGlucoseData() {
-        if (currentPatient != null) {
-            List<GlucoseMeasurement> allMeasurements = currentPatient.getGlucoseReadings();
-
-            if (!allMeasurements.isEmpty()) {
-                // Filter during period selected
-                String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
-                int daysBack = getDaysFromPeriod(selectedPeriod);
-                List<GlucoseMeasurement> filteredMeasurements = filterMeasurementsByPeriod(allMeasurements, daysBack);
-
-                if (!filteredMeasurements.isEmpty()) {
-                    calculateAndDisplayStatistics(filteredMeasurements);
-                } else {
-                    GlucoseMeasurement latest = allMeasurements.get(0);
-                    currentGlucoseLabel.setText(String.format("%.0f", latest.getGlucoseLevel()));
-                    setStatusWithColor(latest.getGlucoseLevel());
-                    trendLabel.setText("N/A (nessun dato nel periodo)");
-                }
-            } else {
-                currentGlucoseLabel.setText("N/A");
-                trendLabel.setText("N/A");
-                statusLabel.setText("Nessun dato");
-            }
-        }
-
-    }
-
-    private void calculateAndDisplayStatistics(List<GlucoseMeasurement> measurements) {
-        if (measurements.isEmpty()) return;
-
-        // Most recent first
-        measurements.sort((a, b) -> b.getDateAndTime().compareTo(a.getDateAndTime()));
-
-        // Last measure
-        GlucoseMeasurement latest = measurements.get(0);
-        currentGlucoseLabel.setText(String.format("%.0f", latest.getGlucoseLevel()));
-
-        // Status on last measure
-        setStatusWithColor(latest.getGlucoseLevel());
-
-        // Calculate trand
-        if (measurements.size() > 1) {
-            GlucoseMeasurement oldest = measurements.get(measurements.size() - 1);
-            double change = ((double) (latest.getGlucoseLevel() - oldest.getGlucoseLevel()) / oldest.getGlucoseLevel()) * 100;
-
-            String trendText;
-            String trendColor;
-            if (Math.abs(change) < 1.0) {
-                trendText = "Stabile";
-                trendColor = "-fx-text-fill: #8892b0;";
-            } else if (change > 0) {
-                trendText = String.format("↑ %.1f%%", change);
-                trendColor = "-fx-text-fill: #f44336;";
-            } else {
-                trendText = String.format("↓ %.1f%%", Math.abs(change));
-                trendColor = "-fx-text-fill: #4caf50;";
-            }
-            trendLabel.setText(trendText);
-            trendLabel.setStyle(trendColor);
-        } else {
-            trendLabel.setText("N/A");
-            trendLabel.setStyle("-fx-text-fill: #8892b0;");
-        }
-    }
-
-
     private void setStatusWithColor(float glucose) {
         String statusText = "";
         String colorStyle = "";
@@ -878,8 +783,26 @@ public class ProfileViewController implements Initializable {
         statusLabel.setStyle(colorStyle);
     }
 
+    // Selected period from the rollups, plus the latest reading and the period's first one (indexed lookups)
+    private GlucoseSummary loadGlucoseSummary(int patientId, int daysBack) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.minusDays(daysBack);
+        GlucoseSummary summary = new GlucoseSummary();
+        summary.latest = glucoseMeasurementDAO.getLatestMeasurementByPatientId(patientId);
+        summary.firstInPeriod = GlucoseMeasurementDAO.getFirstMeasurementSince(patientId, from);
+        summary.period = GlucoseRollupDAO.getRangeStats(patientId, from, now);
+        return summary;
+    }
+
     private void updateGlucoseStatistics() {
-        if (currentPatient == null || currentPatient.getGlucoseReadings() == null || currentPatient.getGlucoseReadings().isEmpty()) {
+        if (currentPatient == null) return;
+        int patientId = currentPatient.getId();
+        int daysBack = getDaysFromPeriod(timeRangeCombo.getSelectionModel().getSelectedItem());
+        loader.load("glucoseSummary", () -> loadGlucoseSummary(patientId, daysBack), this::showGlucoseSummary);
+    }
+
+    private void showGlucoseSummary(GlucoseSummary summary) {
+        if (summary.latest == null) {
             if (currentGlucoseLabel != null) currentGlucoseLabel.setText("--");
             if (averageGlucoseLabel != null) averageGlucoseLabel.setText("No data");
             if (averageGlucoseChangeLabel != null) averageGlucoseChangeLabel.setText("--");
@@ -888,18 +811,22 @@ public class ProfileViewController implements Initializable {
             return;
         }
 
-        List<GlucoseMeasurement> readings = currentPatient.getGlucoseReadings();
-        double average = readings.stream()
-                .mapToDouble(GlucoseMeasurement::getGlucoseLevel)
-                .average()
-                .orElse(0.0);
+        float latest = summary.latest.getGlucoseLevel();
+        if (summary.period.isEmpty()) {
+            if (currentGlucoseLabel != null) currentGlucoseLabel.setText(String.format("%.0f", latest));
+            if (averageGlucoseLabel != null) averageGlucoseLabel.setText("No data in period");
+            if (averageGlucoseChangeLabel != null) averageGlucoseChangeLabel.setText("--");
+            if (statusLabel != null) setStatusWithColor(latest);
+            if (trendLabel != null) trendLabel.setText("N/A (no data in period)");
+            return;
+        }
+
+        int count = summary.period.getCount();
+        double average = summary.period.getAverage();
 
         // Update current glucose (most recent reading)
-        if (currentGlucoseLabel != null && !readings.isEmpty()) {
-            GlucoseMeasurement mostRecent = readings.stream()
-                    .max((r1, r2) -> r1.getDateAndTime().compareTo(r2.getDateAndTime()))
-                    .orElse(readings.get(0));
-            currentGlucoseLabel.setText(String.format("%.0f", mostRecent.getGlucoseLevel()));
+        if (currentGlucoseLabel != null) {
+            currentGlucoseLabel.setText(String.format("%.0f", latest));
         }
 
         // Update average glucose
@@ -922,13 +849,9 @@ public class ProfileViewController implements Initializable {
         }
 
         // Update trend
-        List<GlucoseMeasurement> sortedReadings = readings.stream()
-                .sorted((r1, r2) -> r2.getDateAndTime().compareTo(r1.getDateAndTime()))
-                .collect(Collectors.toList());
-
-        if (sortedReadings.size() >= 2) {
-            double recent = sortedReadings.get(0).getGlucoseLevel();
-            double previous = sortedReadings.get(sortedReadings.size() - 1).getGlucoseLevel();
+        if (count >= 2 && summary.firstInPeriod != null) {
+            double recent = latest;
+            double previous = summary.firstInPeriod.getGlucoseLevel();
             double change = recent - previous;
             double percentChange = (change / previous) * 100;
 
@@ -973,11 +896,23 @@ public class ProfileViewController implements Initializable {
     }
 
     private void loadSymptoms() {
+        if (currentPatient == null) {
+            showSymptoms(null);
+            return;
+        }
+        Patient patient = currentPatient;
+        loader.load("symptoms", () -> SymptomDAO.getSymptomsByPatientId(patient.getId()), symptoms -> {
+            patient.setSymptoms(symptoms);
+            showSymptoms(symptoms);
+        });
+    }
+
+    private void showSymptoms(List<Symptom> symptoms) {
 
         if (symptomsContainer != null) {
             symptomsContainer.getChildren().clear();
 
-            if (currentPatient == null || currentPatient.getSymptoms() == null || currentPatient.getSymptoms().isEmpty()) {
+            if (symptoms == null || symptoms.isEmpty()) {
                 Label noSymptomsLabel = new Label("No symptoms reported");
                 noSymptomsLabel.setTextFill(Color.web("#BDC3C7"));
                 noSymptomsLabel.setFont(Font.font("System", FontWeight.NORMAL, 14));
@@ -986,8 +921,8 @@ public class ProfileViewController implements Initializable {
                 return;
             }
 
-            System.out.println("Symptoms: " + currentPatient.getSymptoms());
-            for (Symptom symptom : currentPatient.getSymptoms()) {
+            System.out.println("Symptoms: " + symptoms);
+            for (Symptom symptom : symptoms) {
                 System.out.println("Loading symptom: " + symptom.getSymptomName() + " with severity " + symptom.getGravity());
                 HBox symptomBox = createSymptomBox(symptom);
                 symptomsContainer.getChildren().add(symptomBox);
@@ -1110,56 +1045,42 @@ public class ProfileViewController implements Initializable {
 
         if (currentPatient == null) return;
 
+        // Get data: only the readings of the selected period are read
+        int patientId = currentPatient.getId();
+        String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
+        int daysBack = getDaysFromPeriod(selectedPeriod);
+        LocalDateTime now = LocalDateTime.now();
+        loader.load("chart", () -> GlucoseMeasurementDAO.getGlucoseSeriesByDateRange(patientId, now.minusDays(daysBack), now),
+                measurements -> showChart(measurements, selectedPeriod));
+    }
+
+    private void showChart(GlucoseSeries measurements, String selectedPeriod) {
+
         // Clean up the chart
         glucoseChart.getData().clear();
         glucoseChart.getXAxis().setAnimated(false);
         glucoseChart.getYAxis().setAnimated(false);
         glucoseChart.setAnimated(false);
 
-        // Get data
-        List<GlucoseMeasurement> measurements = currentPatient.getGlucoseReadings();
         if (measurements.isEmpty()) {
             System.err.println("No measuration found");
             return;
         }
 
-        // Filter data
-        String selectedPeriod = timeRangeCombo.getSelectionModel().getSelectedItem();
-        int daysBack = getDaysFromPeriod(selectedPeriod);
-
-        // Filter and order data
-        java.time.LocalDateTime cutoffDate = java.time.LocalDateTime.now().minusDays(daysBack);
-        List<GlucoseMeasurement> filteredMeasurements = measurements.stream()
-                .filter(m -> m.getDateAndTime().isAfter(cutoffDate))
-                .sorted((a, b) -> a.getDateAndTime().compareTo(b.getDateAndTime()))
-                .collect(Collectors.toList());
-
-        // Create data series
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("Blood Sugar(mg/dL)");
+        int from = 0;
+        int to = measurements.size();
 
         // Set max points for chart style
         int maxPoints = getMaxPointsForPeriod(selectedPeriod);
 
-        if (filteredMeasurements.size() > maxPoints) {
+        // Downsample keeping the curve shape and every bucket's lowest/highest reading
+        double[] times = measurements.timesAsDoubles(from, to);
+        double[] values = measurements.valuesAsDoubles(from, to);
+        int[] points = ChartDownsampler.downsample(times, values, maxPoints);
 
-            double step = (double) filteredMeasurements.size() / maxPoints;
-            for (int i = 0; i < maxPoints; i++) {
-                int index = (int) Math.round(i * step);
-                if (index >= filteredMeasurements.size()) {
-                    index = filteredMeasurements.size() - 1;
-                }
-                GlucoseMeasurement measurement = filteredMeasurements.get(index);
-                String dateStr = formatDateForChart(measurement.getDateAndTime(), selectedPeriod);
-                series.getData().add(new XYChart.Data<>(dateStr, measurement.getGlucoseLevel()));
-            }
-        } else {
-            for (int i = 0; i < filteredMeasurements.size(); i++) {
-                GlucoseMeasurement measurement = filteredMeasurements.get(i);
-                String dateStr = formatDateForChart(measurement.getDateAndTime(), selectedPeriod);
-                series.getData().add(new XYChart.Data<>(dateStr, measurement.getGlucoseLevel()));
-            }
-        }
+        // Create data series
+        XYChart.Series<String, Number> series = ChartDownsampler.toSeries("Blood Sugar(mg/dL)", values, points,
+                i -> formatDateForChart(measurements.getDateTime(from + i), selectedPeriod));
 
         glucoseChart.getData().add(series);
 
@@ -1219,83 +1140,73 @@ public class ProfileViewController implements Initializable {
     }
 
 
-    private void updateMedicationProgress() throws SQLException {
-        if (currentPatient != null && LogMedicationDAO.getLogMedicationByPatientId(currentPatient.getId()) != null) {
-            List<LogMedication> logs= LogMedicationDAO.getLogMedicationsByPatientIdUntillNow(currentPatient.getId());
-            System.out.println("Logs size: " + logs.size());
-            int taken = 0;
-            for(LogMedication log : logs){
-                if(log.isTaken()){
-                    taken++;
-                }
-            }
-            System.out.println("Taken: " + taken);
-
-            double compliance = (double) taken/logs.size();
-            System.out.println("Compliance: " + compliance);
+    // Share of the doses due so far that were taken, counted in SQL
+    private void updateMedicationProgress() {
+        if (currentPatient == null) {
+            showMedicationProgress(0);
+            return;
+        }
+        int patientId = currentPatient.getId();
+        loader.load("adherence", () -> LogMedicationDAO.getAdherenceUntil(patientId, LocalDateTime.now()),
+                this::showMedicationProgress);
+    }
 
-            if (adheranceProgressBar != null) {
-                adheranceProgressBar.setProgress(compliance);
-            }
-            if (adherancePercentageLabel != null) {
-                adherancePercentageLabel.setText(String.format("%.0f%%", compliance * 100));
-            }
-        } else {
-            if (adheranceProgressBar != null) {
-                adheranceProgressBar.setProgress(0);
-            }
-            if (adherancePercentageLabel != null) {
-                adherancePercentageLabel.setText("0%");
-            }
+    private void showMedicationProgress(double compliance) {
+        if (adheranceProgressBar != null) {
+            adheranceProgressBar.setProgress(compliance);
+        }
+        if (adherancePercentageLabel != null) {
+            adherancePercentageLabel.setText(String.format("%.0f%%", compliance * 100));
         }
     }
 
     private void loadTherapyTable() {
+        int patientId = currentPatient.getId();
+        loader.load("therapy", () -> MedicationDAO.getMedicationsByPatientId(patientId), meds -> {
+            prescribedMedicationsTable.setItems(FXCollections.observableArrayList(meds));
 
-        ObservableList<Medication> data = FXCollections.observableArrayList();
-        try {
-            List<Medication> meds = MedicationDAO.getMedicationsByPatientId(currentPatient.getId());
-            data.addAll(meds);
-            prescribedMedicationsTable.setItems(data);
-
-            if (data.isEmpty()) {
-                System.out.println("No prescribed medications found for patient ID: " + currentPatient.getId());
+            if (meds.isEmpty()) {
+                System.out.println("No prescribed medications found for patient ID: " + patientId);
             }
-        } catch (SQLException e) {
-            showError("Database Error", "Failed to load prescribed medications", e.getMessage());
-        }
+        }, error -> showError("Database Error", "Failed to load prescribed medications", error.getMessage()));
     }
 
-    private void loadTherapyModificationsTable() throws SQLException {
-
-        ObservableList<MedicationEdit> data = FXCollections.observableArrayList();
+    private void loadTherapyModificationsTable() {
+        int patientId = currentPatient.getId();
+        loader.load("therapyEdits", () -> {
+            List<MedicationEdit> data = new ArrayList<>();
+            for (Medication med : MedicationDAO.getMedicationsByPatientId(patientId)) {
+                data.addAll(MedicationDAO.getMedicationEditsByMedicationId(med.getId()));
+            }
+            return data;
+        }, data -> {
+            therapyModificationsTable.setItems(FXCollections.observableArrayList(data));
 
-        List<Medication> meds = MedicationDAO.getMedicationsByPatientId(currentPatient.getId());
+            if (data.isEmpty()) {
+                System.out.println("Therapy modifications are empty");
+            }
+        });
+    }
 
-        for (Medication med : meds) {
-            System.out.println("Loading edits for medication: " + med);
-            List<MedicationEdit> edits = MedicationDAO.getMedicationEditsByMedicationId(med.getId());
-            System.out.println("Edits found: " + edits);
-            data.addAll(edits);
-        }
 
-        therapyModificationsTable.setItems(data);
 
-        if (data.isEmpty()) {
-            System.out.println("Therapy modifications are empty");
+    private void loadRiskFactors() {
+        if (currentPatient == null) {
+            showRiskFactors(null);
+            return;
         }
+        Patient patient = currentPatient;
+        loader.load("riskFactors", () -> RiskFactorDAO.getRiskFactorsByPatientId(patient.getId()), riskFactors -> {
+            patient.setRiskFactors(riskFactors);
+            showRiskFactors(riskFactors);
+        });
     }
 
-
-
-    private void loadRiskFactors() {
-        System.out.println("This is for test before the if in loadRiskFactors");
+    private void showRiskFactors(List<RiskFactor> riskFactors) {
         if (riskFactorsContainer != null) {
             riskFactorsContainer.getChildren().clear();
-            System.out.println("This is for test inside loadRiskFactors");
 
-            if (currentPatient != null) {
-                List<RiskFactor> riskFactors = currentPatient.getRiskFactors();
+            if (riskFactors != null) {
                 if (riskFactors.isEmpty()) {
                     Label noRiskLabel = new Label("No risk factors assessed");
                     noRiskLabel.setTextFill(Color.web("#BDC3C7"));
@@ -1535,10 +1446,7 @@ public class ProfileViewController implements Initializable {
                 );
 
                 if (success) {
-                    // Refresh the patient's risk factors list
-                    List<RiskFactor> updatedRiskFactors = RiskFactorDAO.getRiskFactorsByPatientId(currentPatient.getId());
-                    currentPatient.setRiskFactors(updatedRiskFactors);
-
+                    // Reload the patient's risk factors list
                     loadRiskFactors();
                     showSuccessAlert("Risk factor updated successfully.");
                 } else {
@@ -1589,7 +1497,16 @@ public class ProfileViewController implements Initializable {
 
 
     private void loadTrendsContent() {
-        if (trendsContent != null && !trendsContent.getChildren().isEmpty()) return;
+        if (trendsContent == null || !trendsContent.getChildren().isEmpty()) return;
+        if (currentPatient == null) {
+            showTrendsContent(null);
+            return;
+        }
+        int patientId = currentPatient.getId();
+        loader.load("trends", () -> GlucoseRollupDAO.getAllTimeStats(patientId), this::showTrendsContent);
+    }
+
+    private void showTrendsContent(GlucoseStats stats) {
 
         VBox trendsBox = new VBox(15);
         trendsBox.setPadding(new Insets(20));
@@ -1598,8 +1515,8 @@ public class ProfileViewController implements Initializable {
         trendsTitle.setTextFill(Color.WHITE);
         trendsTitle.setFont(Font.font("System", FontWeight.BOLD, 18));
 
-        if (currentPatient != null && currentPatient.getGlucoseReadings() != null && !currentPatient.getGlucoseReadings().isEmpty()) {
-            Label trendAnalysis = createTrendAnalysis();
+        if (stats != null && !stats.isEmpty()) {
+            Label trendAnalysis = createTrendAnalysis(stats);
             trendsBox.getChildren().addAll(trendsTitle, trendAnalysis);
         } else {
             Label noDataLabel = new Label("No glucose data available for trend analysis");
@@ -1614,26 +1531,21 @@ public class ProfileViewController implements Initializable {
         }
     }
 
-    private Label createTrendAnalysis() {
+    // Whole history, from the rollups
+    private Label createTrendAnalysis(GlucoseStats stats) {
         StringBuilder analysis = new StringBuilder();
 
-        List<GlucoseMeasurement> readings = currentPatient.getGlucoseReadings();
-        double average = readings.stream().mapToDouble(GlucoseMeasurement::getGlucoseLevel).average().orElse(0);
-        long highReadings = readings.stream().filter(r -> r.getGlucoseLevel() > 180).count();
-        long normalReadings = readings.stream().filter(r -> r.getGlucoseLevel() >= 80 && r.getGlucoseLevel() <= 140).count();
+        double average = stats.getAverage();
+        int total = stats.getCount();
 
         analysis.append(String.format("Average glucose level: %.1f mg/dL\n", average));
-        analysis.append(String.format("Total readings: %d\n", readings.size()));
-
-        if (readings.size() > 0) {
-            analysis.append(String.format("High readings (>180): %d (%.1f%%)\n",
-                    highReadings, (double) highReadings / readings.size() * 100));
-            analysis.append(String.format("Normal readings (80-140): %d (%.1f%%)\n",
-                    normalReadings, (double) normalReadings / readings.size() * 100));
-        } else {
-            analysis.append("High readings (>180): 0 (0.0%)\n");
-            analysis.append("Normal readings (80-140): 0 (0.0%)\n");
-        }
+        analysis.append(String.format("Total readings: %d\n", total));
+        analysis.append(String.format("High readings (>%d): %d (%.1f%%)\n",
+                GlucoseRollupDAO.RANGE_HIGH, stats.getAboveRange(), (double) stats.getAboveRange() / total * 100));
+        analysis.append(String.format("In range readings (%d-%d): %d (%.1f%%)\n",
+                GlucoseRollupDAO.RANGE_LOW, GlucoseRollupDAO.RANGE_HIGH, stats.getInRange(), stats.getTimeInRangePercent()));
+        analysis.append(String.format("Low readings (<%d): %d (%.1f%%)\n",
+                GlucoseRollupDAO.RANGE_LOW, stats.getBelowRange(), (double) stats.getBelowRange() / total * 100));
 
         if (average > 180) {
             analysis.append("\nRecommendation: Glucose levels are consistently high. Consider medication adjustment.");
@@ -1657,6 +1569,18 @@ public class ProfileViewController implements Initializable {
         if (medicationContent != null && !medicationContent.getChildren().isEmpty()) {
             return;
         }
+        if (currentPatient == null) {
+            showMedicationContent(null);
+            return;
+        }
+        Patient patient = currentPatient;
+        loader.load("medications", () -> MedicationDAO.getMedicationsByPatientId(patient.getId()), medications -> {
+            patient.setMedications(medications);
+            showMedicationContent(medications);
+        });
+    }
+
+    private void showMedicationContent(List<Medication> medications) {
 
         VBox medicationBox = new VBox(15);
         medicationBox.setPadding(new Insets(20));
@@ -1666,8 +1590,8 @@ public class ProfileViewController implements Initializable {
         medicationTitle.setTextFill(Color.WHITE);
         medicationTitle.setFont(Font.font("System", FontWeight.BOLD, 18));
 
-        if (currentPatient != null && currentPatient.getMedications() != null && !currentPatient.getMedications().isEmpty()) {
-            ObservableList<Medication> meds = FXCollections.observableArrayList(currentPatient.getMedications());
+        if (medications != null && !medications.isEmpty()) {
+            ObservableList<Medication> meds = FXCollections.observableArrayList(medications);
             prescribedMedicationsTable.setItems(meds);
             medicationBox.getChildren().addAll(medicationTitle, prescribedMedicationsTable);
         } else {
@@ -1988,6 +1912,7 @@ public class ProfileViewController implements Initializable {
                 System.err.println("Unknown user type: " + userType);
                 return false;
             }
+            ViewNavigator.getInstance().invalidate(ViewNavigator.USER_SECTIONS);
 
             // Aggiorna anche viewedUser se stai modificando un altro utente
             if (currentUserRole == UserRole.ADMIN_VIEWING_USER && viewedUser != null) {
@@ -2256,11 +2181,7 @@ public class ProfileViewController implements Initializable {
                 );
 
                 if (success) {
-                    // Refresh the patient's risk factors list
-                    List<RiskFactor> updatedRiskFactors = RiskFactorDAO.getRiskFactorsByPatientId(currentPatient.getId());
-                    currentPatient.setRiskFactors(updatedRiskFactors);
-
-                    // Refresh the UI
+                    // Reload the patient's risk factors list
                     loadRiskFactors();
 
                     // Show success message
@@ -8,6 +8,8 @@ public class Alert {
     private AlertType type;
     private Patient patient;
     private LocalDateTime dateAndTime;
+    private String key;            // Same key = same alert across evaluations (dedup in the alerts table)
+    private boolean acknowledged;
 
     public Alert(String message, AlertType type, Patient patient, LocalDateTime dateAndTime) {
         this.message = message;
@@ -45,6 +47,16 @@ public class Alert {
     public LocalDateTime getDateAndTime() {return dateAndTime;}
     public void setDateAndTime(LocalDateTime dateAndTime){this.dateAndTime = dateAndTime;}
 
+    // Rules set a stable key; otherwise patient, type and message identify the alert
+    public String getKey() {
+        if (key != null) return key;
+        return (patient != null ? patient.getId() : 0) + ":" + type + ":" + message;
+    }
+    public void setKey(String key) {this.key = key;}
+
+    public boolean isAcknowledged() {return acknowledged;}
+    public void setAcknowledged(boolean acknowledged) {this.acknowledged = acknowledged;}
+
 
     @Override
     public String toString() {
@@ -0,0 +1,41 @@
+package it.glucotrack.model;
+
+import java.time.LocalDateTime;
+
+// Doses of one medication not taken in a time window, grouped: how many and when the first and last were due
+public class DoseSummary {
+
+    private int medicationId;
+    private String medicationName;
+    private int count;
+    private LocalDateTime firstDateTime;
+    private LocalDateTime lastDateTime;
+
+    public DoseSummary(int medicationId, String medicationName, int count,
+                       LocalDateTime firstDateTime, LocalDateTime lastDateTime) {
+        this.medicationId = medicationId;
+        this.medicationName = medicationName;
+        this.count = count;
+        this.firstDateTime = firstDateTime;
+        this.lastDateTime = lastDateTime;
+    }
+
+
+    public int getMedicationId() {return medicationId;}
+    public String getMedicationName() {return medicationName;}
+    public int getCount() {return count;}
+    public LocalDateTime getFirstDateTime() {return firstDateTime;}
+    public LocalDateTime getLastDateTime() {return lastDateTime;}
+
+
+    @Override
+    public String toString() {
+        return "DoseSummary{" +
+                "medicationId=" + medicationId +
+                ", medicationName='" + medicationName + '\'' +
+                ", count=" + count +
+                ", first=" + firstDateTime +
+                ", last=" + lastDateTime +
+                '}';
+    }
+}
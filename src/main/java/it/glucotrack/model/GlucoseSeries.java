@@ -0,0 +1,217 @@
+package it.glucotrack.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+* GLUCOSE SERIES
+* Glucose readings of one patient as parallel primitive arrays, ascending by time:
+* epoch seconds, mg/dL and the index of the measurement type in a small type table.
+* Notes are rarely needed, so they are loaded only the first time one is asked for.
+* Read it with a Cursor or by index: charts, stats and alerts run without one object per reading.
+*/
+
+public class GlucoseSeries {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private short[] values = new short[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    // Type table shared by every reading of the series (the types are a handful of meal labels)
+    private final List<String> typeNames = new ArrayList<>();
+
+    private Supplier<Map<Integer, String>> notesLoader;
+    private Map<Integer, String> notes;
+
+
+    //=================
+    //==== FILLING ====
+    //=================
+
+    // Readings must be appended in ascending time order
+    public void append(int id, long epochSecond, int value, String type) {
+        if (size == times.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        ids[size] = id;
+        times[size] = epochSecond;
+        values[size] = (short) value;
+        types[size] = typeIndex(type);
+        size++;
+    }
+
+    // Map from reading id to notes, called once on the first getNotes
+    public void setNotesLoader(Supplier<Map<Integer, String>> notesLoader) {
+        this.notesLoader = notesLoader;
+        this.notes = null;
+    }
+
+
+    //====================
+    //==== INDEX READ ====
+    //====================
+
+    public int size() {return size;}
+    public boolean isEmpty() {return size == 0;}
+
+    public int getId(int index) {return ids[index];}
+    public long getEpochSecond(int index) {return times[index];}
+    public int getValue(int index) {return values[index];}
+    public String getType(int index) {return typeNames.get(types[index]);}
+    public LocalDateTime getDateTime(int index) {return toDateTime(times[index]);}
+
+    public String getNotes(int index) {
+        if (notes == null) {
+            notes = notesLoader != null ? notesLoader.get() : Map.of();
+        }
+        return notes.getOrDefault(ids[index], "");
+    }
+
+    // Index of the first reading at or after the time (size() if none)
+    public int indexAtOrAfter(LocalDateTime dateTime) {
+        long key = toEpochSecond(dateTime);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Single object for the latest reading, as the alert rules expect (notes are not loaded for it)
+    public GlucoseMeasurement getLast(int patientId) {
+        if (size == 0) return null;
+        int last = size - 1;
+        return new GlucoseMeasurement(ids[last], patientId, getDateTime(last), values[last], getType(last), "");
+    }
+
+    public GlucoseMeasurement toMeasurement(int index, int patientId) {
+        return new GlucoseMeasurement(ids[index], patientId, getDateTime(index), values[index], getType(index), getNotes(index));
+    }
+
+
+    //=================
+    //==== CURSORS ====
+    //=================
+
+    public Cursor cursor() {
+        return new Cursor(0, size);
+    }
+
+    // Readings in [from, to)
+    public Cursor cursor(LocalDateTime from, LocalDateTime to) {
+        return new Cursor(indexAtOrAfter(from), indexAtOrAfter(to));
+    }
+
+    // Moves over a slice of the series; the accessors read the current reading
+    public class Cursor {
+        private final int end;
+        private int index;
+
+        private Cursor(int start, int end) {
+            this.index = start - 1;
+            this.end = end;
+        }
+
+        public boolean next() {
+            if (index + 1 >= end) return false;
+            index++;
+            return true;
+        }
+
+        public int index() {return index;}
+        public int id() {return ids[index];}
+        public long epochSecond() {return times[index];}
+        public int value() {return values[index];}
+        public String type() {return typeNames.get(types[index]);}
+        public LocalDateTime dateTime() {return getDateTime(index);}
+        public String notes() {return getNotes(index);}
+    }
+
+
+    //==============================
+    //==== BULK VIEWS AND STATS ====
+    //==============================
+
+    // Chart input for [fromIndex, toIndex)
+    public double[] timesAsDoubles(int fromIndex, int toIndex) {
+        double[] result = new double[toIndex - fromIndex];
+        for (int i = fromIndex; i < toIndex; i++) {
+            result[i - fromIndex] = times[i];
+        }
+        return result;
+    }
+
+    public double[] valuesAsDoubles(int fromIndex, int toIndex) {
+        double[] result = new double[toIndex - fromIndex];
+        for (int i = fromIndex; i < toIndex; i++) {
+            result[i - fromIndex] = values[i];
+        }
+        return result;
+    }
+
+    // Same target range as GlucoseRollupDAO
+    public GlucoseStats stats(int fromIndex, int toIndex, int rangeLow, int rangeHigh) {
+        int count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int below = 0;
+        int inRange = 0;
+        int above = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            int value = values[i];
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if (value < rangeLow) below++;
+            else if (value > rangeHigh) above++;
+            else inRange++;
+        }
+        if (count == 0) return new GlucoseStats(0, 0, 0, 0, 0, 0, 0);
+        return new GlucoseStats(count, sum, min, max, below, inRange, above);
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    public static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+
+    private byte typeIndex(String type) {
+        String name = type != null ? type : "Before Breakfast";
+        int index = typeNames.indexOf(name);
+        if (index < 0) {
+            if (typeNames.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many measurement types in one series");
+            }
+            typeNames.add(name);
+            index = typeNames.size() - 1;
+        }
+        return (byte) index;
+    }
+}
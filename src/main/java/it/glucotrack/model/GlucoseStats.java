@@ -0,0 +1,50 @@
+package it.glucotrack.model;
+
+// Glucose statistics of one patient over a time range: count, sum, extremes and readings per target range
+public class GlucoseStats {
+
+    private int count;
+    private long sum;
+    private int min;
+    private int max;
+    private int belowRange;
+    private int inRange;
+    private int aboveRange;
+
+    public GlucoseStats(int count, long sum, int min, int max, int belowRange, int inRange, int aboveRange) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.belowRange = belowRange;
+        this.inRange = inRange;
+        this.aboveRange = aboveRange;
+    }
+
+
+    public int getCount() {return count;}
+    public long getSum() {return sum;}
+    public int getMin() {return min;}
+    public int getMax() {return max;}
+    public int getBelowRange() {return belowRange;}
+    public int getInRange() {return inRange;}
+    public int getAboveRange() {return aboveRange;}
+
+    public boolean isEmpty() {return count == 0;}
+    public double getAverage() {return count == 0 ? 0.0 : (double) sum / count;}
+    public double getTimeInRangePercent() {return count == 0 ? 0.0 : inRange * 100.0 / count;}
+
+
+    @Override
+    public String toString() {
+        return "GlucoseStats{" +
+                "count=" + count +
+                ", average=" + String.format("%.1f", getAverage()) +
+                ", min=" + min +
+                ", max=" + max +
+                ", below=" + belowRange +
+                ", inRange=" + inRange +
+                ", above=" + aboveRange +
+                '}';
+    }
+}
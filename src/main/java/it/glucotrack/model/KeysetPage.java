@@ -0,0 +1,45 @@
+package it.glucotrack.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated query plus the key of its last row, from which the next page starts
+public class KeysetPage<T> {
+
+    // Sort column value (as stored) and id of the last row of a page
+    public static class Key {
+        private final Object sortValue;
+        private final int id;
+
+        public Key(Object sortValue, int id) {
+            this.sortValue = sortValue;
+            this.id = id;
+        }
+
+        public Object getSortValue() {return sortValue;}
+        public int getId() {return id;}
+    }
+
+    private final List<T> items;
+    private final Key nextKey;
+
+    public KeysetPage(List<T> items, Key nextKey) {
+        this.items = items;
+        this.nextKey = nextKey;
+    }
+
+
+    public List<T> getItems() {return items;}
+    // Null on the last page
+    public Key getNextKey() {return nextKey;}
+    public boolean hasMore() {return nextKey != null;}
+
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new KeysetPage<>(mapped, nextKey);
+    }
+}
@@ -21,7 +21,7 @@ public class Medication {
     private LocalDate start_date;
     private LocalDate end_date;
     private String instructions; // text
-    private List<LogMedication> log_medications;
+    private List<LogMedication> log_medications; // null until first access for persisted medications
 
     // ===== Default constructor =====
     public Medication() {
@@ -59,7 +59,7 @@ public class Medication {
         this.start_date = start_date;
         this.end_date = end_date;
         this.instructions = instructions;
-        this.log_medications = loadLogMedications();
+        this.log_medications = null; // loaded on first getLogMedications()
     }
 
     private List<LogMedication> loadLogMedications() {
@@ -100,7 +100,10 @@ public class Medication {
     public String getInstructions() { return instructions; }
     public void setInstructions(String instructions) { this.instructions = instructions; }
 
-    public List<LogMedication> getLogMedications() { return this.log_medications; }
+    public List<LogMedication> getLogMedications() {
+        if (this.log_medications == null) this.log_medications = loadLogMedications();
+        return this.log_medications;
+    }
     public void setLogMedications(List<LogMedication> log_medications) { this.log_medications = log_medications; }
 
 
@@ -0,0 +1,30 @@
+package it.glucotrack.model;
+
+// Identity of a medication: what intake logs and edit histories show for it
+public class MedicationHeader {
+
+    private final int id;
+    private final int patientId;
+    private final String name;
+
+    public MedicationHeader(int id, int patientId, String name) {
+        this.id = id;
+        this.patientId = patientId;
+        this.name = name;
+    }
+
+
+    public int getId() {return id;}
+    public int getPatientId() {return patientId;}
+    public String getName() {return name;}
+
+
+    @Override
+    public String toString() {
+        return "MedicationHeader{" +
+                "id=" + id +
+                ", patientId=" + patientId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -8,10 +8,18 @@ import java.util.List;
 public class Patient extends User {
 
     private int doctorId;
-    private List<GlucoseMeasurement> glucoseReadings;
-    private List<Symptom> symptoms;
-    private List<RiskFactor> riskFactors;
-    private List<Medication> medications;
+    // Aggregates of a persisted patient start as null and are loaded on first access.
+    // A patient is shared by the FX thread, the loader threads and the alert workers: the fields are
+    // volatile and each load runs once, under the patient's lock
+    private volatile List<GlucoseMeasurement> glucoseReadings;
+    // Compact view of the readings for charts, stats and alerts
+    private volatile GlucoseSeries glucoseSeries;
+    // Most recent reading alone, for the alert rules: loaded once, without the history
+    private GlucoseMeasurement lastGlucoseMeasurement;
+    private volatile boolean lastGlucoseMeasurementLoaded = false;
+    private volatile List<Symptom> symptoms;
+    private volatile List<RiskFactor> riskFactors;
+    private volatile List<Medication> medications;
 
     // ===== Default constructor =====
     public Patient() {
@@ -28,10 +36,7 @@ public class Patient extends User {
                    Gender gender, String phone, String birthPlace, String fiscalCode, int doctorId) {
         super(id, name, surname, email, password, bornDate, gender, phone, birthPlace, fiscalCode, "PATIENT");
         this.doctorId = doctorId;
-        this.glucoseReadings = glucoseReadingsSetup();
-        this.symptoms = symptomsSetup();
-        this.riskFactors = riskFactorsSetup();
-        this.medications = medicationsSetup();
+        // Readings, symptoms, risk factors and medications are loaded lazily by their getters
     }
 
 
@@ -54,10 +59,11 @@ public class Patient extends User {
                    List<GlucoseMeasurement> glucoseReadings, List<Symptom> symptoms, List<RiskFactor> riskFactors, List<Medication> medications) {
         super(id, name, surname, email, password, bornDate, gender, phone, birthPlace, fiscalCode, "PATIENT");
         this.doctorId = doctorId;
-        this.glucoseReadings = (glucoseReadings != null) ? glucoseReadings : glucoseReadingsSetup();
-        this.symptoms = (symptoms != null) ? symptoms : symptomsSetup();
-        this.riskFactors = (riskFactors != null) ? riskFactors : riskFactorsSetup();
-        this.medications = (medications != null) ? medications : getMedications();
+        // A null list is loaded from the database on first access
+        this.glucoseReadings = glucoseReadings;
+        this.symptoms = symptoms;
+        this.riskFactors = riskFactors;
+        this.medications = medications;
     }
 
     public Patient(Patient patientById) {
@@ -65,17 +71,23 @@ public class Patient extends User {
                 patientById.getPassword(), patientById.getBornDate(), patientById.getGender(), patientById.getPhone(),
                 patientById.getBirthPlace(), patientById.getFiscalCode(), "PATIENT");
         this.doctorId = patientById.getDoctorId();
-        this.glucoseReadings = patientById.getGlucoseReadings();
-        this.symptoms = patientById.getSymptoms();
-        this.riskFactors = patientById.getRiskFactors();
-        this.medications = patientById.getMedications();
+        // Share what the source already loaded; the rest stays lazy
+        synchronized (patientById) {
+            this.glucoseReadings = patientById.glucoseReadings;
+            this.glucoseSeries = patientById.glucoseSeries;
+            this.lastGlucoseMeasurement = patientById.lastGlucoseMeasurement;
+            this.lastGlucoseMeasurementLoaded = patientById.lastGlucoseMeasurementLoaded;
+            this.symptoms = patientById.symptoms;
+            this.riskFactors = patientById.riskFactors;
+            this.medications = patientById.medications;
+        }
     }
 
 
     public LogMedication getLastMedicationLog() {
-        if (medications.isEmpty()) return null;
+        if (getMedications().isEmpty()) return null;
         LogMedication latestLog = null;
-        for (Medication med : medications) {
+        for (Medication med : getMedications()) {
             for (LogMedication log : med.getLogMedications()) {
                 if (latestLog == null || log.getDateAndTime().isAfter(latestLog.getDateAndTime())) {
                     latestLog = log;
@@ -86,9 +98,9 @@ public class Patient extends User {
     }
 
     public List<LogMedication> getAllMedicationLogsNotTaken(){
-        if(medications.isEmpty()) return new ArrayList<>();
+        if(getMedications().isEmpty()) return new ArrayList<>();
         List<LogMedication> notTakenLogs = new ArrayList<>();
-        for(Medication med : medications) {
+        for(Medication med : getMedications()) {
             for (LogMedication log : med.getLogMedications()) {
                 if (!log.isTaken()) {
                     notTakenLogs.add(log);
@@ -102,34 +114,89 @@ public class Patient extends User {
     public int getDoctorId() { return doctorId; }
     public void setDoctorId(int doctorId) { this.doctorId = doctorId; }
 
-    public List<GlucoseMeasurement> getGlucoseReadings() { return glucoseReadings; }
-    public void setGlucoseReadings(List<GlucoseMeasurement> glucoseReadings) { this.glucoseReadings = glucoseReadings; }
-
-    public List<Symptom> getSymptoms() { return symptoms; }
-    public void setSymptoms(List<Symptom> symptoms) { this.symptoms = symptoms; }
+    // Lazy getters: an unlocked read once loaded, otherwise the load runs under the lock,
+    // so two threads asking at once run one query. Setters take the lock so a load cannot overwrite them
+    public List<GlucoseMeasurement> getGlucoseReadings() {
+        List<GlucoseMeasurement> readings = glucoseReadings;
+        if (readings != null) return readings;
+        synchronized (this) {
+            if (glucoseReadings == null) glucoseReadings = glucoseReadingsSetup();
+            return glucoseReadings;
+        }
+    }
+    public synchronized void setGlucoseReadings(List<GlucoseMeasurement> glucoseReadings) {
+        this.glucoseReadings = glucoseReadings;
+        this.glucoseSeries = null;
+    }
 
-    public List<RiskFactor> getRiskFactors() { return riskFactors; }
-    public void setRiskFactors(List<RiskFactor> riskFactors) { this.riskFactors = riskFactors; }
+    public GlucoseSeries getGlucoseSeries() {
+        GlucoseSeries series = glucoseSeries;
+        if (series != null) return series;
+        synchronized (this) {
+            if (glucoseSeries == null) glucoseSeries = glucoseSeriesSetup();
+            return glucoseSeries;
+        }
+    }
 
-    public List<Medication> getMedications() { return medications; }
-    public void setMedications(List<Medication> medications) { this.medications = medications; }
+    public List<Symptom> getSymptoms() {
+        List<Symptom> loaded = symptoms;
+        if (loaded != null) return loaded;
+        synchronized (this) {
+            if (symptoms == null) symptoms = symptomsSetup();
+            return symptoms;
+        }
+    }
+    public synchronized void setSymptoms(List<Symptom> symptoms) { this.symptoms = symptoms; }
+
+    public List<RiskFactor> getRiskFactors() {
+        List<RiskFactor> loaded = riskFactors;
+        if (loaded != null) return loaded;
+        synchronized (this) {
+            if (riskFactors == null) riskFactors = riskFactorsSetup();
+            return riskFactors;
+        }
+    }
+    public synchronized void setRiskFactors(List<RiskFactor> riskFactors) { this.riskFactors = riskFactors; }
+
+    public List<Medication> getMedications() {
+        List<Medication> loaded = medications;
+        if (loaded != null) return loaded;
+        synchronized (this) {
+            if (medications == null) medications = medicationsSetup();
+            return medications;
+        }
+    }
+    public synchronized void setMedications(List<Medication> medications) { this.medications = medications; }
 
     @Override
     public String toString() {
         return "Patient{" +
                 "fullName='" + getFullName() + '\'' +
                 ", doctorId=" + doctorId +
-                ", glucoseReadings=" + glucoseReadings.size() +
-                ", symptoms=" + symptoms +
-                ", riskFactors=" + riskFactors.size() +
+                ", glucoseReadings=" + (glucoseReadings != null ? glucoseReadings.size() : "not loaded") +
+                ", symptoms=" + (symptoms != null ? symptoms : "not loaded") +
+                ", riskFactors=" + (riskFactors != null ? riskFactors.size() : "not loaded") +
                 '}';
     }
 
     public GlucoseMeasurement getLastGlucoseMeasurement() {
 
-        if (glucoseReadings.isEmpty()) return null;
+        // Readings not loaded as objects: the series if already loaded, otherwise one LIMIT 1 query
+        List<GlucoseMeasurement> readings = glucoseReadings;
+        if (readings == null) {
+            GlucoseSeries series = glucoseSeries;
+            if (series != null) return series.getLast(getId());
+            synchronized (this) {
+                if (!lastGlucoseMeasurementLoaded) {
+                    lastGlucoseMeasurement = lastGlucoseMeasurementSetup();
+                    lastGlucoseMeasurementLoaded = true;
+                }
+                return lastGlucoseMeasurement;
+            }
+        }
+        if (readings.isEmpty()) return null;
         GlucoseMeasurement latestMeasurement = null;
-        for (GlucoseMeasurement gm : glucoseReadings) {
+        for (GlucoseMeasurement gm : readings) {
             if (latestMeasurement == null || gm.getDateAndTime().isAfter(latestMeasurement.getDateAndTime())) {
                 latestMeasurement = gm;
             }
@@ -145,7 +212,7 @@ public class Patient extends User {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime alertThreshold = now.plusMinutes(medicationAlertMinutes);
 
-        for (Medication med : medications) {
+        for (Medication med : getMedications()) {
             for (LogMedication log : med.getLogMedications()) {
                 if (!log.isTaken() && !log.getDateAndTime().isBefore(now) && !log.getDateAndTime().isAfter(alertThreshold)) {
                     upcoming.add(log);
@@ -167,6 +234,45 @@ public class Patient extends User {
 
     }
 
+    private GlucoseMeasurement lastGlucoseMeasurementSetup() {
+
+        try {
+            return new it.glucotrack.util.GlucoseMeasurementDAO().getLatestMeasurementByPatientId(this.getId());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+
+    }
+
+    private GlucoseSeries glucoseSeriesSetup() {
+
+        // Readings already in memory (new patient or set by the caller) win over the database
+        if (glucoseReadings != null) {
+            GlucoseSeries series = new GlucoseSeries();
+            glucoseReadings.stream()
+                    .sorted((a, b) -> a.getDateAndTime().compareTo(b.getDateAndTime()))
+                    .forEach(gm -> series.append(gm.getId(), GlucoseSeries.toEpochSecond(gm.getDateAndTime()),
+                            Math.round(gm.getGlucoseLevel()), gm.getType()));
+            List<GlucoseMeasurement> source = glucoseReadings;
+            series.setNotesLoader(() -> {
+                java.util.Map<Integer, String> notes = new java.util.HashMap<>();
+                for (GlucoseMeasurement gm : source) {
+                    if (gm.getNotes() != null) notes.put(gm.getId(), gm.getNotes());
+                }
+                return notes;
+            });
+            return series;
+        }
+        try {
+            return it.glucotrack.util.GlucoseMeasurementDAO.getGlucoseSeriesByPatientId(this.getId());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new GlucoseSeries();
+        }
+
+    }
+
     private List <Symptom> symptomsSetup() {
 
         try {
@@ -0,0 +1,49 @@
+package it.glucotrack.model;
+
+import java.time.LocalDateTime;
+
+// One row of a doctor's patient list: the patient header plus the figures the table shows
+public class PatientSummary {
+
+    private Patient patient;
+    private Float lastGlucoseValue;        // null when the patient has no readings
+    private LocalDateTime lastGlucoseTime;
+    private Double averageLast7Days;       // null when there are no readings in the last 7 days
+    private int readingsLast7Days;
+    private int missedDoses;
+
+    public PatientSummary(Patient patient, Float lastGlucoseValue, LocalDateTime lastGlucoseTime,
+                          Double averageLast7Days, int readingsLast7Days, int missedDoses) {
+        this.patient = patient;
+        this.lastGlucoseValue = lastGlucoseValue;
+        this.lastGlucoseTime = lastGlucoseTime;
+        this.averageLast7Days = averageLast7Days;
+        this.readingsLast7Days = readingsLast7Days;
+        this.missedDoses = missedDoses;
+    }
+
+
+    public Patient getPatient() {return patient;}
+
+    public Float getLastGlucoseValue() {return lastGlucoseValue;}
+    public LocalDateTime getLastGlucoseTime() {return lastGlucoseTime;}
+    public boolean hasReadings() {return lastGlucoseValue != null;}
+
+    public Double getAverageLast7Days() {return averageLast7Days;}
+    public int getReadingsLast7Days() {return readingsLast7Days;}
+
+    public int getMissedDoses() {return missedDoses;}
+
+
+    @Override
+    public String toString() {
+        return "PatientSummary{" +
+                "patient=" + (patient != null ? patient.getFullName() : null) +
+                ", lastGlucoseValue=" + lastGlucoseValue +
+                ", lastGlucoseTime=" + lastGlucoseTime +
+                ", averageLast7Days=" + averageLast7Days +
+                ", readingsLast7Days=" + readingsLast7Days +
+                ", missedDoses=" + missedDoses +
+                '}';
+    }
+}
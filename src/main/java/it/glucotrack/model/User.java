@@ -86,8 +86,9 @@ public class User {
     }
 
     // ===== Password check =====
+    // Users loaded from the database carry no password: check those with UserDAO.verifyPassword
     public boolean checkPassword(String password) {
-        return this.password.equals(password);
+        return this.password != null && this.password.equals(password);
     }
 
     // ===== Equals based on email =====
@@ -0,0 +1,41 @@
+package it.glucotrack.model;
+
+// Identity of a user without its profile data and credentials: what tables show for a referenced user
+public class UserHeader {
+
+    private final int id;
+    private final String name;
+    private final String surname;
+    private final String type;
+    private final int doctorId;
+
+    public UserHeader(int id, String name, String surname, String type, int doctorId) {
+        this.id = id;
+        this.name = name;
+        this.surname = surname;
+        this.type = type;
+        this.doctorId = doctorId;
+    }
+
+
+    public int getId() {return id;}
+    public String getName() {return name;}
+    public String getSurname() {return surname;}
+    public String getType() {return type;}
+    public int getDoctorId() {return doctorId;}
+
+    public String getFullName() {return name + " " + surname;}
+    public boolean isPatient() {return "PATIENT".equals(type);}
+
+
+    @Override
+    public String toString() {
+        return "UserHeader{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", surname='" + surname + '\'' +
+                ", type='" + type + '\'' +
+                ", doctorId=" + doctorId +
+                '}';
+    }
+}
@@ -19,7 +19,7 @@ public class AdminDAO {
     //==== GET OPERATIONS ====
 
     public static Admin getAdminById(int id) throws SQLException {
-        String sql = "SELECT * FROM users WHERE id = ? AND type = 'ADMIN'";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE id = ? AND type = 'ADMIN'";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
             if (rs.next()) {
                 return mapResultSetToAdmin(rs);
@@ -30,7 +30,7 @@ public class AdminDAO {
 
 
     public List<Admin> getAllAdmins() throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'ADMIN' ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'ADMIN' ORDER BY surname, name";
         List<Admin> admins = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql)) {
             while (rs.next()) {
@@ -41,7 +41,7 @@ public class AdminDAO {
     }
 
     public Admin getAdminByEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM users WHERE email = ? AND type = 'ADMIN'";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE email = ? AND type = 'ADMIN'";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, email)) {
             if (rs.next()) {
                 return mapResultSetToAdmin(rs);
@@ -51,7 +51,7 @@ public class AdminDAO {
     }
 
     public List<Admin> getAdminsByRole(String role) throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'ADMIN' AND role = ? ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'ADMIN' AND role = ? ORDER BY surname, name";
         List<Admin> admins = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, role)) {
             while (rs.next()) {
@@ -67,7 +67,7 @@ public class AdminDAO {
     public boolean insertAdmin(Admin admin) throws SQLException {
         String sql = "INSERT INTO users (name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'ADMIN', ?)";
         int rows = DatabaseInteraction.executeUpdate(sql,
-                admin.getName(), admin.getSurname(), admin.getEmail(), PasswordUtils.encryptPassword(admin.getPassword(),admin.getEmail()),
+                admin.getName(), admin.getSurname(), admin.getEmail(), PasswordUtils.hashPassword(admin.getPassword()),
                 admin.getBornDate(), admin.getGender().toString(), admin.getPhone(),
                 admin.getBirthPlace(), admin.getFiscalCode(), admin.getRole());
         return rows > 0;
@@ -79,10 +79,12 @@ public class AdminDAO {
 
     public static boolean updateAdmin(Admin admin) throws SQLException {
         String sql = "UPDATE users SET name=?, surname=?, email=?, password=?, born_date=?, gender=?, phone=?, birth_place=?, fiscal_code=?, role=? WHERE id=? AND type='ADMIN'";
-        int rows = DatabaseInteraction.executeUpdate(sql,
-                admin.getName(), admin.getSurname(), admin.getEmail(), PasswordUtils.encryptPassword(admin.getPassword(),admin.getEmail()),
+        // A profile loaded from the DAO has no password: keep the stored one (re-keyed if the email changes)
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> DatabaseInteraction.executeUpdate(sql,
+                admin.getName(), admin.getSurname(), admin.getEmail(), UserDAO.credentialForUpdate(admin.getId(), admin.getEmail(), admin.getPassword()),
                 admin.getBornDate(), admin.getGender().toString(), admin.getPhone(),
-                admin.getBirthPlace(), admin.getFiscalCode(), admin.getRole(), admin.getId());
+                admin.getBirthPlace(), admin.getFiscalCode(), admin.getRole(), admin.getId()));
+        UserDAO.invalidateHeader(admin.getId());
         return rows > 0;
     }
 
@@ -92,13 +94,14 @@ public class AdminDAO {
     public boolean deleteAdmin(int id) throws SQLException {
         String sql = "DELETE FROM users WHERE id = ? AND type = 'ADMIN'";
         int rows = DatabaseInteraction.executeUpdate(sql, id);
+        UserDAO.invalidateHeader(id);
         return rows > 0;
     }
 
     //==== SEARCH OPERATIONS ====
 
     public List<Admin> searchAdmins(String searchTerm) throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'ADMIN' AND (name LIKE ? OR surname LIKE ? OR email LIKE ? OR role LIKE ?) ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'ADMIN' AND (name LIKE ? OR surname LIKE ? OR email LIKE ? OR role LIKE ?) ORDER BY surname, name";
         String searchPattern = "%" + searchTerm + "%";
         List<Admin> admins = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, searchPattern, searchPattern, searchPattern, searchPattern)) {
@@ -109,6 +112,11 @@ public class AdminDAO {
         return admins;
     }
 
+    // Type-ahead search on the full-text index, best matches first (see UserDAO.searchProfiles)
+    public List<Admin> searchAdminsByPrefix(String searchTerm, int limit) throws SQLException {
+        return UserDAO.searchProfiles("ADMIN", searchTerm, limit, AdminDAO::mapResultSetToAdmin);
+    }
+
 
     //==== ADDITIONAL OPERATIONS ====
 
@@ -118,7 +126,7 @@ public class AdminDAO {
             rs.getString("name"),
             rs.getString("surname"),
             rs.getString("email"),
-            PasswordUtils.decryptPassword(rs.getString("password"), rs.getString("email")),
+            null, // credentials are not loaded with the profile
             LocalDate.parse(rs.getString("born_date")),
             Gender.fromString(rs.getString("gender")),
             rs.getString("phone"),
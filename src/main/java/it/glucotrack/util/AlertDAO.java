@@ -0,0 +1,131 @@
+package it.glucotrack.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import it.glucotrack.model.Alert;
+import it.glucotrack.model.AlertType;
+import it.glucotrack.model.Patient;
+
+/*
+* ALERT DAO
+* Persisted alerts written by AlertSweeper. One row per dedup key: first_seen is kept,
+* last_seen moves forward on every sweep that still produces the alert.
+*/
+
+public class AlertDAO {
+
+    private static final String ALERT_COLUMNS =
+            UserDAO.profileColumns("u") + ", a.id AS alert_id, a.dedup_key, a.type AS alert_type, a.message, a.alert_time, " +
+            "a.first_seen, a.last_seen, a.acknowledged ";
+
+
+    //========================
+    //==== GET OPERATIONS ====
+    //========================
+
+    // Active alerts of every patient followed by the doctor, newest first
+    // (index on doctor_id, active, alert_time: no sort across the patients)
+    public static List<Alert> getActiveAlertsByDoctorId(int doctorId) throws SQLException {
+        String sql = "SELECT " + ALERT_COLUMNS +
+                     "FROM alerts a JOIN users u ON u.id = a.patient_id " +
+                     "WHERE a.doctor_id = ? AND a.active = 1 " +
+                     "ORDER BY a.alert_time DESC";
+        return queryAlerts(sql, doctorId);
+    }
+
+    public static List<Alert> getActiveAlertsByPatientId(int patientId) throws SQLException {
+        String sql = "SELECT " + ALERT_COLUMNS +
+                     "FROM alerts a JOIN users u ON u.id = a.patient_id " +
+                     "WHERE a.patient_id = ? AND a.active = 1 " +
+                     "ORDER BY a.alert_time DESC";
+        return queryAlerts(sql, patientId);
+    }
+
+
+    //===========================
+    //==== UPDATE OPERATIONS ====
+    //===========================
+
+    // Store the alerts of one sweep for the doctor's patients; alerts missing from it are closed
+    public static void syncDoctorAlerts(int doctorId, List<Alert> alerts, LocalDateTime sweepTime) throws SQLException {
+        String closeSql = "UPDATE alerts SET active = 0 WHERE active = 1 AND last_seen < ? " +
+                          "AND patient_id IN (SELECT id FROM users WHERE type = 'PATIENT' AND doctor_id = ?)";
+        syncAlerts(alerts, sweepTime, closeSql, doctorId);
+    }
+
+    // Same for the alerts of a single patient
+    public static void syncPatientAlerts(int patientId, List<Alert> alerts, LocalDateTime sweepTime) throws SQLException {
+        String closeSql = "UPDATE alerts SET active = 0 WHERE active = 1 AND last_seen < ? AND patient_id = ?";
+        syncAlerts(alerts, sweepTime, closeSql, patientId);
+    }
+
+    public static boolean acknowledge(String dedupKey) throws SQLException {
+        String sql = "UPDATE alerts SET acknowledged = 1, acknowledged_at = ? WHERE dedup_key = ?";
+        int rows = DatabaseInteraction.executeUpdate(sql, Timestamp.valueOf(LocalDateTime.now()), dedupKey);
+        return rows > 0;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static void syncAlerts(List<Alert> alerts, LocalDateTime sweepTime, String closeSql, int ownerId) throws SQLException {
+        // The doctor is copied from the patient, for the doctor dashboard read (see migration 007)
+        String upsertSql = "INSERT INTO alerts (patient_id, dedup_key, type, message, alert_time, first_seen, last_seen, active, doctor_id) " +
+                           "VALUES (?, ?, ?, ?, ?, ?, ?, 1, (SELECT doctor_id FROM users WHERE id = ?)) " +
+                           "ON CONFLICT(dedup_key) DO UPDATE SET type = excluded.type, message = excluded.message, " +
+                           "alert_time = excluded.alert_time, last_seen = excluded.last_seen, active = 1, " +
+                           "doctor_id = excluded.doctor_id";
+
+        Timestamp seen = Timestamp.valueOf(sweepTime);
+        List<Object[]> rows = new ArrayList<>(alerts.size());
+        for (Alert alert : alerts) {
+            if (alert.getPatient() == null) continue;
+            rows.add(new Object[] {
+                    alert.getPatient().getId(),
+                    alert.getKey(),
+                    alert.getType().name(),
+                    alert.getMessage(),
+                    Timestamp.valueOf(alert.getDateAndTime()),
+                    seen,
+                    seen,
+                    alert.getPatient().getId()
+            });
+        }
+
+        DatabaseInteraction.inTransaction(conn -> {
+            if (!rows.isEmpty()) {
+                DatabaseInteraction.executeBatch(upsertSql, rows);
+            }
+            DatabaseInteraction.executeUpdate(closeSql, seen, ownerId);
+        });
+    }
+
+    private static List<Alert> queryAlerts(String sql, Object... params) throws SQLException {
+        List<Alert> alerts = new ArrayList<>();
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, params)) {
+            while (rs.next()) {
+                alerts.add(mapResultSetToAlert(rs));
+            }
+        }
+        return alerts;
+    }
+
+    private static Alert mapResultSetToAlert(ResultSet rs) throws SQLException {
+        Patient patient = PatientDAO.mapResultSetToPatient(rs);
+        Alert alert = new Alert(
+                rs.getString("message"),
+                AlertType.valueOf(rs.getString("alert_type")),
+                patient,
+                rs.getTimestamp("alert_time").toLocalDateTime());
+        alert.setKey(rs.getString("dedup_key"));
+        alert.setAcknowledged(rs.getBoolean("acknowledged"));
+        return alert;
+    }
+}
@@ -0,0 +1,287 @@
+package it.glucotrack.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.glucotrack.model.Alert;
+import it.glucotrack.model.Medication;
+import it.glucotrack.model.Patient;
+
+/*
+* ALERT ENGINE
+* Keeps the doctor-dashboard alerts of every patient in memory.
+* DAOs report writes (glucose, medication, medication log) and only the
+* patients they touch are evaluated again, on the next read.
+* Rules that depend on the clock (missed doses, no recent readings) are
+* refreshed once the stored state is older than STATE_MAX_AGE_MINUTES.
+*/
+
+public class AlertEngine {
+
+    private static final int STATE_MAX_AGE_MINUTES = 10;
+
+    private static AlertEngine instance;
+
+    // Guarded by this (a single state is evaluated under its own lock)
+    private final Map<Integer, PatientAlertState> patientStates = new HashMap<>();
+    private final Map<Integer, List<Integer>> doctorPatients = new HashMap<>();
+
+    // Written by DAO calls on any thread without taking the engine lock, consumed on the next read
+    private final Set<Integer> dirtyPatients = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Integer> medicationOwners = new ConcurrentHashMap<>();
+    private volatile boolean patientListsChanged = false;
+    private volatile boolean tracking = false;
+
+
+    private AlertEngine() {
+    }
+
+    public static synchronized AlertEngine getInstance() {
+        if (instance == null) {
+            instance = new AlertEngine();
+        }
+        return instance;
+    }
+
+
+    //=========================
+    //==== READ OPERATIONS ====
+    //=========================
+
+    // Alerts of all patients followed by the doctor; patients not touched since the last call are not re-evaluated
+    public List<Alert> getDoctorAlerts(int doctorId) throws SQLException {
+        CompletableFuture<List<Alert>> alerts = streamDoctorAlerts(doctorId, null);
+        // The workers read on connections of their own: do not keep ours while waiting for them
+        DatabaseInteraction.releaseThreadConnection();
+        return alerts.join();
+    }
+
+    // Up-to-date patients are reported at once, the others as soon as their evaluation finishes
+    public CompletableFuture<List<Alert>> streamDoctorAlerts(int doctorId, AlertEvaluationService.Listener listener) throws SQLException {
+        List<PatientAlertState> ready = new ArrayList<>();
+        Map<Integer, PatientAlertState> pending = new HashMap<>();
+        List<Patient> toEvaluate = new ArrayList<>();
+
+        synchronized (this) {
+            tracking = true;
+            applyPatientListChanges();
+
+            List<Integer> patientIds = doctorPatients.get(doctorId);
+            if (patientIds == null) {
+                patientIds = new ArrayList<>();
+                for (Patient patient : PatientDAO.getPatientsByDoctorId(doctorId)) {
+                    patientIds.add(patient.getId());
+                    patientStates.putIfAbsent(patient.getId(), new PatientAlertState(patient));
+                }
+                doctorPatients.put(doctorId, patientIds);
+            }
+
+            for (int patientId : patientIds) {
+                PatientAlertState state = patientStates.get(patientId);
+                if (state == null) continue;
+                if (dirtyPatients.remove(patientId) || state.isStale()) {
+                    pending.put(patientId, state);
+                    toEvaluate.add(state.patient);
+                } else {
+                    ready.add(state);
+                }
+            }
+        }
+
+        List<Alert> alerts = new ArrayList<>();
+        for (PatientAlertState state : ready) {
+            alerts.addAll(state.alerts);
+            if (listener != null) {
+                listener.onPatientAlerts(state.patient, state.alerts);
+            }
+        }
+
+        // Evaluated outside the engine lock, so DAO writes are never kept waiting
+        return AlertEvaluationService.evaluateAll(toEvaluate, patient -> evaluate(pending.get(patient.getId())), listener)
+                .thenApply(evaluated -> {
+                    alerts.addAll(evaluated);
+                    return alerts;
+                });
+    }
+
+    // True when the next read would evaluate one of the doctor's patients again
+    public synchronized boolean hasPendingChanges(int doctorId) {
+        if (patientListsChanged) return true;
+        List<Integer> patientIds = doctorPatients.get(doctorId);
+        if (patientIds == null) return true;
+        for (int patientId : patientIds) {
+            if (hasPendingPatientChangesLocked(patientId)) return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean hasPendingPatientChanges(int patientId) {
+        return patientListsChanged || hasPendingPatientChangesLocked(patientId);
+    }
+
+    public synchronized List<Alert> getPatientAlerts(int patientId) throws SQLException {
+        tracking = true;
+        applyPatientListChanges();
+
+        PatientAlertState state = patientStates.get(patientId);
+        if (state == null) {
+            Patient patient = PatientDAO.getPatientById(patientId);
+            if (patient == null) {
+                return new ArrayList<>();
+            }
+            state = new PatientAlertState(patient);
+            patientStates.put(patientId, state);
+        }
+        return new ArrayList<>(currentAlerts(state));
+    }
+
+
+    //======================
+    //==== WRITE EVENTS ====
+    //======================
+
+    public void onGlucoseChanged(int patientId) {
+        markDirty(patientId);
+    }
+
+    // Medication inserted, edited or deleted for the patient
+    public void onMedicationChanged(int patientId) {
+        markDirty(patientId);
+    }
+
+    // Logs of a medication inserted, rescheduled or deleted (call before deleting the medication itself)
+    public void onMedicationLogsChanged(int medicationId) {
+        if (!tracking) return;
+        Integer patientId = medicationOwners.get(medicationId);
+        if (patientId == null) {
+            patientId = findPatientId("SELECT patient_id FROM medications WHERE id = ?", medicationId);
+        }
+        if (patientId != null) {
+            medicationOwners.put(medicationId, patientId);
+            markDirty(patientId);
+        }
+    }
+
+    // One log updated by id (e.g. marked as taken)
+    public void onLogMedicationChanged(int logId) {
+        if (!tracking) return;
+        Integer patientId = findPatientId(
+                "SELECT m.patient_id FROM log_medications lm JOIN medications m ON m.id = lm.medication_id WHERE lm.id = ?",
+                logId);
+        if (patientId != null) {
+            markDirty(patientId);
+        }
+    }
+
+    // Patients added, removed, renamed or moved to another doctor
+    public void onPatientsChanged() {
+        patientListsChanged = true;
+    }
+
+    // Forget everything (database switched or recreated)
+    public synchronized void reset() {
+        patientStates.clear();
+        doctorPatients.clear();
+        dirtyPatients.clear();
+        medicationOwners.clear();
+        patientListsChanged = false;
+        tracking = false;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private void markDirty(int patientId) {
+        dirtyPatients.add(patientId);
+    }
+
+    private void applyPatientListChanges() {
+        if (patientListsChanged) {
+            patientListsChanged = false;
+            // Alerts carry the Patient header, so drop the states as well as the lists
+            patientStates.clear();
+            doctorPatients.clear();
+            medicationOwners.clear();
+            dirtyPatients.clear();
+        }
+    }
+
+    private boolean hasPendingPatientChangesLocked(int patientId) {
+        PatientAlertState state = patientStates.get(patientId);
+        return state == null || dirtyPatients.contains(patientId) || state.isStale();
+    }
+
+    private List<Alert> currentAlerts(PatientAlertState state) {
+        boolean dirty = dirtyPatients.remove(state.patientId);
+        if (dirty || state.isStale()) {
+            return evaluate(state);
+        }
+        return state.alerts;
+    }
+
+    // Returns the new alerts, or the previous ones if the evaluation failed
+    private List<Alert> evaluate(PatientAlertState state) {
+        synchronized (state) {
+            evaluateLocked(state);
+            return state.alerts;
+        }
+    }
+
+    private void evaluateLocked(PatientAlertState state) {
+        try {
+            if (state.evaluatedAt != null) {
+                // Aggregates of the old Patient object are already loaded: read them again
+                Patient fresh = PatientDAO.getPatientById(state.patientId);
+                if (fresh != null) {
+                    state.patient = fresh;
+                }
+            }
+            state.alerts = AlertManagement.doctorAlertsForPatient(state.patient);
+            state.evaluatedAt = LocalDateTime.now();
+            for (Medication medication : state.patient.getMedications()) {
+                medicationOwners.put(medication.getId(), state.patientId);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Keep the previous alerts of this patient and try again on the next read
+            dirtyPatients.add(state.patientId);
+            System.err.println("Error evaluating alerts for patient ID " + state.patientId + ": " + e.getMessage());
+        }
+    }
+
+    private static Integer findPatientId(String sql, int id) {
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resolving the patient for alert update: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static final class PatientAlertState {
+        private final int patientId;
+        private volatile Patient patient;
+        private volatile List<Alert> alerts = new ArrayList<>();
+        private volatile LocalDateTime evaluatedAt;
+
+        private PatientAlertState(Patient patient) {
+            this.patientId = patient.getId();
+            this.patient = patient;
+        }
+
+        private boolean isStale() {
+            return evaluatedAt == null || evaluatedAt.isBefore(LocalDateTime.now().minusMinutes(STATE_MAX_AGE_MINUTES));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package it.glucotrack.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import it.glucotrack.model.Alert;
+import it.glucotrack.model.Patient;
+
+/*
+* ALERT EVALUATION SERVICE
+* Evaluates alert rules for many patients at once on a small fixed pool.
+* Each patient is a separate task: a failure only loses that patient's alerts,
+* and results are handed to the listener as soon as each patient is done.
+* (Source level is Java 16, so platform threads are used instead of virtual threads.)
+*/
+
+public class AlertEvaluationService {
+
+    // Each worker holds a read connection while it runs: DatabaseInteraction sizes its pool for them
+    private static final int WORKER_THREADS = 3;
+
+    private static ExecutorService executor;
+
+
+    @FunctionalInterface
+    public interface PatientRule {
+        List<Alert> evaluate(Patient patient) throws SQLException;
+    }
+
+    // Called on a worker thread: UI code must hop to the FX thread (Platform.runLater)
+    public interface Listener {
+        void onPatientAlerts(Patient patient, List<Alert> alerts);
+
+        default void onPatientFailed(Patient patient, Exception error) {
+            System.err.println("Error evaluating alerts for patient ID " + patient.getId() + ": " + error.getMessage());
+        }
+    }
+
+
+    //============================
+    //==== EVALUATION METHODS ====
+    //============================
+
+    // Fan the patients out; the future completes with the alerts of every patient that succeeded
+    public static CompletableFuture<List<Alert>> evaluateAll(List<Patient> patients, PatientRule rule, Listener listener) {
+        List<CompletableFuture<List<Alert>>> tasks = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            tasks.add(CompletableFuture.supplyAsync(() -> evaluateOne(patient, rule, listener), executor()));
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Alert> alerts = new ArrayList<>();
+            for (CompletableFuture<List<Alert>> task : tasks) {
+                alerts.addAll(task.join());
+            }
+            return alerts;
+        });
+    }
+
+    // Doctor-dashboard rules for each patient
+    public static CompletableFuture<List<Alert>> evaluateDoctorAlerts(List<Patient> patients, Listener listener) {
+        return evaluateAll(patients, AlertManagement::doctorAlertsForPatient, listener);
+    }
+
+    private static List<Alert> evaluateOne(Patient patient, PatientRule rule, Listener listener) {
+        try {
+            List<Alert> alerts = rule.evaluate(patient);
+            if (listener != null) {
+                listener.onPatientAlerts(patient, alerts);
+            }
+            return alerts;
+        } catch (Exception e) {
+            if (listener != null) {
+                listener.onPatientFailed(patient, e);
+            } else {
+                System.err.println("Error evaluating alerts for patient ID " + patient.getId() + ": " + e.getMessage());
+            }
+            return new ArrayList<>();
+        } finally {
+            // Give the read connection back between tasks so idle workers do not hold readers
+            DatabaseInteraction.releaseThreadConnection();
+        }
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(WORKER_THREADS, task -> {
+                Thread thread = new Thread(task, "alert-evaluation-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
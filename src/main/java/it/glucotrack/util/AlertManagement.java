@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /*
 * Alert Management
@@ -61,6 +62,9 @@ public class AlertManagement {
             }else if(value > GLUCOSE_MAX){
                 alerts.add(new Alert("Glicemia High: " + value, AlertType.CRITICAL, patient, measurementDate));
             }
+            for (Alert alert : alerts) {
+                alert.setKey("glucose:" + patient.getId() + ":" + measurementDate);
+            }
         }
         return alerts;
     }
@@ -74,8 +78,10 @@ public class AlertManagement {
         List<Alert> alerts = new ArrayList<>();
         LocalDateTime lastMeasurementDate = patient.getLastGlucoseMeasurement().getDateAndTime();
         if (isTooOld(lastMeasurementDate, DAYS_WITHOUT_MEASUREMENT)) {
-            alerts.add(new Alert("No misuration for more than " + DAYS_WITHOUT_MEASUREMENT + " days",
-                    AlertType.WARNING, patient, LocalDateTime.now()));
+            Alert alert = new Alert("No misuration for more than " + DAYS_WITHOUT_MEASUREMENT + " days",
+                    AlertType.WARNING, patient, LocalDateTime.now());
+            alert.setKey("no-readings:" + patient.getId() + ":" + lastMeasurementDate);
+            alerts.add(alert);
         }
 
         return alerts;
@@ -83,44 +89,64 @@ public class AlertManagement {
 
     public static List<Alert> medicationToGetInTheNextHour(Patient patient) throws SQLException {
         List<Alert> alerts = new ArrayList<>();
-        List<LogMedication> upcomingMeds = patient.getUpcomingMedications(MEDICATION_ALERT_MINUTES);
-        for (LogMedication med : upcomingMeds) {
-            Medication medication = MedicationDAO.getMedicationById(med.getMedication_id());
-            alerts.add(new Alert("Looking forward to take " + medication.getName_medication(),
-                    AlertType.INFO, patient, med.getDateAndTime()));
+        LocalDateTime now = LocalDateTime.now();
+        List<DoseSummary> upcoming = LogMedicationDAO.getUpcomingDoseSummaries(patient.getId(),
+                now, now.plusMinutes(MEDICATION_ALERT_MINUTES));
+        for (DoseSummary dose : upcoming) {
+            Alert alert = new Alert("Looking forward to take " + dose.getMedicationName(),
+                    AlertType.INFO, patient, dose.getFirstDateTime());
+            alert.setKey("upcoming-dose:" + dose.getMedicationId() + ":" + dose.getFirstDateTime());
+            alerts.add(alert);
         }
         return alerts;
     }
 
+    // One alert per medication: how many doses were missed and between which dates
     public static List<Alert> nonLoggedMedications(Patient patient) throws SQLException {
         List<Alert> alerts = new ArrayList<>();
-        List<LogMedication> notTaken = patient.getAllMedicationLogsNotTaken();
-        for(LogMedication log : notTaken) {
-            if (log.getDateAndTime().isBefore(LocalDateTime.now())) {
-                Medication medication = MedicationDAO.getMedicationById(log.getMedication_id());
-                alerts.add(new Alert(medication.getName_medication() + " missed assumption at " + log.getDateAndTime().toLocalDate() + " " +
-                        log.getDateAndTime().toLocalTime(), AlertType.WARNING, patient, log.getDateAndTime()));
+        List<DoseSummary> missed = LogMedicationDAO.getMissedDoseSummaries(patient.getId(), LocalDateTime.now());
+        for (DoseSummary dose : missed) {
+            LocalDateTime last = dose.getLastDateTime();
+            String message;
+            if (dose.getCount() == 1) {
+                message = dose.getMedicationName() + " missed assumption at " + last.toLocalDate() + " " + last.toLocalTime();
+            } else {
+                message = dose.getMedicationName() + " missed " + dose.getCount() + " assumptions from " +
+                        dose.getFirstDateTime().toLocalDate() + " to " + last.toLocalDate();
             }
+            Alert alert = new Alert(message, AlertType.WARNING, patient, last);
+            // A new missed dose gives a new key, so an acknowledged alert comes back
+            alert.setKey("missed-dose:" + dose.getMedicationId() + ":" + last);
+            alerts.add(alert);
         }
         return alerts;
     }
 
-    // Generate alert for all doctor's patients
+    // Generate alert for all doctor's patients (in parallel; a failing patient is skipped, not the whole list)
     public static List<Alert> generateDoctorAlerts(int doctorId) {
         List<Alert> alerts = new ArrayList<>();
         try {
             List<Patient> patients = PatientDAO.getPatientsByDoctorId(doctorId);
-            for (Patient patient : patients) {
-                alerts.addAll(glucoseOutOfRange(patient));
-                alerts.addAll(missingsGlucoseMeasurements(patient));
-                alerts.addAll(nonLoggedMedications(patient));
-            }
+            CompletableFuture<List<Alert>> evaluated = AlertEvaluationService.evaluateDoctorAlerts(patients, null);
+            // The workers read on connections of their own: do not keep ours while waiting for them
+            DatabaseInteraction.releaseThreadConnection();
+            alerts.addAll(evaluated.join());
         } catch (Exception e) {
             System.err.println("Error during the check for the doctor ID " + doctorId + ": " + e.getMessage());
         }
         return alerts;
     }
 
+    // Rules shown on the doctor dashboard for one patient (used by AlertEngine on re-evaluation)
+    public static List<Alert> doctorAlertsForPatient(Patient patient) throws SQLException {
+        List<Alert> alerts = new ArrayList<>(glucoseOutOfRange(patient));
+        List<Alert> missing = missingsGlucoseMeasurements(patient);
+        if (missing != null)
+            alerts.addAll(missing);
+        alerts.addAll(nonLoggedMedications(patient));
+        return alerts;
+    }
+
     private static boolean isTooOld(LocalDateTime dateTime, int maxDays) {
         if (dateTime == null) return true;
         long days = ChronoUnit.DAYS.between(dateTime, LocalDateTime.now());
@@ -0,0 +1,130 @@
+package it.glucotrack.util;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import it.glucotrack.model.Alert;
+import it.glucotrack.model.Doctor;
+
+/*
+* ALERT SWEEPER
+* Background job that evaluates the doctor alert rules on a fixed cadence and
+* stores the result in the alerts table, so time-based alerts (no readings for
+* DAYS_WITHOUT_MEASUREMENT days, missed doses) are recorded even when no
+* dashboard is open. It goes through AlertEngine, so only patients changed since
+* the last pass are evaluated again.
+* Dashboards read the table: syncDoctor / syncPatient first store what writes
+* changed since the last sweep, so a new reading shows its alert at once.
+*/
+
+public class AlertSweeper {
+
+    private static final long SWEEP_INTERVAL_MINUTES = 5;
+    private static final long FIRST_SWEEP_DELAY_SECONDS = 30;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private static ScheduledExecutorService scheduler;
+
+    // One sweep at a time; within it, a doctor or patient is stored under its own lock, so a dashboard
+    // sync waits for at most that doctor's store, not for the whole sweep. Stores of different owners
+    // may interleave: the upsert on dedup_key makes each one idempotent
+    private static final Object sweepLock = new Object();
+    private static final Map<Integer, Object> doctorLocks = new ConcurrentHashMap<>();
+    private static final Map<Integer, Object> patientLocks = new ConcurrentHashMap<>();
+
+
+    //===================
+    //==== LIFECYCLE ====
+    //===================
+
+    public static synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "alert-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(AlertSweeper::sweepQuietly,
+                FIRST_SWEEP_DELAY_SECONDS, SWEEP_INTERVAL_MINUTES * 60, TimeUnit.SECONDS);
+    }
+
+    // Waits for a sweep in progress, so none of its writes lands after the caller goes on
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                if (!scheduler.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    System.err.println("Alert sweep still running after " + STOP_TIMEOUT_SECONDS + " s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+
+    //===============
+    //==== SWEEP ====
+    //===============
+
+    // One pass over every doctor; a failing doctor does not stop the others
+    public static void sweep() throws SQLException {
+        synchronized (sweepLock) {
+            for (Doctor doctor : DoctorDAO.getAllDoctors()) {
+                try {
+                    synchronized (lockFor(doctorLocks, doctor.getId())) {
+                        List<Alert> alerts = AlertEngine.getInstance().getDoctorAlerts(doctor.getId());
+                        AlertDAO.syncDoctorAlerts(doctor.getId(), alerts, LocalDateTime.now());
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    System.err.println("Alert sweep failed for doctor ID " + doctor.getId() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Before a dashboard read: nothing to do unless the engine saw a write for the doctor's patients
+    public static void syncDoctor(int doctorId) throws SQLException {
+        synchronized (lockFor(doctorLocks, doctorId)) {
+            AlertEngine engine = AlertEngine.getInstance();
+            if (engine.hasPendingChanges(doctorId)) {
+                AlertDAO.syncDoctorAlerts(doctorId, engine.getDoctorAlerts(doctorId), LocalDateTime.now());
+            }
+        }
+    }
+
+    public static void syncPatient(int patientId) throws SQLException {
+        synchronized (lockFor(patientLocks, patientId)) {
+            AlertEngine engine = AlertEngine.getInstance();
+            if (engine.hasPendingPatientChanges(patientId)) {
+                AlertDAO.syncPatientAlerts(patientId, engine.getPatientAlerts(patientId), LocalDateTime.now());
+            }
+        }
+    }
+
+    private static Object lockFor(Map<Integer, Object> locks, int id) {
+        return locks.computeIfAbsent(id, key -> new Object());
+    }
+
+    private static void sweepQuietly() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            // An exception would cancel the schedule: log and wait for the next run
+            System.err.println("Alert sweep failed: " + e.getMessage());
+        } finally {
+            DatabaseInteraction.releaseThreadConnection();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package it.glucotrack.util;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import javafx.scene.chart.XYChart;
+
+/*
+* CHART DOWNSAMPLER
+* Reduces a time series to a fixed number of points for the charts.
+* Largest-Triangle-Three-Buckets keeps the shape of the curve, and the
+* min/max envelope keeps the lowest and highest reading of each bucket,
+* so hypo/hyper spikes survive even on long date ranges.
+* Works on primitive arrays (x ascending) and returns indices into them.
+*/
+
+public class ChartDownsampler {
+
+    //==========================
+    //==== DOWNSAMPLING API ====
+    //==========================
+
+    // LTTB + min/max envelope, at most maxPoints indices (minimum 6) in ascending order
+    public static int[] downsample(double[] x, double[] y, int maxPoints) {
+        int n = y.length;
+        maxPoints = Math.max(maxPoints, 6);
+        if (n <= maxPoints) {
+            return identity(n);
+        }
+
+        // A quarter of the budget as buckets with two extremes each: at most half of the points
+        int[] envelope = minMaxEnvelope(y, Math.max(1, maxPoints / 4));
+        int[] shape = lttb(x, y, maxPoints - envelope.length);
+        return mergeSorted(shape, envelope);
+    }
+
+    // Largest-Triangle-Three-Buckets: first and last point plus one point per bucket
+    public static int[] lttb(double[] x, double[] y, int threshold) {
+        int n = y.length;
+        threshold = Math.max(threshold, 3);
+        if (threshold >= n) {
+            return identity(n);
+        }
+
+        int[] selected = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        selected[0] = 0;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket is the third vertex of the triangle
+            int nextStart = (int) Math.floor((i + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            } else {
+                avgX = x[n - 1];
+                avgY = y[n - 1];
+            }
+
+            // Point of the current bucket with the largest triangle area
+            int start = (int) Math.floor(i * bucketSize) + 1;
+            int end = (int) Math.floor((i + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            selected[i + 1] = chosen;
+            a = chosen;
+        }
+
+        selected[threshold - 1] = n - 1;
+        return selected;
+    }
+
+    // Index of the minimum and of the maximum of each bucket, ascending
+    public static int[] minMaxEnvelope(double[] y, int buckets) {
+        int n = y.length;
+        if (n == 0 || buckets <= 0) return new int[0];
+        buckets = Math.min(buckets, n);
+
+        int[] result = new int[buckets * 2];
+        int count = 0;
+        double bucketSize = (double) n / buckets;
+        for (int b = 0; b < buckets; b++) {
+            int start = (int) Math.floor(b * bucketSize);
+            int end = (int) Math.min(n, Math.floor((b + 1) * bucketSize));
+            if (start >= end) continue;
+
+            int min = start;
+            int max = start;
+            for (int j = start + 1; j < end; j++) {
+                if (y[j] < y[min]) min = j;
+                if (y[j] > y[max]) max = j;
+            }
+            result[count++] = Math.min(min, max);
+            if (min != max) {
+                result[count++] = Math.max(min, max);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+
+    //======================
+    //==== CHART HELPER ====
+    //======================
+
+    // Builds the series from the selected indices only; labels are formatted for those points alone
+    public static XYChart.Series<String, Number> toSeries(String name, double[] y, int[] indices, IntFunction<String> label) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        for (int index : indices) {
+            series.getData().add(new XYChart.Data<>(label.apply(index), y[index]));
+        }
+        return series;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static int[] identity(int n) {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    // Union of two ascending index arrays, without duplicates
+    private static int[] mergeSorted(int[] first, int[] second) {
+        int[] merged = new int[first.length + second.length];
+        int i = 0, j = 0, k = 0;
+        while (i < first.length || j < second.length) {
+            int next;
+            if (j >= second.length || (i < first.length && first[i] <= second[j])) {
+                next = first[i++];
+            } else {
+                next = second[j++];
+            }
+            if (k == 0 || merged[k - 1] != next) {
+                merged[k++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, k);
+    }
+}
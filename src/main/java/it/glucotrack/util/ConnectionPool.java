@@ -0,0 +1,203 @@
+package it.glucotrack.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.sqlite.SQLiteConfig;
+
+/*
+* CONNECTION POOL
+* One writer connection plus a bounded set of read-only connections.
+* The database runs in WAL mode, so readers keep going while the writer commits.
+*/
+
+public class ConnectionPool {
+
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    private static final long ACQUIRE_TIMEOUT_MS = 10000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final String dbUrl;
+    private final int maxReaders;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<Connection> idleReaders;
+    private final List<Connection> openReaders = new ArrayList<>();
+    private final Map<Connection, StatementCache> statementCaches = Collections.synchronizedMap(new IdentityHashMap<>());
+    private Connection writer;
+    private volatile boolean closed = false;
+
+
+    public ConnectionPool(String dbUrl, int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("A pool needs at least one read connection");
+        }
+        this.dbUrl = dbUrl;
+        this.maxReaders = maxReaders;
+        this.idleReaders = new ArrayBlockingQueue<>(maxReaders);
+    }
+
+
+    //==========================
+    //==== WRITE CONNECTION ====
+    //==========================
+
+    // Single writer, reopened if a caller closed it. Hold writeLock() while using it
+    public synchronized Connection writer() throws SQLException {
+        ensureOpen();
+        if (writer == null || writer.isClosed()) {
+            discardStatements(writer);
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setBusyTimeout(BUSY_TIMEOUT_MS);
+            writer = config.createConnection(dbUrl);
+        }
+        return writer;
+    }
+
+    // Serializes writers across threads (re-entrant for the owning thread)
+    public ReentrantLock writeLock() {
+        return writeLock;
+    }
+
+
+    //==========================
+    //==== READ CONNECTIONS ====
+    //==========================
+
+    // Take an idle reader, open a new one below the limit, or wait for one to be released
+    public Connection acquireReader() throws SQLException {
+        ensureOpen();
+        Connection reader = idleReaders.poll();
+        if (reader == null) {
+            reader = openReaderIfBelowLimit();
+        }
+        if (reader == null) {
+            try {
+                reader = idleReaders.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a read connection", e);
+            }
+            if (reader == null) {
+                throw new SQLException("No read connection available after " + ACQUIRE_TIMEOUT_MS + " ms");
+            }
+        }
+        return reader;
+    }
+
+    // Give a reader back; once the pool is closed the reader is closed instead
+    public synchronized void releaseReader(Connection reader) {
+        if (reader == null) return;
+        if (closed || isClosedQuietly(reader) || !idleReaders.offer(reader)) {
+            openReaders.remove(reader);
+            discardStatements(reader);
+            closeQuietly(reader);
+        }
+    }
+
+    private synchronized Connection openReaderIfBelowLimit() throws SQLException {
+        if (openReaders.size() >= maxReaders) {
+            return null;
+        }
+
+        // The writer creates the file and switches it to WAL before any read-only handle opens it
+        writer();
+
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        Connection reader = config.createConnection(dbUrl);
+        openReaders.add(reader);
+        return reader;
+    }
+
+
+    //==========================
+    //==== STATEMENT CACHES ====
+    //==========================
+
+    // Prepared statements cached for a pooled connection
+    public StatementCache statements(Connection conn) {
+        return statementCaches.computeIfAbsent(conn, c -> new StatementCache(c, STATEMENT_CACHE_SIZE));
+    }
+
+    private void discardStatements(Connection conn) {
+        if (conn == null) return;
+        StatementCache cache = statementCaches.remove(conn);
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+
+    //=================
+    //==== CLOSING ====
+    //=================
+
+    // Waits for the running write, then closes the writer and idle readers.
+    // Readers still bound to a thread are closed when that thread releases them.
+    public void close() {
+        writeLock.lock();
+        try {
+            synchronized (this) {
+                closed = true;
+                Connection idle;
+                while ((idle = idleReaders.poll()) != null) {
+                    openReaders.remove(idle);
+                    discardStatements(idle);
+                    closeQuietly(idle);
+                }
+                discardStatements(writer);
+                closeQuietly(writer);
+                writer = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getDbUrl() {
+        return dbUrl;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool for " + dbUrl + " is closed");
+        }
+    }
+
+    private static boolean isClosedQuietly(Connection conn) {
+        try {
+            return conn.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+}
@@ -1,127 +1,88 @@
 package it.glucotrack.util;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DatabaseInitializer {
 
     public static void initializeDatabase() {
         try {
-
-            // Create a  connection
-            Connection conn = DatabaseInteraction.connect();
-
-            if (!tablesExist(conn)) {
-                //Execute the SQLSchema
-                executeSchemaSQL(conn);
-
-                // Populate with Mock Data
-                DatabaseMockData.populateDatabase();
-            }
-
-            DatabaseMockData.printDatabaseContents();
-
+            initialize();
         } catch (SQLException e) {
             System.err.println("Error during the initialization: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private static void executeSchemaSQL(Connection conn) throws SQLException {
-        try {
-
-            InputStream inputStream = DatabaseInitializer.class
-                .getClassLoader()
-                .getResourceAsStream("database/Schema.sql");
-            
-            if (inputStream == null) {
-                throw new RuntimeException("File Schema.sql not found in resources/database/");
-            }
-            
-            StringBuilder sqlContent = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sqlContent.append(line).append("\n");
-                }
-            }
+    // Each step is a timed startup phase; the table dump only runs in diagnostics mode
+    public static void initialize() throws SQLException {
+        // Create a  connection
+        long start = System.nanoTime();
+        Connection conn = DatabaseInteraction.connect();
+        boolean newDatabase = !tablesExist(conn);
+        StartupPipeline.record("open database", start);
 
-            // Execute the schema
-            try (Statement stmt = conn.createStatement()) {
-                String[] statements = sqlContent.toString().split(";");
-                
-                // Execute the CREATE TABLE
-                for (String sql : statements) {
-                    String cleanSql = cleanSqlStatement(sql);
-                    if (!cleanSql.isEmpty() && cleanSql.toUpperCase().startsWith("CREATE TABLE")) {
-                        try {
-                            stmt.execute(cleanSql);
-                            System.out.println("Created: " + extractTableName(cleanSql));
-                        } catch (SQLException e) {
-                            System.err.println("Error during the creation of " + cleanSql.substring(0, Math.min(100, cleanSql.length())));
-                            throw e;
-                        }
-                    }
-                }
+        // Create the schema, or bring an existing database up to date in place
+        StartupPipeline.timed("migrations", SchemaMigrator::migrate);
 
+        if (newDatabase) {
+            // Populate with Mock Data
+            StartupPipeline.timed("mock data", DatabaseMockData::populateDatabase);
+        } else {
+            StartupPipeline.timed("glucose rollups", GlucoseRollupDAO::rebuildIfEmpty);
+        }
 
-                // Execute index and other statements
-                for (String sql : statements) {
-                    String cleanSql = cleanSqlStatement(sql);
-                    if (!cleanSql.isEmpty() && !cleanSql.toUpperCase().startsWith("CREATE TABLE")) {
-                        try {
-                            stmt.execute(cleanSql);
-                            if (cleanSql.toUpperCase().startsWith("CREATE INDEX")) {
-                                System.out.println("Idex created: " + extractIndexName(cleanSql));
-                            }
-                        } catch (SQLException e) {
-                            System.err.println("Error during the execution of " + cleanSql.substring(0, Math.min(100, cleanSql.length())));
-                            throw e;
-                        }
-                    }
-                }
-            }
-            
-        } catch (IOException e) {
-            throw new SQLException("Error during Schema.sql reading", e);
+        if (StartupPipeline.isDiagnosticsMode()) {
+            StartupPipeline.timed("diagnostics dump", DatabaseMockData::printDatabaseContents);
         }
     }
 
+    // Drops and recreates everything in one transaction on the writer: readers keep seeing the old
+    // data until the new one is committed, and no other write can run in between
     public static void resetDatabase() {
+        // The sweeper would store alerts of patients about to disappear; it is started again afterwards
+        boolean sweeping = AlertSweeper.isRunning();
+        AlertSweeper.stop();
+        AlertEngine.getInstance().reset();
         try {
+            DatabaseInteraction.inTransaction(conn -> {
+                // Drop all the tables (schema_version included, so every migration runs again).
+                // Virtual tables first: that drops their shadow tables too, instead of leaving a broken index
+                List<String> tables = new ArrayList<>();
+                try (ResultSet rs = DatabaseInteraction.executeQuery(
+                        "SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%' " +
+                        "ORDER BY sql LIKE 'CREATE VIRTUAL TABLE%' DESC")) {
+                    while (rs.next()) {
+                        tables.add(rs.getString("name"));
+                    }
+                }
 
-            Connection conn = DatabaseInteraction.connect();
-            
-            // Drop all the tables
-            String[] tables = {
-                "medication_edits", "risk_factors", "patient_symptoms", 
-                "log_medications", "medications", "glucose_measurements", 
-                "users"
-            };
-            
-            try (Statement stmt = conn.createStatement()) {
-                for (String table : tables) {
-                    try {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String table : tables) {
                         stmt.execute("DROP TABLE IF EXISTS " + table);
-                    } catch (SQLException e) {
-                        // Ignore errors if table doesn't exist
                     }
                 }
-            }
-            
-            // Recreate everything
-            executeSchemaSQL(conn);
-            DatabaseMockData.populateDatabase();
-            
+
+                // Recreate everything
+                SchemaMigrator.migrate();
+                DatabaseMockData.populateDatabase();
+            });
+            // Ids are reused by the new rows
+            EntityCache.invalidateAllCaches();
+            AlertEngine.getInstance().reset();
+
             System.out.println("Database recreated!");
-            
+
         } catch (SQLException e) {
             System.err.println("Errore during the reset: " + e.getMessage());
+        } finally {
+            if (sweeping) {
+                AlertSweeper.start();
+            }
         }
     }
 
@@ -136,55 +97,6 @@ public class DatabaseInitializer {
         }
     }
 
-    //========================
-    //==== HELPER METHODS ====
-    //========================
-
-    private static String cleanSqlStatement(String sql) {
-        if (sql == null) return "";
-        
-        String[] lines = sql.split("\n");
-        StringBuilder cleanSql = new StringBuilder();
-        
-        for (String line : lines) {
-            String cleanLine = line.trim();
-            if (!cleanLine.isEmpty() && !cleanLine.startsWith("--")) {
-
-                int commentIndex = cleanLine.indexOf("--");
-                if (commentIndex > 0) {
-                    cleanLine = cleanLine.substring(0, commentIndex).trim();
-                }
-                if (!cleanLine.isEmpty()) {
-                    cleanSql.append(cleanLine).append(" ");
-                }
-            }
-        }
-        
-        return cleanSql.toString().trim();
-    }
-    
-    private static String extractTableName(String createTableSql) {
-
-        String[] parts = createTableSql.split("\\s+");
-        for (int i = 0; i < parts.length - 1; i++) {
-            if (parts[i].equalsIgnoreCase("TABLE")) {
-                return parts[i + 1];
-            }
-        }
-        return "unknown";
-    }
-    
-    private static String extractIndexName(String createIndexSql) {
-
-        String[] parts = createIndexSql.split("\\s+");
-        for (int i = 0; i < parts.length - 1; i++) {
-            if (parts[i].equalsIgnoreCase("INDEX")) {
-                return parts[i + 1];
-            }
-        }
-        return "unknown";
-    }
-
     // Main for test
     public static void main(String[] args) {
         if (args.length > 0 && args[0].equals("reset")) {
@@ -1,75 +1,366 @@
 package it.glucotrack.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import it.glucotrack.model.KeysetPage;
 
 /*
 * DATABASE INTERACTION
+* Reads run on a read-only connection bound to the calling thread,
+* writes are serialized on the single writer connection of the pool.
+* Statements are prepared once per connection and kept in an LRU cache.
+* inTransaction() groups several writes into one commit; DAO calls made
+* inside it (on the same thread) join the transaction automatically, each
+* nested unit under a savepoint of its own.
 */
 
 public class DatabaseInteraction {
 
     private static String dbUrl = "jdbc:sqlite:src/main/resources/database/glucotrack_db.sqlite";
-    private static Connection connection = null;
+    // One per thread that reads at the same time: the JavaFX thread, the 2 AsyncLoader threads,
+    // the 3 AlertEvaluationService workers, the alert sweeper and the view prewarm thread
+    private static final int READ_CONNECTIONS = 8;
+    // Rows fetched per round trip by the streaming queries
+    public static final int STREAM_FETCH_SIZE = 500;
+    private static ConnectionPool pool = null;
+    private static final ThreadLocal<ReaderLease> threadReader = new ThreadLocal<>();
+    private static volatile Consumer<String> queryObserver = null;
 
 
 
     // Change DB for Tests
     public static void setDatabasePath(String path) {
-        dbUrl = "jdbc:sqlite:" + path;
-        disconnect(); // Ensure new connection uses the new path
+        synchronized (DatabaseInteraction.class) {
+            dbUrl = "jdbc:sqlite:" + path;
+            disconnect(); // Ensure new connections use the new path
+        }
+        EntityCache.invalidateAllCaches();
+        // Outside the class lock: the engine takes its own lock before reading through the pool
+        AlertEngine.getInstance().reset();
     }
 
 
-    // Open a connection to the DB (singleton pattern)
+    // Writer connection of the pool (DDL, batches). Do not close it
     public static Connection connect() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(dbUrl);
+        return pool().writer();
+    }
+
+
+    // Close every pooled connection; in-flight reads finish on their own thread
+    public static synchronized void disconnect() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
-        return connection;
     }
 
 
-    // Close DB connection
-    public static void disconnect() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+    // Give the current thread's read connection back to the pool (call when a worker thread is done,
+    // or before waiting on threads that need readers of their own). No result set of it may be open
+    public static void releaseThreadConnection() {
+        ReaderLease lease = threadReader.get();
+        if (lease != null) {
+            threadReader.remove();
+            lease.pool.releaseReader(lease.connection);
         }
     }
 
 
-    //Execute a SELECT query (returns java.sql.ResultSet, caller must close it)
+    //Execute a SELECT query (returns java.sql.ResultSet, caller must close it; the statement stays cached)
     public static java.sql.ResultSet executeQuery(String sql, Object... params) throws SQLException {
-        Connection conn = connect();
-        java.sql.PreparedStatement stmt = conn.prepareStatement(sql);
-        setParameters(stmt, params);
-        return stmt.executeQuery();
+        notifyObserver(sql);
+        ConnectionPool current = pool();
+        if (current.writeLock().isHeldByCurrentThread()) {
+            // Inside a transaction: read on the writer to see our own uncommitted rows
+            return current.statements(current.writer()).executeQuery(sql, params);
+        }
+        Connection conn = readConnection(current);
+        return current.statements(conn).executeQuery(sql, params);
     }
 
 
     //Execute an INSERT/UPDATE/DELETE (returns affected rows)
     public static int executeUpdate(String sql, Object... params) throws SQLException {
-        Connection conn = connect();
-        java.sql.PreparedStatement stmt = conn.prepareStatement(sql);
-        setParameters(stmt, params);
-        return stmt.executeUpdate();
+        notifyObserver(sql);
+        ConnectionPool current = pool();
+        current.writeLock().lock();
+        try {
+            Connection conn = current.writer();
+            return current.statements(conn).executeUpdate(sql, params);
+        } finally {
+            current.writeLock().unlock();
+        }
+    }
+
+
+    //Execute the same INSERT/UPDATE/DELETE once per parameter row, in a single transaction
+    public static int[] executeBatch(String sql, List<Object[]> rows) throws SQLException {
+        notifyObserver(sql);
+        return inTransactionReturning(conn -> pool().statements(conn).executeBatch(sql, rows));
+    }
+
+
+    //===================
+    //==== STREAMING ====
+    //===================
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(ResultSet rs) throws SQLException;
+    }
+
+    // Rows mapped one at a time while the ResultSet stays open: close the stream (try-with-resources)
+    // to release it. Consume it on the calling thread, which owns the read connection.
+    // SQL errors while iterating are rethrown as RuntimeException with the SQLException as cause.
+    public static <T> Stream<T> streamQuery(String sql, int fetchSize, RowMapper<T> mapper, Object... params) throws SQLException {
+        ResultSet rs = executeQuery(sql, params);
+        try {
+            rs.setFetchSize(fetchSize);
+        } catch (SQLException e) {
+            closeQuietly(rs);
+            throw e;
+        }
+
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (rs.isClosed() || !rs.next()) {
+                        // Exhausted: give the statement back even if the caller forgets to close
+                        closeQuietly(rs);
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    closeQuietly(rs);
+                    throw new RuntimeException("Error while streaming rows: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(rs));
+    }
+
+    // Callback variant: same constant memory, checked exceptions, closes by itself. Returns the row count
+    public static int forEachRow(String sql, int fetchSize, RowVisitor visitor, Object... params) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = executeQuery(sql, params)) {
+            rs.setFetchSize(fetchSize);
+            while (rs.next()) {
+                visitor.visit(rs);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void closeQuietly(ResultSet rs) {
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing result set: " + e.getMessage());
+        }
+    }
+
+
+    //================
+    //==== PAGING ====
+    //================
+
+    // Condition for the rows after a key in "ORDER BY sortColumn DESC, idColumn DESC" order
+    public static String keysetCondition(String sortColumn, String idColumn) {
+        return "(" + sortColumn + " < ? OR (" + sortColumn + " = ? AND " + idColumn + " < ?))";
+    }
+
+    public static void addKeysetParams(List<Object> params, KeysetPage.Key after) {
+        params.add(after.getSortValue());
+        params.add(after.getSortValue());
+        params.add(after.getId());
+    }
+
+    // Runs sql (ending in "LIMIT ?") for limit + 1 rows: the extra row only says whether a next page exists.
+    // The key is read from the result columns sortLabel and idLabel of the last returned row
+    public static <T> KeysetPage<T> queryPage(String sql, int limit, String sortLabel, String idLabel,
+                                              RowMapper<T> mapper, List<Object> params) throws SQLException {
+        Object[] args = Arrays.copyOf(params.toArray(), params.size() + 1);
+        args[params.size()] = limit + 1;
+
+        List<T> items = new ArrayList<>(limit);
+        KeysetPage.Key lastKey = null;
+        boolean more = false;
+        try (ResultSet rs = executeQuery(sql, args)) {
+            while (rs.next()) {
+                if (items.size() == limit) {
+                    more = true;
+                    break;
+                }
+                items.add(mapper.map(rs));
+                lastKey = new KeysetPage.Key(rs.getObject(sortLabel), rs.getInt(idLabel));
+            }
+        }
+        return new KeysetPage<>(items, more ? lastKey : null);
     }
 
 
-    //Utility: set parameters for PreparedStatement
-    private static void setParameters(java.sql.PreparedStatement stmt, Object... params) throws SQLException {
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
+    //=====================
+    //==== QUERY PLANS ====
+    //=====================
+
+    // Diagnostics: sees the SQL of every query and update run through this class (null to stop)
+    public static void setQueryObserver(Consumer<String> observer) {
+        queryObserver = observer;
+    }
+
+    // Detail lines of EXPLAIN QUERY PLAN for sql; parameters left unbound plan as NULL
+    public static List<String> explainQueryPlan(String sql, Object... params) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (ResultSet rs = executeQuery("EXPLAIN QUERY PLAN " + sql, params)) {
+            while (rs.next()) {
+                plan.add(rs.getString("detail"));
+            }
         }
+        return plan;
+    }
+
+    private static void notifyObserver(String sql) {
+        Consumer<String> observer = queryObserver;
+        if (observer != null && !sql.startsWith("EXPLAIN ")) {
+            observer.accept(sql);
+        }
+    }
+
+
+    //======================
+    //==== TRANSACTIONS ====
+    //======================
+
+    @FunctionalInterface
+    public interface UnitOfWork {
+        void execute(Connection conn) throws SQLException;
     }
 
-    private static void changePath(String path) {
-        dbUrl = "jdbc:sqlite:" + path;
-        disconnect(); // Ensure new connection uses the new path
+    @FunctionalInterface
+    public interface UnitOfWorkResult<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    // Run the work as one atomic commit. A nested call joins the outer transaction under a savepoint:
+    // if it fails, its own writes are undone, so an outer caller that catches the error commits none of them
+    public static void inTransaction(UnitOfWork work) throws SQLException {
+        inTransactionReturning(conn -> {
+            work.execute(conn);
+            return null;
+        });
+    }
+
+    public static <T> T inTransactionReturning(UnitOfWorkResult<T> work) throws SQLException {
+        ConnectionPool current = pool();
+        ReentrantLock lock = current.writeLock();
+        lock.lock();
+        try {
+            Connection conn = current.writer();
+            if (!conn.getAutoCommit()) {
+                // Already inside a transaction on this thread: join it
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    T result = work.execute(conn);
+                    conn.releaseSavepoint(savepoint);
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    rollbackQuietly(conn, savepoint);
+                    throw e;
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                T result = work.execute(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static boolean isInTransaction() {
+        ConnectionPool current = pool;
+        return current != null && current.writeLock().isHeldByCurrentThread();
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error during rollback: " + e.getMessage());
+        }
+    }
+
+    // Undo the writes made since the savepoint and drop it; the outer transaction goes on
+    private static void rollbackQuietly(Connection conn, Savepoint savepoint) {
+        try {
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            System.err.println("Error during rollback to savepoint: " + e.getMessage());
+        }
+    }
+
+
+    //==========================
+    //==== POOL MANAGEMENT ====
+    //==========================
+
+    private static synchronized ConnectionPool pool() {
+        if (pool == null || pool.isClosed()) {
+            pool = new ConnectionPool(dbUrl, READ_CONNECTIONS);
+        }
+        return pool;
+    }
+
+    // Read connection bound to the current thread; a lease from a replaced pool is returned first
+    private static Connection readConnection(ConnectionPool current) throws SQLException {
+        ReaderLease lease = threadReader.get();
+        if (lease != null) {
+            if (lease.pool == current && !lease.connection.isClosed()) {
+                return lease.connection;
+            }
+            releaseThreadConnection();
+        }
+        Connection reader = current.acquireReader();
+        threadReader.set(new ReaderLease(current, reader));
+        return reader;
+    }
+
+    private static final class ReaderLease {
+        private final ConnectionPool pool;
+        private final Connection connection;
+
+        private ReaderLease(ConnectionPool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@
     import java.time.LocalDate;
     import java.time.LocalDateTime;
     import java.time.LocalTime;
+    import java.util.ArrayList;
     import java.util.List;
     import java.util.Random;
 
@@ -39,32 +40,35 @@
                 MedicationDAO medicationDAO = new MedicationDAO();
                 GlucoseMeasurementDAO glucoseDAO = new GlucoseMeasurementDAO();
 
-                // 1. Create Admins
-                createMockAdmins(adminDAO);
+                // Whole population in one transaction: a single commit instead of one per row
+                DatabaseInteraction.inTransaction(conn -> {
+                    // 1. Create Admins
+                    createMockAdmins(adminDAO);
 
-                // 2. Create Doctors
-                createMockDoctors(doctorDAO);
+                    // 2. Create Doctors
+                    createMockDoctors(doctorDAO);
 
-                // 3. Create Patients
-                createMockPatients(patientDAO);
+                    // 3. Create Patients
+                    createMockPatients(patientDAO);
 
-                // 4. Create Medications
-                createMockMedications(medicationDAO, userDAO);
+                    // 4. Create Medications
+                    createMockMedications(medicationDAO, userDAO);
 
-                // 5. Create Log Medications
-                LogMedicationDAO logMedicationDAO = new LogMedicationDAO();
-                createMockLogMedications(logMedicationDAO, medicationDAO, userDAO);
+                    // 5. Create Log Medications
+                    LogMedicationDAO logMedicationDAO = new LogMedicationDAO();
+                    createMockLogMedications(logMedicationDAO, medicationDAO, userDAO);
 
-                // 6. Create Glucose Measurements
-                createMockGlucoseMeasurements(glucoseDAO, userDAO);
+                    // 6. Create Glucose Measurements
+                    createMockGlucoseMeasurements(glucoseDAO, userDAO);
 
-                // 7. Create Symptoms
-                SymptomDAO symptomDAO = new SymptomDAO();
-                createMockSymptoms(symptomDAO, userDAO);
+                    // 7. Create Symptoms
+                    SymptomDAO symptomDAO = new SymptomDAO();
+                    createMockSymptoms(symptomDAO, userDAO);
 
-                // 8. Create Risk Factors
-                RiskFactorDAO riskFactorDAO = new RiskFactorDAO();
-                createMockRiskFactors(riskFactorDAO, userDAO);
+                    // 8. Create Risk Factors
+                    RiskFactorDAO riskFactorDAO = new RiskFactorDAO();
+                    createMockRiskFactors(riskFactorDAO, userDAO);
+                });
 
                 System.out.println("Database populated");
                 printDatabaseStats(userDAO, medicationDAO);
@@ -408,6 +412,7 @@
                     List<Medication> medications = medicationDAO.getMedicationsByPatientId(patient.getId());
 
                     for (Medication medication : medications) {
+                        List<LogMedication> medicationLogs = new ArrayList<>();
                         LocalDate startDate = LocalDate.now().minusDays(30);
                         LocalDate endDate = LocalDate.now().plusDays(7);
 
@@ -435,10 +440,11 @@
                                     taken
                                 );
 
-                                logMedicationDAO.insertLogMedication(logMedication);
+                                medicationLogs.add(logMedication);
                                 logCount++;
                             }
                         }
+                        logMedicationDAO.insertBatchLogMedications(medicationLogs);
                     }
                 } catch (Exception e) {
                     System.err.println("Error during the log medications creation for patient " + patient.getName() + ": " + e.getMessage());
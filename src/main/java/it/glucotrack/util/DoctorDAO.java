@@ -20,7 +20,7 @@ public class DoctorDAO {
     //========================
 
     public static Doctor getDoctorById(int id) throws SQLException {
-        String sql = "SELECT * FROM users WHERE id = ? AND type = 'DOCTOR'";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE id = ? AND type = 'DOCTOR'";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
             if (rs.next()) {
                 return mapResultSetToDoctor(rs);
@@ -30,7 +30,7 @@ public class DoctorDAO {
     }
 
     public static List<Doctor> getAllDoctors() throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'DOCTOR' ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'DOCTOR' ORDER BY surname, name";
         List<Doctor> doctors = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql)) {
             while (rs.next()) {
@@ -41,7 +41,7 @@ public class DoctorDAO {
     }
 
     public Doctor getDoctorByEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM users WHERE email = ? AND type = 'DOCTOR'";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE email = ? AND type = 'DOCTOR'";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, email)) {
             if (rs.next()) {
                 return mapResultSetToDoctor(rs);
@@ -51,7 +51,7 @@ public class DoctorDAO {
     }
 
     public List<Doctor> getDoctorsBySpecialization(String specialization) throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'DOCTOR' AND specialization = ? ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'DOCTOR' AND specialization = ? ORDER BY surname, name";
         List<Doctor> doctors = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, specialization)) {
             while (rs.next()) {
@@ -62,7 +62,7 @@ public class DoctorDAO {
     }
 
     public List<Doctor> searchDoctors(String searchTerm) throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'DOCTOR' AND (name LIKE ? OR surname LIKE ? OR email LIKE ? OR specialization LIKE ?) ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'DOCTOR' AND (name LIKE ? OR surname LIKE ? OR email LIKE ? OR specialization LIKE ?) ORDER BY surname, name";
         String searchPattern = "%" + searchTerm + "%";
         List<Doctor> doctors = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, searchPattern, searchPattern, searchPattern, searchPattern)) {
@@ -73,6 +73,11 @@ public class DoctorDAO {
         return doctors;
     }
 
+    // Type-ahead search on the full-text index, best matches first (see UserDAO.searchProfiles)
+    public List<Doctor> searchDoctorsByPrefix(String searchTerm, int limit) throws SQLException {
+        return UserDAO.searchProfiles("DOCTOR", searchTerm, limit, DoctorDAO::mapResultSetToDoctor);
+    }
+
     public int getPatientCountByDoctorId(int doctorId) throws SQLException {
         String sql = "SELECT COUNT(*) as patient_count FROM users WHERE type = 'PATIENT' AND doctor_id = ?";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, doctorId)) {
@@ -104,7 +109,7 @@ public class DoctorDAO {
 
         String sql = "INSERT INTO users (name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, specialization) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'DOCTOR', ?)";
         int rows = DatabaseInteraction.executeUpdate(sql,
-                doctor.getName(), doctor.getSurname(), doctor.getEmail(), PasswordUtils.encryptPassword(doctor.getPassword(), doctor.getEmail()),
+                doctor.getName(), doctor.getSurname(), doctor.getEmail(), PasswordUtils.hashPassword(doctor.getPassword()),
                 doctor.getBornDate(), doctor.getGender().toString(), doctor.getPhone(),
                 doctor.getBirthPlace(), doctor.getFiscalCode(), doctor.getSpecialization());
         return rows > 0;
@@ -117,10 +122,12 @@ public class DoctorDAO {
 
     public static boolean updateDoctor(Doctor doctor) throws SQLException {
         String sql = "UPDATE users SET name=?, surname=?, email=?, password=?, born_date=?, gender=?, phone=?, birth_place=?, fiscal_code=?, specialization=? WHERE id=? AND type='DOCTOR'";
-        int rows = DatabaseInteraction.executeUpdate(sql,
-                doctor.getName(), doctor.getSurname(), doctor.getEmail(), PasswordUtils.encryptPassword(doctor.getPassword(), doctor.getEmail()),
+        // A profile loaded from the DAO has no password: keep the stored one (re-keyed if the email changes)
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> DatabaseInteraction.executeUpdate(sql,
+                doctor.getName(), doctor.getSurname(), doctor.getEmail(), UserDAO.credentialForUpdate(doctor.getId(), doctor.getEmail(), doctor.getPassword()),
                 doctor.getBornDate(), doctor.getGender().toString(), doctor.getPhone(),
-                doctor.getBirthPlace(), doctor.getFiscalCode(), doctor.getSpecialization(), doctor.getId());
+                doctor.getBirthPlace(), doctor.getFiscalCode(), doctor.getSpecialization(), doctor.getId()));
+        UserDAO.invalidateHeader(doctor.getId());
         return rows > 0;
     }
 
@@ -132,6 +139,7 @@ public class DoctorDAO {
     public boolean deleteDoctor(int id) throws SQLException {
         String sql = "DELETE FROM users WHERE id = ? AND type = 'DOCTOR'";
         int rows = DatabaseInteraction.executeUpdate(sql, id);
+        UserDAO.invalidateHeader(id);
         return rows > 0;
     }
 
@@ -146,7 +154,7 @@ public class DoctorDAO {
             rs.getString("name"),
             rs.getString("surname"),
             rs.getString("email"),
-            PasswordUtils.decryptPassword(rs.getString("password"), rs.getString("email")),
+            null, // credentials are not loaded with the profile
                 java.time.LocalDate.parse(rs.getString("born_date")),
             Gender.valueOf(rs.getString("gender").toUpperCase()),
             rs.getString("phone"),
@@ -0,0 +1,110 @@
+package it.glucotrack.util;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+* ENTITY CACHE
+* Bounded LRU map id -> immutable header (UserHeader, MedicationHeader) for the lookups
+* done once per table row, so scrolling a table does not query the same row again and again.
+* The DAOs own one cache each and invalidate it in every method that changes the table,
+* once the change is committed. Every invalidation bumps a generation: a value read before it
+* is not stored after it, so a read racing with a write cannot put the old row back.
+* Nothing is stored inside a transaction, which could still roll back.
+*/
+
+public class EntityCache<V> {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load(int id) throws SQLException;
+    }
+
+    // Every cache, so a database switch or reset can clear them all
+    private static final List<EntityCache<?>> caches = new CopyOnWriteArrayList<>();
+
+    private final LinkedHashMap<Integer, V> entries;
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+
+    public EntityCache(int capacity) {
+        this.entries = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > capacity;
+            }
+        };
+        caches.add(this);
+    }
+
+
+    //=================
+    //==== LOOKUPS ====
+    //=================
+
+    // Cached value, or the loader's; a null (missing row) is not cached
+    public V get(int id, Loader<V> loader) throws SQLException {
+        long stamp;
+        synchronized (this) {
+            V cached = entries.get(id);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            stamp = generation;
+        }
+        V loaded = loader.load(id);
+        if (loaded != null) {
+            put(id, loaded, stamp);
+        }
+        return loaded;
+    }
+
+    // Take before a query whose rows are then put(): see put()
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    // Store a value read by a query started at stamp, unless something changed since
+    public synchronized void put(int id, V value, long stamp) {
+        if (stamp != generation || DatabaseInteraction.isInTransaction()) return;
+        entries.put(id, value);
+    }
+
+
+    //======================
+    //==== INVALIDATION ====
+    //======================
+
+    public synchronized void invalidate(int id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    // Another database file, or the same one recreated
+    public static void invalidateAllCaches() {
+        for (EntityCache<?> cache : caches) {
+            cache.invalidateAll();
+        }
+    }
+
+
+    //====================
+    //==== STATISTICS ====
+    //====================
+
+    public synchronized int size() {return entries.size();}
+    public synchronized long getHits() {return hits;}
+    public synchronized long getMisses() {return misses;}
+}
@@ -2,11 +2,16 @@ package it.glucotrack.util;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import it.glucotrack.model.GlucoseMeasurement;
+import it.glucotrack.model.GlucoseSeries;
+import it.glucotrack.model.KeysetPage;
 
 /*
 * GLUCOSE MEASUREMENT DAO
@@ -40,6 +45,19 @@ public class GlucoseMeasurementDAO {
         return measurements;
     }
 
+    // Whole history as primitive arrays, filled straight from the ResultSet without one object per reading
+    public static GlucoseSeries getGlucoseSeriesByPatientId(int patientId) throws SQLException {
+        String sql = "SELECT id, measurement_time, value, type FROM glucose_measurements WHERE patient_id = ? ORDER BY measurement_time ASC";
+        return fillSeries(patientId, sql, patientId);
+    }
+
+    // Readings in [startDate, endDate) only, for views that show one period (index on patient_id, measurement_time)
+    public static GlucoseSeries getGlucoseSeriesByDateRange(int patientId, LocalDateTime startDate, LocalDateTime endDate) throws SQLException {
+        String sql = "SELECT id, measurement_time, value, type FROM glucose_measurements " +
+                     "WHERE patient_id = ? AND measurement_time >= ? AND measurement_time < ? ORDER BY measurement_time ASC";
+        return fillSeries(patientId, sql, patientId, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate));
+    }
+
     public GlucoseMeasurement getLatestMeasurementByPatientId(int patientId) throws SQLException {
         String sql = "SELECT * FROM glucose_measurements WHERE patient_id = ? ORDER BY measurement_time DESC LIMIT 1";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId)) {
@@ -50,6 +68,17 @@ public class GlucoseMeasurementDAO {
         return null;
     }
 
+    // Oldest reading at or after the given time (index on patient_id, measurement_time)
+    public static GlucoseMeasurement getFirstMeasurementSince(int patientId, LocalDateTime from) throws SQLException {
+        String sql = "SELECT * FROM glucose_measurements WHERE patient_id = ? AND measurement_time >= ? ORDER BY measurement_time ASC LIMIT 1";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId, Timestamp.valueOf(from))) {
+            if (rs.next()) {
+                return mapResultSetToGlucoseMeasurement(rs);
+            }
+        }
+        return null;
+    }
+
     public List<GlucoseMeasurement> getGlucoseMeasurementsByDateRange(int patientId, LocalDateTime startDate, LocalDateTime endDate) throws SQLException {
         String sql = "SELECT * FROM glucose_measurements WHERE patient_id = ? AND measurement_time BETWEEN ? AND ? ORDER BY measurement_time DESC";
         List<GlucoseMeasurement> measurements = new ArrayList<>();
@@ -71,14 +100,9 @@ public class GlucoseMeasurementDAO {
         return null;
     }
 
+    // Answered from the rollups (measurement_time is stored as epoch millis, not as a datetime() string)
     public double getAverageGlucoseLevel(int patientId, int days) throws SQLException {
-        String sql = "SELECT AVG(value) as avg_glucose FROM glucose_measurements WHERE patient_id = ? AND measurement_time >= datetime('now', '-' || ? || ' days')";
-        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId, days)) {
-            if (rs.next()) {
-                return rs.getDouble("avg_glucose");
-            }
-        }
-        return 0.0;
+        return GlucoseRollupDAO.getRecentStats(patientId, days).getAverage();
     }
 
     public GlucoseMeasurement findGlucoseMeasurement(int patientId, LocalDateTime dateTime, float value) throws SQLException {
@@ -103,18 +127,72 @@ public class GlucoseMeasurementDAO {
     }
 
 
+    private static Map<Integer, String> getNotesByPatientId(int patientId) {
+        String sql = "SELECT id, notes FROM glucose_measurements WHERE patient_id = ? AND notes IS NOT NULL AND notes <> ''";
+        Map<Integer, String> notes = new HashMap<>();
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId)) {
+            while (rs.next()) {
+                notes.put(rs.getInt(1), rs.getString(2));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading glucose notes for patient ID " + patientId + ": " + e.getMessage());
+        }
+        return notes;
+    }
+
+
+    //=========================
+    //==== PAGE OPERATIONS ====
+    //=========================
+
+    // Newest first, one keyset page at a time. Null bounds or a null type are not filtered:
+    // the table filters run here in SQL instead of over the whole history in memory
+    public static KeysetPage<GlucoseMeasurement> getGlucoseMeasurementsPage(int patientId, LocalDateTime from, LocalDateTime to,
+                                                                            String type, KeysetPage.Key after, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM glucose_measurements WHERE patient_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(patientId);
+        if (from != null) {
+            sql.append(" AND measurement_time >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND measurement_time < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+        if (type != null) {
+            sql.append(" AND type = ?");
+            params.add(type);
+        }
+        if (after != null) {
+            sql.append(" AND ").append(DatabaseInteraction.keysetCondition("measurement_time", "id"));
+            DatabaseInteraction.addKeysetParams(params, after);
+        }
+        sql.append(" ORDER BY measurement_time DESC, id DESC LIMIT ?");
+        return DatabaseInteraction.queryPage(sql.toString(), limit, "measurement_time", "id",
+                GlucoseMeasurementDAO::mapResultSetToGlucoseMeasurement, params);
+    }
+
+
     //===========================
     //==== INSERT OPERATIONS ====
     //===========================
 
     public boolean insertGlucoseMeasurement(GlucoseMeasurement measurement) throws SQLException {
         String sql = "INSERT INTO glucose_measurements (patient_id, value, measurement_time, type, notes) VALUES (?, ?, ?, ?, ?)";
-        int rows = DatabaseInteraction.executeUpdate(sql,
-                measurement.getPatientId(), 
-                (int) measurement.getGlucoseLevel(), 
-                java.sql.Timestamp.valueOf(measurement.getDateAndTime()),
-                measurement.getType(),
-                measurement.getNotes());
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> {
+            int inserted = DatabaseInteraction.executeUpdate(sql,
+                    measurement.getPatientId(),
+                    (int) measurement.getGlucoseLevel(),
+                    java.sql.Timestamp.valueOf(measurement.getDateAndTime()),
+                    measurement.getType(),
+                    measurement.getNotes());
+            if (inserted > 0) {
+                GlucoseRollupDAO.addMeasurement(measurement.getPatientId(), measurement.getDateAndTime(), (int) measurement.getGlucoseLevel());
+            }
+            return inserted;
+        });
+        AlertEngine.getInstance().onGlucoseChanged(measurement.getPatientId());
         return rows > 0;
     }
 
@@ -125,13 +203,28 @@ public class GlucoseMeasurementDAO {
 
     public boolean updateGlucoseMeasurement(GlucoseMeasurement measurement) throws SQLException {
         String sql = "UPDATE glucose_measurements SET patient_id=?, value=?, measurement_time=?, type=?, notes=? WHERE id=?";
-        int rows = DatabaseInteraction.executeUpdate(sql,
-                measurement.getPatientId(), 
-                (int) measurement.getGlucoseLevel(), 
-                java.sql.Timestamp.valueOf(measurement.getDateAndTime()),
-                measurement.getType(),
-                measurement.getNotes(),
-                measurement.getId());
+        GlucoseMeasurement previous = getGlucoseMeasurementById(measurement.getId());
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> {
+            int updated = DatabaseInteraction.executeUpdate(sql,
+                    measurement.getPatientId(),
+                    (int) measurement.getGlucoseLevel(),
+                    java.sql.Timestamp.valueOf(measurement.getDateAndTime()),
+                    measurement.getType(),
+                    measurement.getNotes(),
+                    measurement.getId());
+            if (updated > 0) {
+                // The reading may have moved to another hour or patient: refresh both buckets
+                if (previous != null) {
+                    GlucoseRollupDAO.refreshBucket(previous.getPatientId(), previous.getDateAndTime());
+                }
+                GlucoseRollupDAO.refreshBucket(measurement.getPatientId(), measurement.getDateAndTime());
+            }
+            return updated;
+        });
+        if (previous != null && previous.getPatientId() != measurement.getPatientId()) {
+            AlertEngine.getInstance().onGlucoseChanged(previous.getPatientId());
+        }
+        AlertEngine.getInstance().onGlucoseChanged(measurement.getPatientId());
         return rows > 0;
     }
 
@@ -141,14 +234,31 @@ public class GlucoseMeasurementDAO {
     //===========================
 
     public boolean deleteGlucoseMeasurement(int id) throws SQLException {
+        GlucoseMeasurement existing = getGlucoseMeasurementById(id);
         String sql = "DELETE FROM glucose_measurements WHERE id = ?";
-        int rows = DatabaseInteraction.executeUpdate(sql, id);
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> {
+            int deleted = DatabaseInteraction.executeUpdate(sql, id);
+            if (deleted > 0 && existing != null) {
+                GlucoseRollupDAO.refreshBucket(existing.getPatientId(), existing.getDateAndTime());
+            }
+            return deleted;
+        });
+        if (existing != null) {
+            AlertEngine.getInstance().onGlucoseChanged(existing.getPatientId());
+        }
         return rows > 0;
     }
     
     public boolean deleteGlucoseMeasurement(int patientId, LocalDateTime dateTime, float value) throws SQLException {
         String sql = "DELETE FROM glucose_measurements WHERE patient_id = ? AND measurement_time = ? AND value = ?";
-        int rows = DatabaseInteraction.executeUpdate(sql, patientId, java.sql.Timestamp.valueOf(dateTime), (int) value);
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> {
+            int deleted = DatabaseInteraction.executeUpdate(sql, patientId, java.sql.Timestamp.valueOf(dateTime), (int) value);
+            if (deleted > 0) {
+                GlucoseRollupDAO.refreshBucket(patientId, dateTime);
+            }
+            return deleted;
+        });
+        AlertEngine.getInstance().onGlucoseChanged(patientId);
         return rows > 0;
     }
 
@@ -157,6 +267,16 @@ public class GlucoseMeasurementDAO {
     //==== ADDITIONAL OPERATIONS ====
     //===============================
 
+    // One row at a time into the arrays (measurement_time is stored as epoch millis)
+    private static GlucoseSeries fillSeries(int patientId, String sql, Object... params) throws SQLException {
+        GlucoseSeries series = new GlucoseSeries();
+        DatabaseInteraction.forEachRow(sql, DatabaseInteraction.STREAM_FETCH_SIZE,
+                rs -> series.append(rs.getInt(1), Math.floorDiv(rs.getLong(2), 1000L), rs.getInt(3), rs.getString(4)),
+                params);
+        series.setNotesLoader(() -> getNotesByPatientId(patientId));
+        return series;
+    }
+
     private static GlucoseMeasurement mapResultSetToGlucoseMeasurement(ResultSet rs) throws SQLException {
         GlucoseMeasurement measurement = new GlucoseMeasurement();
         measurement.setId(rs.getInt("id"));
@@ -0,0 +1,250 @@
+package it.glucotrack.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import it.glucotrack.model.GlucoseStats;
+
+/*
+* GLUCOSE ROLLUP DAO
+* Per patient, per hour and per day aggregates of glucose_measurements
+* (count, sum, min, max, readings below/in/above the target range).
+* GlucoseMeasurementDAO keeps them current inside the same transaction as the raw write:
+* an insert adds to its buckets, an update or delete recomputes only the buckets it touched.
+* Buckets start at the local hour/day, like the LocalDateTime stored in measurement_time.
+*/
+
+public class GlucoseRollupDAO {
+
+    // Target range, same limits as the alert rules
+    public static final int RANGE_LOW = 70;
+    public static final int RANGE_HIGH = 180;
+
+    private static final String HOURLY = "glucose_rollup_hourly";
+    private static final String DAILY = "glucose_rollup_daily";
+
+    private static final String ROLLUP_COLUMNS =
+            "patient_id, bucket_start, reading_count, value_sum, min_value, max_value, below_range, in_range, above_range";
+
+    // Same aliases for both, so range parts from raw rows and rollups can be combined with UNION ALL
+    private static final String RAW_AGGREGATE =
+            "COUNT(*) AS n, SUM(value) AS s, MIN(value) AS lo, MAX(value) AS hi, SUM(value < " + RANGE_LOW + ") AS b, " +
+            "SUM(value BETWEEN " + RANGE_LOW + " AND " + RANGE_HIGH + ") AS r, SUM(value > " + RANGE_HIGH + ") AS a";
+
+    private static final String ROLLUP_AGGREGATE =
+            "SUM(reading_count) AS n, SUM(value_sum) AS s, MIN(min_value) AS lo, MAX(max_value) AS hi, " +
+            "SUM(below_range) AS b, SUM(in_range) AS r, SUM(above_range) AS a";
+
+
+    //========================
+    //==== GET OPERATIONS ====
+    //========================
+
+    // Statistics for [from, to): whole days from the daily rollup, whole hours from the hourly one,
+    // raw rows only for the partial hours at the two edges. One query.
+    public static GlucoseStats getRangeStats(int patientId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<String> parts = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        LocalDateTime hourStart = ceil(from, ChronoUnit.HOURS);
+        LocalDateTime hourEnd = to.truncatedTo(ChronoUnit.HOURS);
+        if (!hourStart.isBefore(hourEnd)) {
+            // Less than one whole hour: raw rows only
+            addRawPart(parts, params, patientId, from, to);
+        } else {
+            addRawPart(parts, params, patientId, from, hourStart);
+            addRawPart(parts, params, patientId, hourEnd, to);
+
+            LocalDateTime dayStart = ceil(hourStart, ChronoUnit.DAYS);
+            LocalDateTime dayEnd = hourEnd.truncatedTo(ChronoUnit.DAYS);
+            if (!dayStart.isBefore(dayEnd)) {
+                addRollupPart(parts, params, HOURLY, patientId, hourStart, hourEnd);
+            } else {
+                addRollupPart(parts, params, HOURLY, patientId, hourStart, dayStart);
+                addRollupPart(parts, params, DAILY, patientId, dayStart, dayEnd);
+                addRollupPart(parts, params, HOURLY, patientId, dayEnd, hourEnd);
+            }
+        }
+
+        if (parts.isEmpty()) {
+            return new GlucoseStats(0, 0, 0, 0, 0, 0, 0);
+        }
+
+        String sql = "SELECT SUM(n), SUM(s), MIN(lo), MAX(hi), SUM(b), SUM(r), SUM(a) FROM (" +
+                     String.join(" UNION ALL ", parts) + ")";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, params.toArray())) {
+            if (rs.next()) {
+                return new GlucoseStats(rs.getInt(1), rs.getLong(2), rs.getInt(3), rs.getInt(4),
+                        rs.getInt(5), rs.getInt(6), rs.getInt(7));
+            }
+        }
+        return new GlucoseStats(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    // Statistics of the last days up to now
+    public static GlucoseStats getRecentStats(int patientId, int days) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return getRangeStats(patientId, now.minusDays(days), now);
+    }
+
+
+    // Statistics of the whole history, from the daily rollup alone
+    public static GlucoseStats getAllTimeStats(int patientId) throws SQLException {
+        String sql = "SELECT " + ROLLUP_AGGREGATE + " FROM " + DAILY + " WHERE patient_id = ?";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId)) {
+            if (rs.next()) {
+                return new GlucoseStats(rs.getInt("n"), rs.getLong("s"), rs.getInt("lo"), rs.getInt("hi"),
+                        rs.getInt("b"), rs.getInt("r"), rs.getInt("a"));
+            }
+        }
+        return new GlucoseStats(0, 0, 0, 0, 0, 0, 0);
+    }
+
+
+    //================================
+    //==== MAINTENANCE OPERATIONS ====
+    //================================
+
+    // New reading: add it to its hourly and daily bucket
+    public static void addMeasurement(int patientId, LocalDateTime time, int value) throws SQLException {
+        int below = value < RANGE_LOW ? 1 : 0;
+        int above = value > RANGE_HIGH ? 1 : 0;
+        int inRange = 1 - below - above;
+        DatabaseInteraction.inTransaction(conn -> {
+            for (String table : new String[] {HOURLY, DAILY}) {
+                LocalDateTime bucket = time.truncatedTo(table.equals(HOURLY) ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+                String sql = "INSERT INTO " + table + " (" + ROLLUP_COLUMNS + ") VALUES (?, ?, 1, ?, ?, ?, ?, ?, ?) " +
+                             "ON CONFLICT(patient_id, bucket_start) DO UPDATE SET " +
+                             "reading_count = reading_count + 1, value_sum = value_sum + excluded.value_sum, " +
+                             "min_value = MIN(min_value, excluded.min_value), max_value = MAX(max_value, excluded.max_value), " +
+                             "below_range = below_range + excluded.below_range, in_range = in_range + excluded.in_range, " +
+                             "above_range = above_range + excluded.above_range";
+                DatabaseInteraction.executeUpdate(sql, patientId, Timestamp.valueOf(bucket),
+                        value, value, value, below, inRange, above);
+            }
+        });
+    }
+
+    // A reading of this hour changed or disappeared: recompute the hour from raw rows, then its day from the hours
+    public static void refreshBucket(int patientId, LocalDateTime time) throws SQLException {
+        LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        DatabaseInteraction.inTransaction(conn -> {
+            DatabaseInteraction.executeUpdate("DELETE FROM " + HOURLY + " WHERE patient_id = ? AND bucket_start = ?",
+                    patientId, Timestamp.valueOf(hour));
+            DatabaseInteraction.executeUpdate(
+                    "INSERT INTO " + HOURLY + " (" + ROLLUP_COLUMNS + ") SELECT patient_id, ?, " + RAW_AGGREGATE + " " +
+                    "FROM glucose_measurements WHERE patient_id = ? AND measurement_time >= ? AND measurement_time < ? " +
+                    "GROUP BY patient_id",
+                    Timestamp.valueOf(hour), patientId, Timestamp.valueOf(hour), Timestamp.valueOf(hour.plusHours(1)));
+
+            DatabaseInteraction.executeUpdate("DELETE FROM " + DAILY + " WHERE patient_id = ? AND bucket_start = ?",
+                    patientId, Timestamp.valueOf(day));
+            DatabaseInteraction.executeUpdate(
+                    "INSERT INTO " + DAILY + " (" + ROLLUP_COLUMNS + ") SELECT patient_id, ?, " + ROLLUP_AGGREGATE + " " +
+                    "FROM " + HOURLY + " WHERE patient_id = ? AND bucket_start >= ? AND bucket_start < ? " +
+                    "GROUP BY patient_id",
+                    Timestamp.valueOf(day), patientId, Timestamp.valueOf(day), Timestamp.valueOf(day.plusDays(1)));
+        });
+    }
+
+    // Recompute both rollups from glucose_measurements (buckets are local time, so grouping happens here)
+    public static void rebuildAll() throws SQLException {
+        Map<String, long[]> hourly = new LinkedHashMap<>();
+        Map<String, long[]> daily = new LinkedHashMap<>();
+        String sql = "SELECT patient_id, measurement_time, value FROM glucose_measurements";
+
+        // Read and rewrite under the write lock so no reading is inserted in between
+        DatabaseInteraction.inTransaction(conn -> {
+            try (ResultSet rs = DatabaseInteraction.executeQuery(sql)) {
+                while (rs.next()) {
+                    int patientId = rs.getInt("patient_id");
+                    LocalDateTime time = rs.getTimestamp("measurement_time").toLocalDateTime();
+                    int value = rs.getInt("value");
+                    accumulate(hourly, patientId, time.truncatedTo(ChronoUnit.HOURS), value);
+                    accumulate(daily, patientId, time.truncatedTo(ChronoUnit.DAYS), value);
+                }
+            }
+            DatabaseInteraction.executeUpdate("DELETE FROM " + HOURLY);
+            DatabaseInteraction.executeUpdate("DELETE FROM " + DAILY);
+            insertBuckets(HOURLY, hourly);
+            insertBuckets(DAILY, daily);
+        });
+        System.out.println("Glucose rollups rebuilt: " + hourly.size() + " hours, " + daily.size() + " days");
+    }
+
+    // Existing database opened for the first time with the rollup tables: fill them once
+    public static void rebuildIfEmpty() throws SQLException {
+        boolean rollupsEmpty;
+        boolean measurementsPresent;
+        try (ResultSet rs = DatabaseInteraction.executeQuery("SELECT EXISTS (SELECT 1 FROM " + HOURLY + ")")) {
+            rollupsEmpty = rs.next() && !rs.getBoolean(1);
+        }
+        try (ResultSet rs = DatabaseInteraction.executeQuery("SELECT EXISTS (SELECT 1 FROM glucose_measurements)")) {
+            measurementsPresent = rs.next() && rs.getBoolean(1);
+        }
+        if (rollupsEmpty && measurementsPresent) {
+            rebuildAll();
+        }
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static void addRawPart(List<String> parts, List<Object> params, int patientId,
+                                   LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) return;
+        parts.add("SELECT " + RAW_AGGREGATE +
+                  " FROM glucose_measurements WHERE patient_id = ? AND measurement_time >= ? AND measurement_time < ?");
+        params.add(patientId);
+        params.add(Timestamp.valueOf(from));
+        params.add(Timestamp.valueOf(to));
+    }
+
+    private static void addRollupPart(List<String> parts, List<Object> params, String table, int patientId,
+                                      LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) return;
+        parts.add("SELECT " + ROLLUP_AGGREGATE +
+                  " FROM " + table + " WHERE patient_id = ? AND bucket_start >= ? AND bucket_start < ?");
+        params.add(patientId);
+        params.add(Timestamp.valueOf(from));
+        params.add(Timestamp.valueOf(to));
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime truncated = time.truncatedTo(unit);
+        return truncated.equals(time) ? time : truncated.plus(1, unit);
+    }
+
+    // {patientId, bucketMillis, count, sum, min, max, below, inRange, above} per bucket
+    private static void accumulate(Map<String, long[]> buckets, int patientId, LocalDateTime bucket, int value) {
+        long[] row = buckets.computeIfAbsent(patientId + ":" + bucket, key -> new long[] {
+                patientId, Timestamp.valueOf(bucket).getTime(), 0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, 0, 0});
+        row[2]++;
+        row[3] += value;
+        row[4] = Math.min(row[4], value);
+        row[5] = Math.max(row[5], value);
+        if (value < RANGE_LOW) row[6]++;
+        else if (value > RANGE_HIGH) row[8]++;
+        else row[7]++;
+    }
+
+    private static void insertBuckets(String table, Map<String, long[]> buckets) throws SQLException {
+        if (buckets.isEmpty()) return;
+        String sql = "INSERT INTO " + table + " (" + ROLLUP_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        for (long[] row : buckets.values()) {
+            rows.add(new Object[] {(int) row[0], new Timestamp(row[1]), row[2], row[3], row[4], row[5], row[6], row[7], row[8]});
+        }
+        DatabaseInteraction.executeBatch(sql, rows);
+    }
+}
@@ -5,7 +5,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
+import it.glucotrack.model.DoseSummary;
+import it.glucotrack.model.KeysetPage;
 import it.glucotrack.model.LogMedication;
 
 /*
@@ -14,6 +17,11 @@ import it.glucotrack.model.LogMedication;
 
 public class LogMedicationDAO {
 
+    // The patient is copied from the medication, for the patient-wide reads (see migration 006)
+    private static final String INSERT_SQL =
+            "INSERT INTO log_medications (medication_id, date_time, taken, patient_id) " +
+            "VALUES (?, ?, ?, (SELECT patient_id FROM medications WHERE id = ?))";
+
     //========================
     //==== GET OPERATIONS ====
     //========================
@@ -40,9 +48,7 @@ public class LogMedicationDAO {
     }
 
     public static List<LogMedication> getLogMedicationByPatientId(int patientId) throws SQLException {
-        String sql = "SELECT lm.* FROM log_medications lm " +
-                     "JOIN medications m ON lm.medication_id = m.id " +
-                     "WHERE m.patient_id = ? ORDER BY lm.date_time DESC";
+        String sql = "SELECT * FROM log_medications WHERE patient_id = ? ORDER BY date_time DESC, id DESC";
         List<LogMedication> logs = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId)) {
             while (rs.next()) {
@@ -54,9 +60,7 @@ public class LogMedicationDAO {
 
     public static List<LogMedication> getLogMedicationsByPatientIdUntillNow(int patientId) throws SQLException {
 
-        String sql = "SELECT lm.* FROM log_medications lm " +
-                     "JOIN medications m ON lm.medication_id = m.id " +
-                     "WHERE m.patient_id = ? AND lm.date_time <= ? ORDER BY lm.date_time DESC";
+        String sql = "SELECT * FROM log_medications WHERE patient_id = ? AND date_time <= ? ORDER BY date_time DESC, id DESC";
         List<LogMedication> logs = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId, Timestamp.valueOf(LocalDateTime.now()))) {
             while (rs.next()) {
@@ -67,6 +71,37 @@ public class LogMedicationDAO {
 
     }
 
+    // Share of the doses due up to 'until' that were taken, 0 without doses (index on patient_id, date_time)
+    public static double getAdherenceUntil(int patientId, LocalDateTime until) throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(taken), 0) FROM log_medications WHERE patient_id = ? AND date_time <= ?";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId, Timestamp.valueOf(until))) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return (double) rs.getInt(2) / rs.getInt(1);
+            }
+        }
+        return 0;
+    }
+
+    // Doses not taken before 'until', one row per medication (name joined in, no per-log lookups)
+    public static List<DoseSummary> getMissedDoseSummaries(int patientId, LocalDateTime until) throws SQLException {
+        String sql = "SELECT m.id AS medication_id, m.name AS medication_name, COUNT(*) AS dose_count, " +
+                     "MIN(lm.date_time) AS first_time, MAX(lm.date_time) AS last_time " +
+                     "FROM log_medications lm JOIN medications m ON lm.medication_id = m.id " +
+                     "WHERE m.patient_id = ? AND lm.taken = 0 AND lm.date_time < ? " +
+                     "GROUP BY m.id, m.name ORDER BY last_time DESC";
+        return queryDoseSummaries(sql, patientId, Timestamp.valueOf(until));
+    }
+
+    // Doses not yet taken due in [from, to], one row per medication
+    public static List<DoseSummary> getUpcomingDoseSummaries(int patientId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        String sql = "SELECT m.id AS medication_id, m.name AS medication_name, COUNT(*) AS dose_count, " +
+                     "MIN(lm.date_time) AS first_time, MAX(lm.date_time) AS last_time " +
+                     "FROM log_medications lm JOIN medications m ON lm.medication_id = m.id " +
+                     "WHERE m.patient_id = ? AND lm.taken = 0 AND lm.date_time BETWEEN ? AND ? " +
+                     "GROUP BY m.id, m.name ORDER BY first_time";
+        return queryDoseSummaries(sql, patientId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
 
     public List<LogMedication> getPendingLogMedications(int medicationId) throws SQLException {
         String sql = "SELECT * FROM log_medications WHERE medication_id = ? AND taken = 0 ORDER BY date_time";
@@ -110,12 +145,44 @@ public class LogMedicationDAO {
 
 
 
+    //=========================
+    //==== PAGE OPERATIONS ====
+    //=========================
+
+    // Intake log of every medication of the patient, newest first, one keyset page at a time
+    // (index on patient_id, date_time, id: no sort)
+    public static KeysetPage<LogMedication> getLogMedicationsPageByPatientId(int patientId, KeysetPage.Key after, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM log_medications WHERE patient_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(patientId);
+        if (after != null) {
+            sql.append(" AND ").append(DatabaseInteraction.keysetCondition("date_time", "id"));
+            DatabaseInteraction.addKeysetParams(params, after);
+        }
+        sql.append(" ORDER BY date_time DESC, id DESC LIMIT ?");
+        return DatabaseInteraction.queryPage(sql.toString(), limit, "date_time", "id",
+                LogMedicationDAO::mapResultSetToLogMedication, params);
+    }
+
+
+    //===========================
+    //==== STREAM OPERATIONS ====
+    //===========================
+
+    // Every intake log of the patient, oldest first, one row in memory at a time: use in try-with-resources
+    public static Stream<LogMedication> streamLogMedicationsByPatientId(int patientId) throws SQLException {
+        String sql = "SELECT * FROM log_medications WHERE patient_id = ? ORDER BY date_time ASC, id ASC";
+        return DatabaseInteraction.streamQuery(sql, DatabaseInteraction.STREAM_FETCH_SIZE,
+                LogMedicationDAO::mapResultSetToLogMedication, patientId);
+    }
+
+
     //===========================
     //==== INSERT OPERATIONS ====
     //===========================
 
     public boolean insertLogMedication(LogMedication log) throws SQLException {
-        String sql = "INSERT INTO log_medications (medication_id, date_time, taken) VALUES (?, ?, ?)";
+        String sql = INSERT_SQL;
         
         // Convert LocalDateTime to java.sql.Timestamp for proper database storage
         java.sql.Timestamp dateTime = java.sql.Timestamp.valueOf(log.getDateAndTime());
@@ -123,12 +190,14 @@ public class LogMedicationDAO {
         int rows = DatabaseInteraction.executeUpdate(sql,
                 log.getMedication_id(), 
                 dateTime,
-                log.isTaken());
+                log.isTaken(),
+                log.getMedication_id());
+        AlertEngine.getInstance().onMedicationLogsChanged(log.getMedication_id());
         return rows > 0;
     }
 
     public static void insertLogMedicationStatic(LogMedication log) throws SQLException {
-        String sql = "INSERT INTO log_medications (medication_id, date_time, taken) VALUES (?, ?, ?)";
+        String sql = INSERT_SQL;
 
         // Convert LocalDateTime to java.sql.Timestamp for proper database storage
         java.sql.Timestamp dateTime = java.sql.Timestamp.valueOf(log.getDateAndTime());
@@ -136,7 +205,9 @@ public class LogMedicationDAO {
         DatabaseInteraction.executeUpdate(sql,
                 log.getMedication_id(),
                 dateTime,
-                log.isTaken());
+                log.isTaken(),
+                log.getMedication_id());
+        AlertEngine.getInstance().onMedicationLogsChanged(log.getMedication_id());
     }
 
 
@@ -155,12 +226,14 @@ public class LogMedicationDAO {
                 dateTime,
                 log.isTaken(), 
                 log.getId());
+        AlertEngine.getInstance().onMedicationLogsChanged(log.getMedication_id());
         return rows > 0;
     }
 
     public boolean updateLogMedicationStatus(int logId, boolean taken) throws SQLException {
         String sql = "UPDATE log_medications SET taken = ? WHERE id = ?";
         int rows = DatabaseInteraction.executeUpdate(sql, taken, logId);
+        AlertEngine.getInstance().onLogMedicationChanged(logId);
         return rows > 0;
     }
 
@@ -170,6 +243,7 @@ public class LogMedicationDAO {
     //===========================
 
     public boolean deleteLogMedication(int id) throws SQLException {
+        AlertEngine.getInstance().onLogMedicationChanged(id); // before the row is gone
         String sql = "DELETE FROM log_medications WHERE id = ?";
         int rows = DatabaseInteraction.executeUpdate(sql, id);
         return rows > 0;
@@ -179,6 +253,7 @@ public class LogMedicationDAO {
         String sql = "DELETE FROM log_medications WHERE medication_id = ?";
         try {
             int rows = DatabaseInteraction.executeUpdate(sql, id);
+            AlertEngine.getInstance().onMedicationLogsChanged(id);
             System.out.println("Deleted " + rows + " log medications for medication_id " + id);
             return rows > 0;
         } catch (SQLException e) {
@@ -186,19 +261,16 @@ public class LogMedicationDAO {
             return false;
         }
     }
-    public void deleteFutureLogMedications(int id, LocalDateTime today) {
+    public void deleteFutureLogMedications(int id, LocalDateTime today) throws SQLException {
 
         String sql = "DELETE FROM log_medications WHERE medication_id = ? AND date_time >= ?";
         System.out.println("[DEBUG] Executing SQL: " + sql);
         System.out.println("[DEBUG] Parameters: medication_id=" + id + ", date=" + today);
-        try {
-            int rows = DatabaseInteraction.executeUpdate(sql, id, Timestamp.valueOf(today));
-            System.out.println("Deleted " + rows + " future (and today) log medications for medication_id " + id);
-            System.out.println(getPendingLogMedications(id));
-        } catch (SQLException e) {
-            System.err.println("Error deleting future log medications: " + e.getMessage());
-        }
 
+        // Errors propagate so an enclosing transaction (medication edit) rolls back as a whole
+        int rows = DatabaseInteraction.executeUpdate(sql, id, Timestamp.valueOf(today));
+        AlertEngine.getInstance().onMedicationLogsChanged(id);
+        System.out.println("Deleted " + rows + " future (and today) log medications for medication_id " + id);
     }
 
 
@@ -207,23 +279,27 @@ public class LogMedicationDAO {
     //===========================
 
     public boolean insertBatchLogMedications(List<LogMedication> logs) throws SQLException {
-        String sql = "INSERT INTO log_medications (medication_id, date_time, taken) VALUES (?, ?, ?)";
-        try (Connection conn = DatabaseInteraction.connect();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            for (LogMedication log : logs) {
-                // Convert LocalDateTime to java.sql.Timestamp for proper database storage
-                java.sql.Timestamp dateTime = java.sql.Timestamp.valueOf(log.getDateAndTime());
-                
-                stmt.setInt(1, log.getMedication_id());
-                stmt.setTimestamp(2, dateTime);
-                stmt.setBoolean(3, log.isTaken());
-                stmt.addBatch();
-            }
-            
-            int[] results = stmt.executeBatch();
-            return results.length == logs.size();
+        String sql = INSERT_SQL;
+        if (logs.isEmpty()) {
+            return true;
         }
+
+        List<Object[]> rows = new ArrayList<>(logs.size());
+        for (LogMedication log : logs) {
+            // Convert LocalDateTime to java.sql.Timestamp for proper database storage
+            rows.add(new Object[] {
+                    log.getMedication_id(),
+                    java.sql.Timestamp.valueOf(log.getDateAndTime()),
+                    log.isTaken(),
+                    log.getMedication_id()
+            });
+        }
+
+        // One prepared statement, one commit (joins the caller's transaction if there is one)
+        int[] results = DatabaseInteraction.executeBatch(sql, rows);
+        logs.stream().map(LogMedication::getMedication_id).distinct()
+                .forEach(AlertEngine.getInstance()::onMedicationLogsChanged);
+        return results.length == logs.size();
     }
 
 
@@ -232,6 +308,21 @@ public class LogMedicationDAO {
     //==== ADDITIONAL OPERATIONS ====
     //===============================
 
+    private static List<DoseSummary> queryDoseSummaries(String sql, Object... params) throws SQLException {
+        List<DoseSummary> summaries = new ArrayList<>();
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, params)) {
+            while (rs.next()) {
+                summaries.add(new DoseSummary(
+                        rs.getInt("medication_id"),
+                        rs.getString("medication_name"),
+                        rs.getInt("dose_count"),
+                        rs.getTimestamp("first_time").toLocalDateTime(),
+                        rs.getTimestamp("last_time").toLocalDateTime()));
+            }
+        }
+        return summaries;
+    }
+
     private static LogMedication mapResultSetToLogMedication(ResultSet rs) throws SQLException {
         LogMedication log = new LogMedication();
         log.setId(rs.getInt("id"));
@@ -263,6 +354,7 @@ public class LogMedicationDAO {
     public boolean markAsTaken(int logId) throws SQLException {
         String sql = "UPDATE log_medications SET taken = 1 WHERE id = ?";
         int rows = DatabaseInteraction.executeUpdate(sql, logId);
+        AlertEngine.getInstance().onLogMedicationChanged(logId);
         return rows > 0;
     }
 
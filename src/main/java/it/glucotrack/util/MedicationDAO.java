@@ -9,6 +9,7 @@ import java.util.List;
 
 import it.glucotrack.model.Frequency;
 import it.glucotrack.model.Medication;
+import it.glucotrack.model.MedicationHeader;
 import it.glucotrack.model.MedicationEdit;
 
 /*
@@ -18,6 +19,9 @@ import it.glucotrack.model.MedicationEdit;
 
 public class MedicationDAO {
 
+    private static final int HEADER_CACHE_SIZE = 1000;
+    private static final EntityCache<MedicationHeader> headers = new EntityCache<>(HEADER_CACHE_SIZE);
+
     //========================
     //==== GET OPERATIONS ====
     //========================
@@ -33,12 +37,21 @@ public class MedicationDAO {
         return null;
     }
 
+    // Name and patient of a medication, cached: for table cells that show a referenced medication
+    public static MedicationHeader getMedicationHeader(int id) throws SQLException {
+        return headers.get(id, MedicationDAO::loadMedicationHeader);
+    }
+
     public static List<Medication> getMedicationsByPatientId(int patientId) throws SQLException {
         String sql = "SELECT * FROM medications WHERE patient_id = ?";
         List<Medication> meds = new ArrayList<>();
+        // Intake logs and edit histories name these medications row after row: keep their headers
+        long stamp = headers.stamp();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, patientId)) {
             while (rs.next()) {
-                meds.add(mapResultSetToMedication(rs));
+                Medication med = mapResultSetToMedication(rs);
+                headers.put(med.getId(), new MedicationHeader(med.getId(), med.getPatient_id(), med.getName_medication()), stamp);
+                meds.add(med);
             }
         }
         return meds;
@@ -112,6 +125,7 @@ public class MedicationDAO {
                 med.getInstructions());
 
            createMedicationsEdit(med.getPatient_id(), doctorId, med);
+           AlertEngine.getInstance().onMedicationChanged(med.getPatient_id());
            return rows > 0;
 
     }
@@ -126,40 +140,41 @@ public class MedicationDAO {
         java.sql.Date startDate = java.sql.Date.valueOf(med.getStart_date());
         java.sql.Date endDate = med.getEnd_date() != null ? java.sql.Date.valueOf(med.getEnd_date()) : null;
 
-        int affectedRows = DatabaseInteraction.executeUpdate(sql,
-                med.getPatient_id(),
-                med.getName_medication(),
-                med.getDose(),
-                med.getFreq().name(),
-                startDate,
-                endDate,
-                med.getInstructions());
+        // Insert, id lookup and edit history commit together, so no other insert can slip in between
+        return DatabaseInteraction.inTransactionReturning(conn -> {
+            int affectedRows = DatabaseInteraction.executeUpdate(sql,
+                    med.getPatient_id(),
+                    med.getName_medication(),
+                    med.getDose(),
+                    med.getFreq().name(),
+                    startDate,
+                    endDate,
+                    med.getInstructions());
 
 
-        if (affectedRows == 0) {
-            throw new SQLException("Creating medication failed, no rows affected.");
-        }
+            if (affectedRows == 0) {
+                throw new SQLException("Creating medication failed, no rows affected.");
+            }
 
 
-        // Get the last inserted row ID using SQLite's last_insert_rowid()
-        int insertedId = -1;
-        String getIdSql = "SELECT last_insert_rowid()";
-        try (java.sql.Connection conn = DatabaseInteraction.connect();
-             java.sql.Statement stmt = conn.createStatement();
-             java.sql.ResultSet rs = stmt.executeQuery(getIdSql)) {
-            if (rs.next()) {
-                insertedId = rs.getInt(1);
-            } else {
-                throw new SQLException("Creating medication failed, no ID obtained.");
+            // Get the last inserted row ID using SQLite's last_insert_rowid() (same writer connection)
+            int insertedId = -1;
+            try (java.sql.ResultSet rs = DatabaseInteraction.executeQuery("SELECT last_insert_rowid()")) {
+                if (rs.next()) {
+                    insertedId = rs.getInt(1);
+                } else {
+                    throw new SQLException("Creating medication failed, no ID obtained.");
+                }
             }
-        }
 
-        Medication insertedMed = getMedicationById(insertedId);
-        if (insertedMed == null) {
-            throw new SQLException("Medication inserted but not found by ID (" + insertedId + ")");
-        }
-        createMedicationsEdit(insertedMed.getPatient_id(), doctorId, insertedMed);
-        return insertedId;
+            Medication insertedMed = getMedicationById(insertedId);
+            if (insertedMed == null) {
+                throw new SQLException("Medication inserted but not found by ID (" + insertedId + ")");
+            }
+            createMedicationsEdit(insertedMed.getPatient_id(), doctorId, insertedMed);
+            AlertEngine.getInstance().onMedicationChanged(insertedMed.getPatient_id());
+            return insertedId;
+        });
     }
 
 
@@ -183,8 +198,9 @@ public class MedicationDAO {
                 endDate,            // Use java.sql.Date (can be null)
                 med.getInstructions(),
                 med.getId());
+        headers.invalidate(med.getId());
         createMedicationsEdit(med.getPatient_id(), doctorId, med);
-
+        AlertEngine.getInstance().onMedicationChanged(med.getPatient_id());
 
         return rows > 0;
     }
@@ -195,8 +211,10 @@ public class MedicationDAO {
     //===========================
 
     public static boolean deleteMedication(int id) throws SQLException {
+        AlertEngine.getInstance().onMedicationLogsChanged(id);
         String sql = "DELETE FROM medications WHERE id = ?";
         int rows = DatabaseInteraction.executeUpdate(sql, id);
+        headers.invalidate(id);
         System.out.println("[DEBUG] Attempted to delete medication with id=" + id + ". Rows affected: " + rows);
         if (rows == 0) {
             System.out.println("[DEBUG] No medication found with id=" + id + ", or deletion blocked by foreign key constraints.");
@@ -207,6 +225,9 @@ public class MedicationDAO {
     public void deleteMedicationsByPatientId(int patientId) throws SQLException {
         String sql = "DELETE FROM medications WHERE patient_id = ?";
         DatabaseInteraction.executeUpdate(sql, patientId);
+        // The ids are not known here
+        headers.invalidateAll();
+        AlertEngine.getInstance().onMedicationChanged(patientId);
     }
 
 
@@ -257,6 +278,16 @@ public class MedicationDAO {
     }
 
 
+    private static MedicationHeader loadMedicationHeader(int id) throws SQLException {
+        String sql = "SELECT id, patient_id, name FROM medications WHERE id = ?";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
+            if (rs.next()) {
+                return new MedicationHeader(rs.getInt("id"), rs.getInt("patient_id"), rs.getString("name"));
+            }
+        }
+        return null;
+    }
+
     private static Medication mapResultSetToMedication(ResultSet rs) throws SQLException {
         String frequencyStr = rs.getString("frequency");
 
@@ -1,17 +1,120 @@
 package it.glucotrack.util;
 
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/*
+* PASSWORD UTILS
+* Passwords are stored as salted PBKDF2 hashes: "pbkdf2-sha256$<iterations>$<salt>$<hash>" (Base64).
+* The iteration count is stored with each hash, so raising it (see calibrateIterations) leaves the
+* existing hashes valid; needsRehash() tells the login to upgrade them once the password is known.
+* The old format (shift + XOR with the email, reversible) is still read, only to migrate it.
+*/
 
 public class PasswordUtils {
 
     private static int SHIFT = 3; // SHIFT NUMBER
 
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
 
-    //==========================
-    //==== CRYPT OPERATIONS ====
-    //==========================
+    // Cost of new hashes; override with -Dglucotrack.pbkdf2.iterations=<n> after calibrating on the target machine
+    public static final int DEFAULT_ITERATIONS = 310_000;
+    private static final int MIN_CALIBRATED_ITERATIONS = 10_000;
+    private static final int MAX_CALIBRATED_ITERATIONS = 10_000_000;
+    private static volatile int iterations = Integer.getInteger("glucotrack.pbkdf2.iterations", DEFAULT_ITERATIONS);
+
+    private static final SecureRandom random = new SecureRandom();
+
+
+    //=========================
+    //==== HASH OPERATIONS ====
+    //=========================
+
+    // New hash with a random salt and the current cost
+    public static String hashPassword(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        int cost = iterations;
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + "$" + cost + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(pbkdf2(password, salt, cost));
+    }
+
+    // Check a typed password against a stored value of either format (the legacy one is keyed by the email)
+    public static boolean verifyPassword(String stored, String email, String password) {
+        if (stored == null || password == null) {
+            return false;
+        }
+        if (isLegacy(stored)) {
+            return ValidPassword(stored, email, password);
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            System.err.println("Malformed password hash");
+            return false;
+        }
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] expected = base64.decode(parts[3]);
+        byte[] actual = pbkdf2(password, base64.decode(parts[2]), Integer.parseInt(parts[1]));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    // Legacy format, or hashed with fewer iterations than new hashes get
+    public static boolean needsRehash(String stored) {
+        return isLegacy(stored) || getStoredIterations(stored) < iterations;
+    }
+
+    public static boolean isLegacy(String stored) {
+        return !stored.startsWith(PREFIX + "$");
+    }
+
+    public static int getIterations() {return iterations;}
 
-    // Encryption with shift and xor
+    public static void setIterations(int newIterations) {
+        if (newIterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + newIterations);
+        }
+        iterations = newIterations;
+    }
+
+
+    //=====================
+    //==== CALIBRATION ====
+    //=====================
+
+    // Iteration count for which one hash takes about targetMillis on this machine.
+    // PBKDF2 is linear in the iterations: time a probe count once the JIT has warmed up and scale it
+    public static int calibrateIterations(long targetMillis) {
+        int probe = 20_000;
+        byte[] salt = new byte[SALT_BYTES];
+        for (int i = 0; i < 3; i++) {
+            pbkdf2("calibration", salt, probe);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", salt, probe);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long scaled = probe * (targetMillis * 1_000_000L) / Math.max(best, 1);
+        long rounded = Math.round(scaled / 1000.0) * 1000;
+        return (int) Math.max(MIN_CALIBRATED_ITERATIONS, Math.min(MAX_CALIBRATED_ITERATIONS, rounded));
+    }
+
+
+    //===========================
+    //==== LEGACY OPERATIONS ====
+    //===========================
+
+    // Encryption with shift and xor: the old stored format, read to verify and migrate it
     public static String encryptPassword(String password, String email) {
         String shifted = shiftPassword(password);
         return xorPassword(shifted, email);
@@ -92,9 +195,26 @@ public class PasswordUtils {
     //==== ADDITIONAL OPERATIONS ====
     //===============================
 
+    // Legacy check: the typed password encrypted the old way
     public static boolean ValidPassword(String encryptedPassword, String email, String password) {
         String encrypted = encryptPassword(password, email);
         return encrypted.equals(encryptedPassword);
 
     }
+
+    private static int getStoredIterations(String stored) {
+        String[] parts = stored.split("\\$");
+        return parts.length == 4 ? Integer.parseInt(parts[1]) : 0;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int cost) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, cost, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
 }
\ No newline at end of file
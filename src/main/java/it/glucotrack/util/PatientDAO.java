@@ -8,6 +8,7 @@ import java.util.List;
 import it.glucotrack.model.Admin;
 import it.glucotrack.model.Gender;
 import it.glucotrack.model.Patient;
+import it.glucotrack.model.UserHeader;
 
 /*
 * PATIENT DAO
@@ -21,7 +22,7 @@ public class PatientDAO {
     //========================
 
     public static Patient getPatientById(int id) throws SQLException {
-        String sql = "SELECT * FROM users WHERE id = ? AND type = 'PATIENT'";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE id = ? AND type = 'PATIENT'";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
             if (rs.next()) {
                 return mapResultSetToPatient(rs);
@@ -32,7 +33,7 @@ public class PatientDAO {
 
     public static List<Patient> getAllPatients() throws SQLException {
 
-        String sql = "SELECT * FROM users WHERE type = 'PATIENT' ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'PATIENT' ORDER BY surname, name";
         List<Patient> patients = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql)) {
             while (rs.next()) {
@@ -43,16 +44,17 @@ public class PatientDAO {
     }
 
     public static List<Patient> getPatientsByDoctorId(int doctorId) throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'PATIENT' AND doctor_id = ? ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'PATIENT' AND doctor_id = ? ORDER BY surname, name";
         List<Patient> patients = new ArrayList<>();
 
-
+        // A doctor's tables name these patients row after row: keep their headers
+        long stamp = UserDAO.headerStamp();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, doctorId)) {
-
-            int count = 0;
             while (rs.next()) {
-                count++;
-                patients.add(mapResultSetToPatient(rs));
+                Patient patient = mapResultSetToPatient(rs);
+                UserDAO.cacheHeader(new UserHeader(patient.getId(), patient.getName(), patient.getSurname(),
+                        "PATIENT", patient.getDoctorId()), stamp);
+                patients.add(patient);
             }
         }
 
@@ -60,7 +62,7 @@ public class PatientDAO {
     }
 
     public Patient getPatientByEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM users WHERE email = ? AND type = 'PATIENT'";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE email = ? AND type = 'PATIENT'";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, email)) {
             if (rs.next()) {
                 return mapResultSetToPatient(rs);
@@ -77,10 +79,10 @@ public class PatientDAO {
     public boolean insertPatient(Patient patient) throws SQLException {
         String sql = "INSERT INTO users (name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, doctor_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'PATIENT', ?)";
         int rows = DatabaseInteraction.executeUpdate(sql,
-                patient.getName(), patient.getSurname(), patient.getEmail(), PasswordUtils.encryptPassword(patient.getPassword(), patient.getEmail()),
+                patient.getName(), patient.getSurname(), patient.getEmail(), PasswordUtils.hashPassword(patient.getPassword()),
                 patient.getBornDate(), patient.getGender().toString(), patient.getPhone(),
                 patient.getBirthPlace(), patient.getFiscalCode(), patient.getDoctorId());
-        System.out.println("PASSWORD CRIPTATA: " +  PasswordUtils.encryptPassword(patient.getPassword(), patient.getEmail()));
+        AlertEngine.getInstance().onPatientsChanged();
         return rows > 0;
     }
 
@@ -92,10 +94,13 @@ public class PatientDAO {
 
     public static boolean updatePatient(Patient patient) throws SQLException {
         String sql = "UPDATE users SET name=?, surname=?, email=?, password=?, born_date=?, gender=?, phone=?, birth_place=?, fiscal_code=?, doctor_id=? WHERE id=? AND type='PATIENT'";
-        int rows = DatabaseInteraction.executeUpdate(sql,
-                patient.getName(), patient.getSurname(), patient.getEmail(), PasswordUtils.encryptPassword(patient.getPassword(), patient.getEmail()),
+        // A profile loaded from the DAO has no password: keep the stored one (re-keyed if the email changes)
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> DatabaseInteraction.executeUpdate(sql,
+                patient.getName(), patient.getSurname(), patient.getEmail(), UserDAO.credentialForUpdate(patient.getId(), patient.getEmail(), patient.getPassword()),
                 patient.getBornDate(), patient.getGender().toString(), patient.getPhone(),
-                patient.getBirthPlace(), patient.getFiscalCode(), patient.getDoctorId(), patient.getId());
+                patient.getBirthPlace(), patient.getFiscalCode(), patient.getDoctorId(), patient.getId()));
+        UserDAO.invalidateHeader(patient.getId());
+        AlertEngine.getInstance().onPatientsChanged();
         return rows > 0;
     }
 
@@ -107,6 +112,8 @@ public class PatientDAO {
     public boolean deletePatient(int id) throws SQLException {
         String sql = "DELETE FROM users WHERE id = ? AND type = 'PATIENT'";
         int rows = DatabaseInteraction.executeUpdate(sql, id);
+        UserDAO.invalidateHeader(id);
+        AlertEngine.getInstance().onPatientsChanged();
         return rows > 0;
     }
 
@@ -116,7 +123,7 @@ public class PatientDAO {
     //===============================
 
     public List<Patient> searchPatients(String searchTerm) throws SQLException {
-        String sql = "SELECT * FROM users WHERE type = 'PATIENT' AND (name LIKE ? OR surname LIKE ? OR email LIKE ?) ORDER BY surname, name";
+        String sql = "SELECT " + UserDAO.PROFILE_COLUMNS + " FROM users WHERE type = 'PATIENT' AND (name LIKE ? OR surname LIKE ? OR email LIKE ?) ORDER BY surname, name";
         String searchPattern = "%" + searchTerm + "%";
         List<Patient> patients = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, searchPattern, searchPattern, searchPattern)) {
@@ -127,7 +134,13 @@ public class PatientDAO {
         return patients;
     }
 
-    private static Patient mapResultSetToPatient(ResultSet rs) throws SQLException {
+    // Type-ahead search on the full-text index, best matches first (see UserDAO.searchProfiles)
+    public List<Patient> searchPatientsByPrefix(String searchTerm, int limit) throws SQLException {
+        return UserDAO.searchProfiles("PATIENT", searchTerm, limit, PatientDAO::mapResultSetToPatient);
+    }
+
+    // Package-private: reused by PatientSummaryDAO on its joined rows
+    static Patient mapResultSetToPatient(ResultSet rs) throws SQLException {
 
         // Parse born_date as string since it's stored as ISO date string in database
         String bornDateStr = rs.getString("born_date");
@@ -158,7 +171,7 @@ public class PatientDAO {
             rs.getString("name"),
             rs.getString("surname"),
             rs.getString("email"),
-            PasswordUtils.decryptPassword(rs.getString("password"), rs.getString("email")),
+            null, // credentials are not loaded with the profile
             bornDate,
             gender,
             rs.getString("phone"),
@@ -0,0 +1,99 @@
+package it.glucotrack.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import it.glucotrack.model.Patient;
+import it.glucotrack.model.PatientSummary;
+
+/*
+* PATIENT SUMMARY DAO
+* Loads a doctor's whole patient list in one query: patient header, latest glucose
+* reading, 7-day average and number of missed doses, instead of one query per patient.
+*/
+
+public class PatientSummaryDAO {
+
+    private static final int AVERAGE_WINDOW_DAYS = 7;
+
+    private static final String SUMMARY_BY_DOCTOR_SQL =
+            "WITH doctor_patients AS (" +
+            "    SELECT id FROM users WHERE type = 'PATIENT' AND doctor_id = ?1" +
+            ") " +
+            "SELECT " + UserDAO.profileColumns("u") + ", " +
+            "       latest.value AS last_value, latest.measurement_time AS last_time, " +
+            "       week.avg_value AS avg_7_days, COALESCE(week.reading_count, 0) AS readings_7_days, " +
+            "       COALESCE(missed.missed_count, 0) AS missed_doses " +
+            "FROM users u " +
+            // One backwards seek on idx_glucose_patient_time per patient instead of ranking every reading
+            "LEFT JOIN glucose_measurements latest ON latest.id = (" +
+            "    SELECT id FROM glucose_measurements WHERE patient_id = u.id " +
+            "    ORDER BY measurement_time DESC, id DESC LIMIT 1" +
+            ") " +
+            "LEFT JOIN (" +
+            "    SELECT patient_id, AVG(value) AS avg_value, COUNT(*) AS reading_count " +
+            "    FROM glucose_measurements " +
+            "    WHERE measurement_time >= ?2 AND patient_id IN (SELECT id FROM doctor_patients) " +
+            "    GROUP BY patient_id" +
+            ") week ON week.patient_id = u.id " +
+            "LEFT JOIN (" +
+            "    SELECT m.patient_id, COUNT(*) AS missed_count " +
+            "    FROM log_medications lm JOIN medications m ON m.id = lm.medication_id " +
+            "    WHERE lm.taken = 0 AND lm.date_time < ?3 AND m.patient_id IN (SELECT id FROM doctor_patients) " +
+            "    GROUP BY m.patient_id" +
+            ") missed ON missed.patient_id = u.id " +
+            // Filtered on idx_users_type_doctor directly, which also returns the rows in name order
+            "WHERE u.type = 'PATIENT' AND u.doctor_id = ?1 " +
+            "ORDER BY u.surname, u.name";
+
+
+    //========================
+    //==== GET OPERATIONS ====
+    //========================
+
+    public static List<PatientSummary> getSummariesByDoctorId(int doctorId) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        List<PatientSummary> summaries = new ArrayList<>();
+
+        try (ResultSet rs = DatabaseInteraction.executeQuery(SUMMARY_BY_DOCTOR_SQL,
+                doctorId,
+                Timestamp.valueOf(now.minusDays(AVERAGE_WINDOW_DAYS)),
+                Timestamp.valueOf(now))) {
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+        }
+        return summaries;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static PatientSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        Patient patient = PatientDAO.mapResultSetToPatient(rs);
+
+        Float lastValue = null;
+        LocalDateTime lastTime = null;
+        float value = rs.getFloat("last_value");
+        if (!rs.wasNull()) {
+            lastValue = value;
+            Timestamp time = rs.getTimestamp("last_time");
+            lastTime = time != null ? time.toLocalDateTime() : null;
+        }
+
+        Double average = null;
+        double avg = rs.getDouble("avg_7_days");
+        if (!rs.wasNull()) {
+            average = avg;
+        }
+
+        return new PatientSummary(patient, lastValue, lastTime, average,
+                rs.getInt("readings_7_days"), rs.getInt("missed_doses"));
+    }
+}
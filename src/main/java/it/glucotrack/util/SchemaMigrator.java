@@ -0,0 +1,234 @@
+package it.glucotrack.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+* SCHEMA MIGRATOR
+* Brings the database schema up to date in place, data included.
+* Migrations are the scripts database/migrations/001.sql, 002.sql, ... (first comment line
+* is the description); each runs in its own transaction together with its schema_version row.
+* Applied scripts are checksummed: editing one afterwards stops the startup, add a new one instead.
+* Databases created before versioning are recorded at the baseline (001) and migrated from there.
+*/
+
+public class SchemaMigrator {
+
+    private static final String MIGRATIONS_PATH = "database/migrations/";
+    private static final int BASELINE_VERSION = 1;
+
+    private static final String CREATE_VERSION_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "    version INTEGER PRIMARY KEY," +
+            "    description VARCHAR(255) NOT NULL," +
+            "    checksum VARCHAR(64) NOT NULL," +
+            "    applied_at DATETIME NOT NULL," +
+            "    execution_ms INTEGER NOT NULL" +
+            ")";
+
+    // One numbered script
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final String checksum;
+
+        private Migration(int version, String description, String script, String checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = checksum;
+        }
+
+        public int getVersion() {return version;}
+        public String getDescription() {return description;}
+        public String getChecksum() {return checksum;}
+    }
+
+
+    //=================
+    //==== MIGRATE ====
+    //=================
+
+    // Apply every pending migration in order; returns how many ran
+    public static int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        DatabaseInteraction.executeUpdate(CREATE_VERSION_TABLE_SQL);
+
+        Map<Integer, String> applied = getAppliedChecksums();
+        if (applied.isEmpty() && tableExists("users")) {
+            baseline(migrations.get(BASELINE_VERSION - 1));
+            applied.put(BASELINE_VERSION, migrations.get(BASELINE_VERSION - 1).getChecksum());
+        }
+        verify(migrations, applied);
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            if (!applied.containsKey(migration.getVersion())) {
+                apply(migration);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static int getCurrentVersion() throws SQLException {
+        if (!tableExists("schema_version")) return 0;
+        try (ResultSet rs = DatabaseInteraction.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Scripts found on the classpath, by version
+    public static List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        for (int version = 1; ; version++) {
+            String script = readScript(String.format("%03d.sql", version));
+            if (script == null) break;
+            migrations.add(new Migration(version, extractDescription(script), script, checksum(script)));
+        }
+        if (migrations.isEmpty()) {
+            throw new SQLException("No migrations found in resources/" + MIGRATIONS_PATH);
+        }
+        return migrations;
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static void apply(Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        DatabaseInteraction.inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : splitStatements(migration.script)) {
+                    try {
+                        stmt.execute(sql);
+                    } catch (SQLException e) {
+                        System.err.println("Error in migration " + migration.getVersion() + " at: " + sql.substring(0, Math.min(100, sql.length())));
+                        throw e;
+                    }
+                }
+            }
+            recordVersion(migration, (System.nanoTime() - start) / 1_000_000);
+        });
+        System.out.println("Applied migration " + migration.getVersion() + ": " + migration.getDescription());
+    }
+
+    // Existing unversioned database: its tables are the baseline, so record it without running it
+    private static void baseline(Migration migration) throws SQLException {
+        recordVersion(migration, 0);
+        System.out.println("Existing database recorded at schema version " + migration.getVersion());
+    }
+
+    private static void recordVersion(Migration migration, long executionMs) throws SQLException {
+        DatabaseInteraction.executeUpdate(
+                "INSERT INTO schema_version (version, description, checksum, applied_at, execution_ms) VALUES (?, ?, ?, ?, ?)",
+                migration.getVersion(), migration.getDescription(), migration.getChecksum(),
+                Timestamp.valueOf(LocalDateTime.now()), executionMs);
+    }
+
+    private static void verify(List<Migration> migrations, Map<Integer, String> applied) throws SQLException {
+        for (Map.Entry<Integer, String> entry : applied.entrySet()) {
+            int version = entry.getKey();
+            if (version > migrations.size()) {
+                throw new SQLException("Database schema version " + version + " is newer than this application (" + migrations.size() + ")");
+            }
+            if (!migrations.get(version - 1).getChecksum().equals(entry.getValue())) {
+                throw new SQLException("Migration " + version + " was modified after being applied (checksum mismatch)");
+            }
+        }
+    }
+
+    private static Map<Integer, String> getAppliedChecksums() throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (ResultSet rs = DatabaseInteraction.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static boolean tableExists(String table) throws SQLException {
+        try (ResultSet rs = DatabaseInteraction.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", table)) {
+            return rs.next();
+        }
+    }
+
+    private static String readScript(String fileName) throws SQLException {
+        try (InputStream inputStream = SchemaMigrator.class.getClassLoader().getResourceAsStream(MIGRATIONS_PATH + fileName)) {
+            if (inputStream == null) return null;
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            inputStream.transferTo(content);
+            // Line endings depend on the checkout: keep them out of the checksum
+            return content.toString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new SQLException("Error reading migration " + fileName, e);
+        }
+    }
+
+    private static String extractDescription(String script) {
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("--")) return trimmed.substring(2).trim();
+            if (!trimmed.isEmpty()) break;
+        }
+        return "";
+    }
+
+    private static String checksum(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Statements end with ";" at the end of a line; a trigger body keeps its inner ones until "END;"
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String cleanLine = line.trim();
+            int commentIndex = cleanLine.indexOf("--");
+            if (commentIndex >= 0) {
+                cleanLine = cleanLine.substring(0, commentIndex).trim();
+            }
+            if (cleanLine.isEmpty()) continue;
+
+            current.append(cleanLine).append(" ");
+            String sql = current.toString().trim();
+            String upper = sql.toUpperCase();
+            boolean insideTrigger = upper.startsWith("CREATE TRIGGER") && !upper.endsWith("END;");
+            if (sql.endsWith(";") && !insideTrigger) {
+                statements.add(sql.substring(0, sql.length() - 1).trim());
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+}
@@ -1,8 +1,16 @@
 package it.glucotrack.util;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import it.glucotrack.model.User;
 import it.glucotrack.view.ViewNavigator;
 
@@ -20,6 +28,16 @@ public class SessionManager {
     private LocalDateTime loginTime;
     private UserDAO userDAO;
 
+    // Verified-session cache: once the password of the signed-in user has been verified (at login
+    // or by a prompt), the same password is accepted again within the window without running the
+    // KDF, while the stored hash is unchanged. Only an HMAC of it under a random key is kept
+    private static final Duration REAUTH_WINDOW = Duration.ofMinutes(5);
+    private static final SecureRandom random = new SecureRandom();
+    private byte[] verifiedKey;
+    private byte[] verifiedDigest;
+    private String verifiedCredential;
+    private long verifiedUntil;
+
 
     // Private constructor for Singleton
     private SessionManager() {
@@ -36,28 +54,25 @@ public class SessionManager {
     }
 
 
-    // Authentication for a user
+    // Authentication for a user: a single indexed query, whatever the number of users
     public boolean login(String email, String password) {
         try {
-            // Get user by email first
-            User user = userDAO.getUserByEmail(email);
+            User user = userDAO.authenticate(email, password);
 
             if (user == null) {
-                System.out.println("User not found for email: " + email);
+                System.out.println("Wrong email or password for: " + email);
                 return false;
             }
 
-            if (user.getPassword().equals(password)) {
-                this.currentUser = user;
-                this.currentUserType = determineUserType(user);
-                this.loginTime = LocalDateTime.now();
+            rememberVerification(user.getId(), password);
 
-                System.out.println("Session started for: " + user.getFullName() + " (" + currentUserType + ")");
-                return true;
-            } else {
-                System.out.println("Password mismatch for email: " + email);
-                return false;
-            }
+            // The role is the type column of the same row
+            this.currentUser = user;
+            this.currentUserType = user.getType();
+            this.loginTime = LocalDateTime.now();
+
+            System.out.println("Session started for: " + user.getFullName() + " (" + currentUserType + ")");
+            return true;
 
         } catch (SQLException e) {
             System.err.println("Database error during authentication: " + e.getMessage());
@@ -68,6 +83,14 @@ public class SessionManager {
 
     // End session
     public void logout() {
+        endSession();
+
+        // Reindirizza al login
+        ViewNavigator.getInstance().navigateTo(ViewNavigator.LOGIN_VIEW);
+    }
+
+    // Forget the signed-in user without leaving the current view
+    public void endSession() {
         if (currentUser != null) {
             System.out.println("Session ended for: " + currentUser.getFullName());
         }
@@ -75,9 +98,10 @@ public class SessionManager {
         this.currentUser = null;
         this.currentUserType = null;
         this.loginTime = null;
+        clearVerification();
 
-        // Reindirizza al login
-        ViewNavigator.getInstance().navigateTo(ViewNavigator.LOGIN_VIEW);
+        // The cached dashboard views hold this user's data
+        ViewNavigator.getInstance().invalidateAll();
     }
 
 
@@ -142,6 +166,65 @@ public class SessionManager {
     }
 
 
+    //===========================
+    //==== RE-AUTHENTICATION ====
+    //===========================
+
+    // Confirm the password of the signed-in user before a sensitive action
+    public synchronized boolean reauthenticate(String password) {
+        if (currentUser == null || password == null) {
+            return false;
+        }
+        try {
+            String stored = userDAO.getStoredCredential(currentUser.getId());
+            if (stored != null && isRecentlyVerified(stored, password)) {
+                return true;
+            }
+            if (!userDAO.verifyPassword(currentUser.getId(), password)) {
+                return false;
+            }
+            rememberVerification(currentUser.getId(), password);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Database error during re-authentication: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized boolean isRecentlyVerified(String stored, String password) {
+        return verifiedDigest != null
+                && System.nanoTime() - verifiedUntil < 0
+                && stored.equals(verifiedCredential)
+                && MessageDigest.isEqual(verifiedDigest, hmac(verifiedKey, password));
+    }
+
+    // Read the stored hash after the check: a login may just have upgraded it
+    private synchronized void rememberVerification(int userId, String password) throws SQLException {
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        verifiedKey = key;
+        verifiedDigest = hmac(key, password);
+        verifiedCredential = userDAO.getStoredCredential(userId);
+        verifiedUntil = System.nanoTime() + REAUTH_WINDOW.toNanos();
+    }
+
+    private synchronized void clearVerification() {
+        verifiedKey = null;
+        verifiedDigest = null;
+        verifiedCredential = null;
+    }
+
+    private static byte[] hmac(byte[] key, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+
     public String getSessionInfo() {
         if (!isLoggedIn()) {
             return "No active session";
@@ -159,26 +242,4 @@ public class SessionManager {
                 loginTime != null ? java.time.Duration.between(loginTime, LocalDateTime.now()).toMinutes() : 0);
     }
 
-
-
-    private String determineUserType(User user) throws SQLException {
-
-        if (userDAO.getUsersByType("ADMIN").stream()
-                .anyMatch(u -> u.getId() == user.getId())) {
-            return "ADMIN";
-        }
-
-        if (userDAO.getUsersByType("DOCTOR").stream()
-                .anyMatch(u -> u.getId() == user.getId())) {
-            return "DOCTOR";
-        }
-
-        if (userDAO.getUsersByType("PATIENT").stream()
-                .anyMatch(u -> u.getId() == user.getId())) {
-            return "PATIENT";
-        }
-
-        return "PATIENT"; // Default fallback
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package it.glucotrack.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/*
+* STARTUP PIPELINE
+* The database is opened and migrated on a background thread while the login view
+* is already on screen; the login waits for it with whenDatabaseReady().
+* Every startup phase is timed and printed as "[Startup] phase: ms (+ms since launch)".
+* Diagnostics mode (--diagnostics or -Dglucotrack.diagnostics=true) adds the table dumps.
+*/
+
+public class StartupPipeline {
+
+    public static final String DIAGNOSTICS_PROPERTY = "glucotrack.diagnostics";
+
+    private static final long launchNanos = System.nanoTime();
+    private static final List<String> timings = new ArrayList<>();
+    private static final CompletableFuture<Void> databaseReady = new CompletableFuture<>();
+    private static boolean started = false;
+
+    @FunctionalInterface
+    public interface Phase {
+        void run() throws SQLException;
+    }
+
+
+    //==================
+    //==== DATABASE ====
+    //==================
+
+    // Initialize the database (once) off the calling thread, then start the alert sweeper
+    public static synchronized void startDatabase() {
+        if (started) return;
+        started = true;
+        Thread thread = new Thread(() -> {
+            try {
+                DatabaseInitializer.initialize();
+                AlertSweeper.start();
+                record("database ready", launchNanos);
+                databaseReady.complete(null);
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("[Startup] Database initialization failed: " + e.getMessage());
+                e.printStackTrace();
+                databaseReady.completeExceptionally(e);
+            } finally {
+                DatabaseInteraction.releaseThreadConnection();
+            }
+        }, "database-startup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static boolean isDatabaseReady() {
+        return databaseReady.isDone() && !databaseReady.isCompletedExceptionally();
+    }
+
+    // Callbacks run on the FX thread, straight away if the database is already initialized
+    public static void whenDatabaseReady(Runnable onReady, Consumer<Throwable> onFailure) {
+        databaseReady.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onReady.run();
+            } else {
+                onFailure.accept(error);
+            }
+        }));
+    }
+
+
+    //=================
+    //==== TIMINGS ====
+    //=================
+
+    public static void timed(String name, Phase phase) throws SQLException {
+        long start = System.nanoTime();
+        phase.run();
+        record(name, start);
+    }
+
+    // Phase that began at startNanos (System.nanoTime()) and ends now
+    public static void record(String name, long startNanos) {
+        long now = System.nanoTime();
+        String line = name + ": " + (now - startNanos) / 1_000_000 + " ms (+" + (now - launchNanos) / 1_000_000 + " ms since launch)";
+        synchronized (timings) {
+            timings.add(line);
+        }
+        System.out.println("[Startup] " + line);
+    }
+
+    public static List<String> getTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+
+    //=====================
+    //==== DIAGNOSTICS ====
+    //=====================
+
+    public static boolean isDiagnosticsMode() {
+        return Boolean.getBoolean(DIAGNOSTICS_PROPERTY);
+    }
+
+    // Call first thing in main(): loading this class starts the launch clock
+    public static void configure(String[] args) {
+        if (Arrays.asList(args).contains("--diagnostics")) {
+            System.setProperty(DIAGNOSTICS_PROPERTY, "true");
+        }
+    }
+}
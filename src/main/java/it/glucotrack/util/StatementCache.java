@@ -0,0 +1,189 @@
+package it.glucotrack.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+* STATEMENT CACHE
+* LRU cache of PreparedStatements for one connection, keyed by SQL text.
+* Evicted statements are closed at once, or as soon as their open ResultSet is closed.
+*/
+
+public class StatementCache {
+
+    private final Connection connection;
+    private final LinkedHashMap<String, CachedStatement> statements;
+    // Statements that still had an open ResultSet when they left the cache
+    private final List<CachedStatement> detached = new ArrayList<>();
+
+
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > capacity) {
+                    retire(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+
+    //===========================
+    //==== QUERY OPERATIONS ====
+    //===========================
+
+    // Caller closes the ResultSet; the statement stays cached for the next call
+    public synchronized ResultSet executeQuery(String sql, Object... params) throws SQLException {
+        sweepDetached();
+        CachedStatement cached = statements.get(sql);
+
+        if (cached != null && cached.isBusy()) {
+            // Same SQL is still being iterated (nested call): use a one-off statement
+            CachedStatement oneOff = new CachedStatement(connection.prepareStatement(sql));
+            try {
+                bind(oneOff.statement, params);
+                oneOff.resultSet = oneOff.statement.executeQuery();
+            } catch (SQLException e) {
+                oneOff.close();
+                throw e;
+            }
+            retire(oneOff);
+            return oneOff.resultSet;
+        }
+
+        if (cached == null) {
+            cached = new CachedStatement(connection.prepareStatement(sql));
+            statements.put(sql, cached);
+        }
+        bind(cached.statement, params);
+        cached.resultSet = cached.statement.executeQuery();
+        return cached.resultSet;
+    }
+
+    public synchronized int executeUpdate(String sql, Object... params) throws SQLException {
+        sweepDetached();
+        CachedStatement cached = statements.get(sql);
+
+        if (cached != null && cached.isBusy()) {
+            try (PreparedStatement oneOff = connection.prepareStatement(sql)) {
+                bind(oneOff, params);
+                return oneOff.executeUpdate();
+            }
+        }
+
+        if (cached == null) {
+            cached = new CachedStatement(connection.prepareStatement(sql));
+            statements.put(sql, cached);
+        }
+        bind(cached.statement, params);
+        return cached.statement.executeUpdate();
+    }
+
+
+    // One statement, many parameter rows; run inside a transaction to get a single commit
+    public synchronized int[] executeBatch(String sql, List<Object[]> rows) throws SQLException {
+        sweepDetached();
+        CachedStatement cached = statements.get(sql);
+        if (cached == null) {
+            cached = new CachedStatement(connection.prepareStatement(sql));
+            statements.put(sql, cached);
+        }
+        PreparedStatement stmt = cached.statement;
+        try {
+            for (Object[] row : rows) {
+                bind(stmt, row);
+                stmt.addBatch();
+            }
+            return stmt.executeBatch();
+        } finally {
+            stmt.clearBatch();
+        }
+    }
+
+
+    //=================
+    //==== CLOSING ====
+    //=================
+
+    public synchronized void close() {
+        for (CachedStatement cached : statements.values()) {
+            cached.close();
+        }
+        statements.clear();
+        for (CachedStatement cached : detached) {
+            cached.close();
+        }
+        detached.clear();
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+
+    //===============================
+    //==== ADDITIONAL OPERATIONS ====
+    //===============================
+
+    private static void bind(PreparedStatement stmt, Object... params) throws SQLException {
+        stmt.clearParameters();
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+    }
+
+    private void retire(CachedStatement cached) {
+        if (cached.isBusy()) {
+            detached.add(cached);
+        } else {
+            cached.close();
+        }
+    }
+
+    private void sweepDetached() {
+        Iterator<CachedStatement> it = detached.iterator();
+        while (it.hasNext()) {
+            CachedStatement cached = it.next();
+            if (!cached.isBusy()) {
+                cached.close();
+                it.remove();
+            }
+        }
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private ResultSet resultSet;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private boolean isBusy() {
+            try {
+                return resultSet != null && !resultSet.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void close() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+}
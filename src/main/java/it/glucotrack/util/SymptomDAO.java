@@ -9,6 +9,9 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
+
+import it.glucotrack.model.KeysetPage;
 import it.glucotrack.model.Symptom;
 
 /*
@@ -142,6 +145,39 @@ public class SymptomDAO {
     }
 
 
+    //=========================
+    //==== PAGE OPERATIONS ====
+    //=========================
+
+    // Newest first, one keyset page at a time
+    public static KeysetPage<Symptom> getSymptomsPage(int patientId, KeysetPage.Key after, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id, patient_id, symptom, severity, duration, notes, symptom_date " +
+                                              "FROM patient_symptoms WHERE patient_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(patientId);
+        if (after != null) {
+            sql.append(" AND ").append(DatabaseInteraction.keysetCondition("symptom_date", "id"));
+            DatabaseInteraction.addKeysetParams(params, after);
+        }
+        sql.append(" ORDER BY symptom_date DESC, id DESC LIMIT ?");
+        return DatabaseInteraction.queryPage(sql.toString(), limit, "symptom_date", "id",
+                SymptomDAO::mapResultSetToSymptom, params);
+    }
+
+
+    //===========================
+    //==== STREAM OPERATIONS ====
+    //===========================
+
+    // Oldest first, one row in memory at a time: use in try-with-resources
+    public static Stream<Symptom> streamSymptomsByPatientId(int patientId) throws SQLException {
+        String sql = "SELECT id, patient_id, symptom, severity, duration, notes, symptom_date FROM patient_symptoms " +
+                     "WHERE patient_id = ? ORDER BY symptom_date ASC, id ASC";
+        return DatabaseInteraction.streamQuery(sql, DatabaseInteraction.STREAM_FETCH_SIZE,
+                SymptomDAO::mapResultSetToSymptom, patientId);
+    }
+
+
     //===========================
     //==== INSERT OPERATIONS ====
     //===========================
@@ -227,7 +263,7 @@ public class SymptomDAO {
     }
     
 
-    private Symptom mapResultSetToSymptom(ResultSet rs) throws SQLException {
+    private static Symptom mapResultSetToSymptom(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         int patientId = rs.getInt("patient_id");
         String name = rs.getString("symptom");
@@ -2,6 +2,7 @@
 package it.glucotrack.util;
 
 import it.glucotrack.model.User;
+import it.glucotrack.model.UserHeader;
 import it.glucotrack.model.Gender;
 import java.sql.*;
 import java.time.LocalDate;
@@ -17,11 +18,25 @@ import java.util.List;
 
 public class UserDAO {
 
+    // Headers of patients, doctors and admins alike: the DAOs of every role invalidate it
+    private static final int HEADER_CACHE_SIZE = 1000;
+    private static final EntityCache<UserHeader> headers = new EntityCache<>(HEADER_CACHE_SIZE);
+
+    // Rows a type-ahead list shows
+    public static final int DEFAULT_SEARCH_LIMIT = 50;
+    private static final int SEARCH_CANDIDATES = 1000;
+
+    // Every column but the password: list, search and profile queries never read the credential,
+    // which is only checked by authenticate() and verifyPassword()
+    private static final String[] PROFILE_COLUMN_NAMES = {"id", "name", "surname", "email", "born_date", "gender",
+            "phone", "birth_place", "fiscal_code", "type", "role", "specialization", "doctor_id"};
+    static final String PROFILE_COLUMNS = String.join(", ", PROFILE_COLUMN_NAMES);
+
     //================================
     //==== GENERIC GET OPERATIONS ====
     //================================
     public User getUserById(int id) throws SQLException {
-        String sql = "SELECT id, name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id FROM users WHERE id = ?";
+        String sql = "SELECT " + PROFILE_COLUMNS + " FROM users WHERE id = ?";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
             if (rs.next()) {
                 return mapResultSetToUser(rs);
@@ -30,8 +45,13 @@ public class UserDAO {
         return null;
     }
 
+    // Name, type and doctor of a user, cached: for table cells that show a referenced user
+    public static UserHeader getUserHeader(int id) throws SQLException {
+        return headers.get(id, UserDAO::loadUserHeader);
+    }
+
     public User getUserByEmail(String email) throws SQLException {
-        String sql = "SELECT id, name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id FROM users WHERE email = ?";
+        String sql = "SELECT " + PROFILE_COLUMNS + " FROM users WHERE email = ?";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, email)) {
             if (rs.next()) {
                 return mapResultSetToUser(rs);
@@ -40,8 +60,26 @@ public class UserDAO {
         return null;
     }
 
+    // Login: one lookup on the unique email index returns the stored hash and the role together.
+    // A hash in the legacy format or below the current cost is replaced now that the password is known
+    public User authenticate(String email, String password) throws SQLException {
+        String sql = "SELECT " + PROFILE_COLUMNS + ", password FROM users WHERE email = ?";
+        User user = null;
+        String stored = null;
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, email)) {
+            if (rs.next() && PasswordUtils.verifyPassword(rs.getString("password"), rs.getString("email"), password)) {
+                stored = rs.getString("password");
+                user = mapResultSetToUser(rs);
+            }
+        }
+        if (user != null) {
+            rehashIfNeeded(user.getId(), stored, password);
+        }
+        return user;
+    }
+
     public List<User> getAllUsers() throws SQLException {
-        String sql = "SELECT id, name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id FROM users ORDER BY type, surname, name";
+        String sql = "SELECT " + PROFILE_COLUMNS + " FROM users ORDER BY type, surname, name";
         List<User> users = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql)) {
             while (rs.next()) {
@@ -52,7 +90,7 @@ public class UserDAO {
     }
 
     public List<User> getUsersByType(String type) throws SQLException {
-        String sql = "SELECT id, name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id FROM users WHERE type = ? ORDER BY surname, name";
+        String sql = "SELECT " + PROFILE_COLUMNS + " FROM users WHERE type = ? ORDER BY surname, name";
         List<User> users = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, type)) {
             while (rs.next()) {
@@ -90,29 +128,162 @@ public class UserDAO {
     //===========================
 
     public boolean updateEmail(int userId, String newEmail) throws SQLException {
-        String sql = "UPDATE users SET email = ? WHERE id = ?";
-        int rows = DatabaseInteraction.executeUpdate(sql, newEmail, userId);
+        // A legacy password is encrypted with the email: it is re-hashed for the new one
+        String sql = "UPDATE users SET email = ?, password = ? WHERE id = ?";
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> DatabaseInteraction.executeUpdate(sql,
+                newEmail, credentialForUpdate(userId, newEmail, null), userId));
         return rows > 0;
     }
 
-    public boolean updatePassword(int userId, String email, String newPassword) throws SQLException {
+    public boolean updatePassword(int userId, String newPassword) throws SQLException {
         // Hash the new password before storing it
-        String encPsw = PasswordUtils.encryptPassword(newPassword, email);
         String sql = "UPDATE users SET password = ? WHERE id = ?";
-        int rows = DatabaseInteraction.executeUpdate(sql, encPsw, userId);
+        int rows = DatabaseInteraction.executeUpdate(sql, PasswordUtils.hashPassword(newPassword), userId);
         return rows > 0;
     }
 
     public boolean updateUser(User user) throws SQLException {
         //Update the user data by id
-        String sql = "UPDATE users SET name=?, surname=?, email=?, password=?, born_date=?, gender=?, phone=?, birth_place=?, fiscal_code=?, WHERE id=?";
-        int rows = DatabaseInteraction.executeUpdate(sql,
-                user.getName(), user.getSurname(), user.getEmail(), PasswordUtils.encryptPassword(user.getPassword(), user.getEmail()),
+        String sql = "UPDATE users SET name=?, surname=?, email=?, password=?, born_date=?, gender=?, phone=?, birth_place=?, fiscal_code=? WHERE id=?";
+        int rows = DatabaseInteraction.inTransactionReturning(conn -> DatabaseInteraction.executeUpdate(sql,
+                user.getName(), user.getSurname(), user.getEmail(), credentialForUpdate(user.getId(), user.getEmail(), user.getPassword()),
                 user.getBornDate(), user.getGender().toString(), user.getPhone(),
-                user.getBirthPlace(), user.getFiscalCode(), user.getId());
+                user.getBirthPlace(), user.getFiscalCode(), user.getId()));
+        invalidateHeader(user.getId());
+        AlertEngine.getInstance().onPatientsChanged();
         return rows > 0;
     }
 
+    //=====================
+    //==== CREDENTIALS ====
+    //=====================
+
+    // Re-authentication of a signed-in user: reads only the credential of that row
+    public boolean verifyPassword(int userId, String password) throws SQLException {
+        String sql = "SELECT email, password FROM users WHERE id = ?";
+        String stored = null;
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, userId)) {
+            if (rs.next() && PasswordUtils.verifyPassword(rs.getString("password"), rs.getString("email"), password)) {
+                stored = rs.getString("password");
+            }
+        }
+        if (stored == null) {
+            return false;
+        }
+        rehashIfNeeded(userId, stored, password);
+        return true;
+    }
+
+    // The stored hash, as is: lets a caller tell whether the credential changed since it checked it
+    String getStoredCredential(int userId) throws SQLException {
+        String sql = "SELECT password FROM users WHERE id = ?";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, userId)) {
+            return rs.next() ? rs.getString("password") : null;
+        }
+    }
+
+    // Value of the password column for an update of the row: a new hash if a password was set,
+    // else the stored one. Only a legacy value depends on the email: when the email changes
+    // it is decrypted with the old one and hashed, as the login would.
+    // Mapped users carry no password (null), so saving one keeps its credential.
+    // Call it in the transaction of the update, so the row cannot change in between
+    static String credentialForUpdate(int userId, String email, String plainPassword) throws SQLException {
+        if (plainPassword != null) {
+            return PasswordUtils.hashPassword(plainPassword);
+        }
+        String sql = "SELECT email, password FROM users WHERE id = ?";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, userId)) {
+            if (!rs.next()) {
+                return null; // no such row: the update changes nothing
+            }
+            String storedEmail = rs.getString("email");
+            String stored = rs.getString("password");
+            if (!PasswordUtils.isLegacy(stored) || storedEmail.equals(email)) {
+                return stored;
+            }
+            return PasswordUtils.hashPassword(PasswordUtils.decryptPassword(stored, storedEmail));
+        }
+    }
+
+    // Upgrade a verified credential to the current format and cost. Only if the row still holds
+    // the checked value (a concurrent password change wins); a failure does not fail the login
+    private void rehashIfNeeded(int userId, String stored, String password) {
+        if (!PasswordUtils.needsRehash(stored)) {
+            return;
+        }
+        try {
+            String sql = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+            DatabaseInteraction.executeUpdate(sql, PasswordUtils.hashPassword(password), userId, stored);
+        } catch (SQLException e) {
+            System.err.println("Error upgrading the password hash of user " + userId + ": " + e.getMessage());
+        }
+    }
+
+    //================
+    //==== SEARCH ====
+    //================
+
+    // Type-ahead search on the users_fts index (migration 005): each word typed must begin a word of
+    // the name, surname, email, specialization or role. Best matches first (bm25), at most limit rows;
+    // with nothing typed, the first rows in list order. type is null to search every user.
+    // The index hands its matches over in rank order, so a one-letter prefix stops after the
+    // SEARCH_CANDIDATES best matches instead of joining every user it matches.
+    // CROSS JOIN keeps the index as the outer loop: driven by idx_users_type_name instead, SQLite would
+    // run the MATCH once per user of the type
+    static <T> List<T> searchProfiles(String type, String searchTerm, int limit,
+                                      DatabaseInteraction.RowMapper<T> mapper) throws SQLException {
+        String match = toPrefixQuery(searchTerm);
+        String typeCondition = type != null ? "u.type = ?" : null;
+        List<Object> params = new ArrayList<>();
+        String sql;
+        if (match != null) {
+            params.add(match);
+            if (type != null) params.add(type);
+            sql = "SELECT " + PROFILE_COLUMNS + " FROM (" +
+                  "SELECT " + profileColumns("u") + ", users_fts.rank AS score " +
+                  "FROM users_fts CROSS JOIN users u ON u.id = users_fts.rowid " +
+                  "WHERE users_fts MATCH ?" + (typeCondition != null ? " AND " + typeCondition : "") +
+                  " ORDER BY users_fts.rank LIMIT " + SEARCH_CANDIDATES +
+                  ") ORDER BY score LIMIT ?";
+        } else {
+            if (type != null) params.add(type);
+            sql = "SELECT " + profileColumns("u") + " FROM users u" +
+                  (typeCondition != null ? " WHERE " + typeCondition + " ORDER BY u.surname, u.name" : " ORDER BY u.type, u.surname, u.name") +
+                  " LIMIT ?";
+        }
+        params.add(limit);
+
+        List<T> results = new ArrayList<>();
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, params.toArray())) {
+            while (rs.next()) {
+                results.add(mapper.map(rs));
+            }
+        }
+        return results;
+    }
+
+    // "mario.ro" -> "mario"* "ro"* : every word as a quoted prefix, so no input is FTS5 syntax; null if no word
+    static String toPrefixQuery(String searchTerm) {
+        if (searchTerm == null) return null;
+        StringBuilder query = new StringBuilder();
+        for (String word : searchTerm.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(word).append("\"*");
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    // Profile columns of the users table joined as alias, for queries that map users from joined rows
+    static String profileColumns(String alias) {
+        StringBuilder columns = new StringBuilder();
+        for (String column : PROFILE_COLUMN_NAMES) {
+            if (columns.length() > 0) columns.append(", ");
+            columns.append(alias).append('.').append(column);
+        }
+        return columns.toString();
+    }
+
     //==========================
     //==== CREATE OPERATION ====
     //==========================
@@ -146,7 +317,7 @@ public class UserDAO {
             if (newUser != null) {
 
                 // Now update with the properly hashed password
-                return updatePassword(newUser.getId(), newUser.getEmail(), plainPassword);
+                return updatePassword(newUser.getId(), plainPassword);
             }
         }
 
@@ -160,6 +331,8 @@ public class UserDAO {
     public boolean deleteUser(int id) throws SQLException {
         String sql = "DELETE FROM users WHERE id = ?";
         int rows = DatabaseInteraction.executeUpdate(sql, id);
+        invalidateHeader(id);
+        AlertEngine.getInstance().onPatientsChanged();
         return rows > 0;
     }
 
@@ -168,7 +341,7 @@ public class UserDAO {
     //===============================
 
     public List<User> searchUsers(String searchTerm) throws SQLException {
-        String sql = "SELECT id, name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id FROM users WHERE name LIKE ? OR surname LIKE ? OR email LIKE ? ORDER BY type, surname, name";
+        String sql = "SELECT " + PROFILE_COLUMNS + " FROM users WHERE name LIKE ? OR surname LIKE ? OR email LIKE ? ORDER BY type, surname, name";
         String searchPattern = "%" + searchTerm + "%";
         List<User> users = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, searchPattern, searchPattern, searchPattern)) {
@@ -179,6 +352,11 @@ public class UserDAO {
         return users;
     }
 
+    // Type-ahead search on the full-text index, best matches first (see searchProfiles)
+    public List<User> searchUsersByPrefix(String searchTerm, int limit) throws SQLException {
+        return searchProfiles(null, searchTerm, limit, this::mapResultSetToUser);
+    }
+
     public int getUserCountByType(String type) throws SQLException {
         String sql = "SELECT COUNT(*) as count FROM users WHERE type = ?";
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, type)) {
@@ -190,7 +368,7 @@ public class UserDAO {
     }
 
     public List<User> getRecentUsers(int limit) throws SQLException {
-        String sql = "SELECT id, name, surname, email, password, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id FROM users ORDER BY id DESC LIMIT ?";
+        String sql = "SELECT " + PROFILE_COLUMNS + " FROM users ORDER BY id DESC LIMIT ?";
         List<User> users = new ArrayList<>();
         try (ResultSet rs = DatabaseInteraction.executeQuery(sql, limit)) {
             while (rs.next()) {
@@ -231,7 +409,7 @@ public class UserDAO {
                 rs.getString("name"),
                 rs.getString("surname"),
                 rs.getString("email"),
-                PasswordUtils.decryptPassword(rs.getString("password"), rs.getString("email")),
+                null, // credentials are not loaded with the profile
                 bornDate,
                 Gender.valueOf(rs.getString("gender").toUpperCase()),
                 rs.getString("phone"),
@@ -239,4 +417,29 @@ public class UserDAO {
                 rs.getString("fiscal_code"), rs.getString("type")
         );
     }
+
+    // Called by the DAOs of every role after they change or delete a user row
+    static void invalidateHeader(int id) {
+        headers.invalidate(id);
+    }
+
+    // Rows of a list query as headers: take the stamp before running the query
+    static void cacheHeader(UserHeader header, long stamp) {
+        headers.put(header.getId(), header, stamp);
+    }
+
+    static long headerStamp() {
+        return headers.stamp();
+    }
+
+    private static UserHeader loadUserHeader(int id) throws SQLException {
+        String sql = "SELECT id, name, surname, type, doctor_id FROM users WHERE id = ?";
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, id)) {
+            if (rs.next()) {
+                return new UserHeader(rs.getInt("id"), rs.getString("name"), rs.getString("surname"),
+                        rs.getString("type"), rs.getInt("doctor_id"));
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,6 @@
+package it.glucotrack.view;
+
+// Controller of a view kept in the ViewNavigator cache: reload the data each time the view is shown again
+public interface Refreshable {
+    void refresh();
+}
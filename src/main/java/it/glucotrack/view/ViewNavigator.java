@@ -1,5 +1,6 @@
 package it.glucotrack.view;
 
+import it.glucotrack.util.DatabaseInteraction;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -7,13 +8,18 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ViewNavigator {
 
     private static ViewNavigator instance;
     private Stage primaryStage;
     private Map<String, String>     viewPaths;
+    // Loaded views by FXML path (only those with a Refreshable controller), cleared at logout
+    private final Map<String, CachedView> viewCache = new ConcurrentHashMap<>();
+    private int cacheGeneration = 0;
 
     // Costanti per le viste
     public static final String LOGIN_VIEW = "LOGIN";
@@ -22,6 +28,28 @@ public class ViewNavigator {
     public static final String DOCTOR_DASHBOARD = "DOCTOR_DASHBOARD";
     public static final String ADMIN_DASHBOARD = "ADMIN_DASHBOARD";
 
+    // Cached dashboard sections
+    public static final String PATIENT_HOME_SECTION = "/assets/fxml/PatientDashboardHome.fxml";
+    public static final String PATIENT_READINGS_SECTION = "/assets/fxml/PatientDashboardReadings.fxml";
+    public static final String PATIENT_MEDICATIONS_SECTION = "/assets/fxml/PatientDashboardMedications.fxml";
+    public static final String PATIENT_SYMPTOMS_SECTION = "/assets/fxml/PatientDashboardSymptoms.fxml";
+    public static final String DOCTOR_HOME_SECTION = "/assets/fxml/DoctorDashboardHome.fxml";
+    public static final String DOCTOR_PATIENTS_SECTION = "/assets/fxml/DoctorDashboardPatients.fxml";
+    public static final String DOCTOR_MEDICATIONS_SECTION = "/assets/fxml/DoctorDashboardMedications.fxml";
+    public static final String ADMIN_HOME_SECTION = "/assets/fxml/AdminDashboardHome.fxml";
+
+    // Sections showing each kind of data: a write passes the list to invalidate()
+    public static final List<String> GLUCOSE_SECTIONS = List.of(
+            PATIENT_HOME_SECTION, PATIENT_READINGS_SECTION, DOCTOR_HOME_SECTION, DOCTOR_PATIENTS_SECTION);
+    public static final List<String> MEDICATION_SECTIONS = List.of(
+            PATIENT_HOME_SECTION, PATIENT_MEDICATIONS_SECTION, DOCTOR_HOME_SECTION, DOCTOR_PATIENTS_SECTION, DOCTOR_MEDICATIONS_SECTION);
+    public static final List<String> SYMPTOM_SECTIONS = List.of(PATIENT_SYMPTOMS_SECTION);
+    public static final List<String> USER_SECTIONS = List.of(
+            ADMIN_HOME_SECTION, DOCTOR_HOME_SECTION, DOCTOR_PATIENTS_SECTION, DOCTOR_MEDICATIONS_SECTION);
+
+    // Alerts, due doses and missed-dose counts move with the clock: a view this old is refreshed even if unchanged
+    private static final long STALE_AFTER_MS = 60_000;
+
 
     private ViewNavigator() {
         initializeViewPaths();
@@ -69,8 +97,13 @@ public class ViewNavigator {
             double height = primaryStage.getHeight();
             boolean wasMaximized = primaryStage.isMaximized();
 
-            Scene newScene = new Scene(root, width, height);
-            primaryStage.setScene(newScene);
+            // One scene for the whole session: only its root changes
+            Scene scene = primaryStage.getScene();
+            if (scene == null) {
+                primaryStage.setScene(new Scene(root, width, height));
+            } else {
+                scene.setRoot(root);
+            }
             System.out.println("[ViewNavigator] Scena impostata");
 
             if (title != null) {
@@ -90,6 +123,109 @@ public class ViewNavigator {
         }
     }
 
+    //====================
+    //==== VIEW CACHE ====
+    //====================
+
+    private static final class CachedView {
+        private final Parent root;
+        private final Object controller;
+        // Set by invalidate() from any thread, cleared by the refresh on the FX thread
+        private volatile boolean stale = false;
+        private volatile long loadedAt = System.currentTimeMillis();
+
+        private CachedView(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+
+        private boolean needsRefresh() {
+            return stale || System.currentTimeMillis() - loadedAt > STALE_AFTER_MS;
+        }
+    }
+
+    // Content of a dashboard section. FXML is parsed and initialize() runs once per session;
+    // later visits reuse the nodes and call refresh() only if a write invalidated the view or its data
+    // is older than STALE_AFTER_MS. Loads cut short by leaving the section run again once it is shown
+    // (see AsyncLoader). Controllers that are not Refreshable load fresh every time
+    public Parent loadSection(String fxmlPath) throws IOException {
+        CachedView view = viewCache.get(fxmlPath);
+        if (view == null) {
+            view = load(fxmlPath);
+            if (!(view.controller instanceof Refreshable)) {
+                return view.root;
+            }
+            CachedView prewarmed = viewCache.putIfAbsent(fxmlPath, view);
+            if (prewarmed != null) view = prewarmed;
+        }
+        if (view.needsRefresh()) {
+            view.stale = false;
+            view.loadedAt = System.currentTimeMillis();
+            ((Refreshable) view.controller).refresh();
+        }
+        return view.root;
+    }
+
+    // Load the sections on a background thread (their initialize() queries included), so the first visit is instant
+    public void prewarm(List<String> fxmlPaths) {
+        int generation = getCacheGeneration();
+        Thread thread = new Thread(() -> {
+            try {
+                for (String fxmlPath : fxmlPaths) {
+                    if (viewCache.containsKey(fxmlPath)) continue;
+                    try {
+                        CachedView view = load(fxmlPath);
+                        if (view.controller instanceof Refreshable) {
+                            cacheIfCurrent(fxmlPath, view, generation);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Not fatal: the section is loaded on its first visit instead
+                        System.err.println("[ViewNavigator] Pre-warm failed for " + fxmlPath + ": " + e.getMessage());
+                    }
+                }
+            } finally {
+                DatabaseInteraction.releaseThreadConnection();
+            }
+        }, "view-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // The data of this section changed: its next loadSection() refreshes it (no-op if it is not cached)
+    public void invalidate(String fxmlPath) {
+        CachedView view = viewCache.get(fxmlPath);
+        if (view != null) {
+            view.stale = true;
+        }
+    }
+
+    public void invalidate(List<String> fxmlPaths) {
+        fxmlPaths.forEach(this::invalidate);
+    }
+
+    // At logout: the cached views belong to the user who is leaving
+    public synchronized void invalidateAll() {
+        cacheGeneration++;
+        viewCache.clear();
+    }
+
+    private synchronized int getCacheGeneration() {
+        return cacheGeneration;
+    }
+
+    // A pre-warm still running at logout must not put the old user's views back
+    private synchronized void cacheIfCurrent(String fxmlPath, CachedView view, int generation) {
+        if (generation == cacheGeneration) {
+            viewCache.putIfAbsent(fxmlPath, view);
+        }
+    }
+
+    private CachedView load(String fxmlPath) throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
+        Parent root = loader.load();
+        return new CachedView(root, loader.getController());
+    }
+
     private String getDefaultTitle(String viewName) {
         switch (viewName) {
             case LOGIN_VIEW: return "GlucoTrack - Login";
@@ -1,3 +1,5 @@
+        -- Baseline: the schema every database had before versioning
+
         -- ============================
         -- Table: users (base for all)
         -- ============================
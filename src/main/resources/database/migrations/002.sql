@@ -0,0 +1,23 @@
+        -- Alerts written by the alert sweeper
+
+        -- ============================
+        -- Table: alerts
+        -- ============================
+        -- Written by the alert sweeper. dedup_key identifies the same alert across sweeps,
+        -- active = 0 once the rule no longer fires.
+        CREATE TABLE IF NOT EXISTS alerts (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            patient_id INTEGER NOT NULL,
+            dedup_key VARCHAR(255) NOT NULL UNIQUE,
+            type VARCHAR(20) NOT NULL,     -- 'INFO', 'WARNING', 'CRITICAL'
+            message VARCHAR(255) NOT NULL,
+            alert_time DATETIME NOT NULL,
+            first_seen DATETIME NOT NULL,
+            last_seen DATETIME NOT NULL,
+            active BOOLEAN NOT NULL DEFAULT 1,
+            acknowledged BOOLEAN NOT NULL DEFAULT 0,
+            acknowledged_at DATETIME,
+            FOREIGN KEY (patient_id) REFERENCES users(id) ON DELETE CASCADE
+        );
+
+        CREATE INDEX IF NOT EXISTS idx_alert_patient_active ON alerts(patient_id, active);
@@ -0,0 +1,34 @@
+        -- Hourly and daily glucose rollups
+
+        -- ============================
+        -- Tables: glucose rollups
+        -- ============================
+        -- Per patient aggregates of glucose_measurements by local hour and day, kept current by
+        -- GlucoseMeasurementDAO. Target range is 70-180 mg/dL.
+        CREATE TABLE IF NOT EXISTS glucose_rollup_hourly (
+            patient_id INTEGER NOT NULL,
+            bucket_start DATETIME NOT NULL,
+            reading_count INTEGER NOT NULL,
+            value_sum INTEGER NOT NULL,
+            min_value INTEGER NOT NULL,
+            max_value INTEGER NOT NULL,
+            below_range INTEGER NOT NULL,
+            in_range INTEGER NOT NULL,
+            above_range INTEGER NOT NULL,
+            PRIMARY KEY (patient_id, bucket_start),
+            FOREIGN KEY (patient_id) REFERENCES users(id) ON DELETE CASCADE
+        );
+
+        CREATE TABLE IF NOT EXISTS glucose_rollup_daily (
+            patient_id INTEGER NOT NULL,
+            bucket_start DATETIME NOT NULL,
+            reading_count INTEGER NOT NULL,
+            value_sum INTEGER NOT NULL,
+            min_value INTEGER NOT NULL,
+            max_value INTEGER NOT NULL,
+            below_range INTEGER NOT NULL,
+            in_range INTEGER NOT NULL,
+            above_range INTEGER NOT NULL,
+            PRIMARY KEY (patient_id, bucket_start),
+            FOREIGN KEY (patient_id) REFERENCES users(id) ON DELETE CASCADE
+        );
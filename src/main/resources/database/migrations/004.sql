@@ -0,0 +1,25 @@
+        -- Composite and partial indexes for the DAO query shapes
+
+        -- ============================
+        -- Indexes: query shapes
+        -- ============================
+        -- Composite indexes matching the DAO filters and sort orders. The id after the time column keeps
+        -- "ORDER BY time, id" free of sorts. IF NOT EXISTS: databases from before versioning may have them.
+        -- Covers the chart series query (id, time, value, type) without touching the table
+        CREATE INDEX IF NOT EXISTS idx_glucose_patient_time ON glucose_measurements(patient_id, measurement_time, id, value, type);
+        CREATE INDEX IF NOT EXISTS idx_log_medication_time ON log_medications(medication_id, date_time);
+        -- Pending doses only: the missed-dose queries filter on taken = 0
+        CREATE INDEX IF NOT EXISTS idx_log_medication_pending ON log_medications(medication_id, date_time) WHERE taken = 0;
+        CREATE INDEX IF NOT EXISTS idx_symptom_patient_date ON patient_symptoms(patient_id, symptom_date);
+        CREATE INDEX IF NOT EXISTS idx_medication_edit_time ON medication_edits(medication_id, edit_time);
+        CREATE INDEX IF NOT EXISTS idx_alert_patient_time ON alerts(patient_id, active, alert_time);
+        -- Listings by type sorted by name, and the patients of a doctor (email lookups use its UNIQUE index)
+        CREATE INDEX IF NOT EXISTS idx_users_type_name ON users(type, surname, name);
+        CREATE INDEX IF NOT EXISTS idx_users_type_doctor ON users(type, doctor_id, surname, name);
+
+        -- Single-column indexes now covered by the composite ones above (every insert paid for both)
+        DROP INDEX IF EXISTS idx_glucose_patient;
+        DROP INDEX IF EXISTS idx_log_medication;
+        DROP INDEX IF EXISTS idx_symptom_patient;
+        DROP INDEX IF EXISTS idx_medication_edit;
+        DROP INDEX IF EXISTS idx_alert_patient_active;
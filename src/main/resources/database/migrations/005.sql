@@ -0,0 +1,42 @@
+        -- Full-text index of the users for the type-ahead searches
+
+        -- ============================
+        -- Virtual table: users_fts
+        -- ============================
+        -- FTS5 index over the searchable columns of users (external content: it stores no copy of the rows).
+        -- Words are lowercased without accents; emails split on "." and "@". Prefix indexes for the
+        -- first 1-3 characters keep short type-ahead prefixes from scanning the whole vocabulary.
+        CREATE VIRTUAL TABLE IF NOT EXISTS users_fts USING fts5(
+            name, surname, email, specialization, role,
+            content = 'users', content_rowid = 'id',
+            tokenize = 'unicode61 remove_diacritics 2',
+            prefix = '1 2 3'
+        );
+
+        -- Ranking: a match in the name or surname counts more than one in the email, specialization or role
+        INSERT INTO users_fts(users_fts, rank) VALUES ('rank', 'bm25(10.0, 10.0, 4.0, 2.0, 2.0)');
+
+        -- ============================
+        -- Triggers: users -> users_fts
+        -- ============================
+        -- An external content index must be told the old values of a row to remove it
+        CREATE TRIGGER IF NOT EXISTS users_fts_insert AFTER INSERT ON users BEGIN
+            INSERT INTO users_fts(rowid, name, surname, email, specialization, role)
+            VALUES (new.id, new.name, new.surname, new.email, new.specialization, new.role);
+        END;
+
+        CREATE TRIGGER IF NOT EXISTS users_fts_delete AFTER DELETE ON users BEGIN
+            INSERT INTO users_fts(users_fts, rowid, name, surname, email, specialization, role)
+            VALUES ('delete', old.id, old.name, old.surname, old.email, old.specialization, old.role);
+        END;
+
+        -- Only the indexed columns: a password or phone change leaves the index alone
+        CREATE TRIGGER IF NOT EXISTS users_fts_update AFTER UPDATE OF name, surname, email, specialization, role ON users BEGIN
+            INSERT INTO users_fts(users_fts, rowid, name, surname, email, specialization, role)
+            VALUES ('delete', old.id, old.name, old.surname, old.email, old.specialization, old.role);
+            INSERT INTO users_fts(rowid, name, surname, email, specialization, role)
+            VALUES (new.id, new.name, new.surname, new.email, new.specialization, new.role);
+        END;
+
+        -- Index the users already there
+        INSERT INTO users_fts(users_fts) VALUES ('rebuild');
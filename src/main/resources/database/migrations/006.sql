@@ -0,0 +1,15 @@
+        -- Patient of each intake log, for the patient-wide log reads
+
+        -- ============================
+        -- Column: log_medications.patient_id
+        -- ============================
+        -- Copy of medications.patient_id, written by LogMedicationDAO on insert (a medication never
+        -- changes patient). The patient-wide reads walk one index in time order instead of reading the
+        -- logs of every medication of the patient and sorting them.
+        ALTER TABLE log_medications ADD COLUMN patient_id INTEGER REFERENCES users(id);
+
+        UPDATE log_medications
+        SET patient_id = (SELECT m.patient_id FROM medications m WHERE m.id = log_medications.medication_id);
+
+        -- The id after the time keeps "ORDER BY date_time DESC, id DESC" (keyset pages) free of sorts
+        CREATE INDEX IF NOT EXISTS idx_log_medication_patient_time ON log_medications(patient_id, date_time, id);
@@ -0,0 +1,21 @@
+        -- Doctor of each alert, for the doctor dashboard read
+
+        -- ============================
+        -- Column: alerts.doctor_id
+        -- ============================
+        -- Copy of the patient's users.doctor_id, written by AlertDAO and kept in step by the trigger below.
+        -- The active alerts of a doctor are then one index range already in time order, with no sort.
+        ALTER TABLE alerts ADD COLUMN doctor_id INTEGER;
+
+        UPDATE alerts
+        SET doctor_id = (SELECT u.doctor_id FROM users u WHERE u.id = alerts.patient_id);
+
+        CREATE INDEX IF NOT EXISTS idx_alert_doctor_time ON alerts(doctor_id, active, alert_time);
+
+        -- ============================
+        -- Trigger: users -> alerts
+        -- ============================
+        -- A patient moved to another doctor takes their alerts along
+        CREATE TRIGGER IF NOT EXISTS alerts_doctor_update AFTER UPDATE OF doctor_id ON users BEGIN
+            UPDATE alerts SET doctor_id = new.doctor_id WHERE patient_id = new.id;
+        END;
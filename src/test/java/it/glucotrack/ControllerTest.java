@@ -1,13 +1,26 @@
 package it.glucotrack;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import it.glucotrack.component.TableSearchIndex;
 import it.glucotrack.controller.AdminDashboardController;
+import it.glucotrack.controller.DoctorDashboardPatientsController.PatientTableData;
+import it.glucotrack.model.Gender;
+import it.glucotrack.model.Patient;
+import it.glucotrack.model.PatientSummary;
 import it.glucotrack.model.User;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 
 public class ControllerTest {
     @Nested
@@ -31,4 +44,70 @@ public class ControllerTest {
             assertNotNull(admin, "Admin deve essere settato correttamente");
         }
     }
+
+    @Nested
+    @DisplayName("TableSearchIndex Tests")
+    class TableSearchIndexTest {
+        private ObservableList<String> rows;
+        private TableSearchIndex<String> index;
+
+        @BeforeEach
+        void setUp() {
+            rows = FXCollections.observableArrayList();
+            for (int i = 0; i < 1000; i++) {
+                rows.add("User" + i + " Rossi\npatient" + i + "@email.com\nPATIENT");
+            }
+            rows.add("Mario Verdi\nmario.verdi@email.com\nDOCTOR");
+            index = new TableSearchIndex<>(rows, row -> row);
+        }
+
+        @Test
+        @DisplayName("Matches like contains within one field, while typing")
+        void testSearchMatchesContains() {
+            for (String query : new String[]{"m", "ma", "mar", "mario", "mario.v", "ROSSI", "i\np", "999 r"}) {
+                String lc = query.toLowerCase();
+                // A match lies within one field, as the per-column filters it replaces
+                long expected = rows.stream()
+                        .filter(row -> Arrays.stream(row.toLowerCase().split("\n")).anyMatch(field -> field.contains(lc)))
+                        .count();
+                assertEquals(expected, index.search(query).size(), "Query: " + query);
+            }
+            assertEquals(rows.size(), index.search("").size());
+        }
+
+        @Test
+        @DisplayName("Shown rows follow a changed row")
+        void testFilterFollowsRowChanges() {
+            index.filter("verdi");
+            assertEquals(1, index.getShownRows().size());
+            rows.set(rows.size() - 1, "Mario Bianchi\nmario.bianchi@email.com\nDOCTOR");
+            assertTrue(index.getShownRows().isEmpty(), "The shown rows should follow a changed row");
+            assertEquals(1, index.search("bianchi").size());
+        }
+    }
+
+    @Nested
+    @DisplayName("DoctorDashboardPatientsController Tests")
+    class PatientTableDataTest {
+        private Patient patient;
+
+        @BeforeEach
+        void setUp() {
+            patient = new Patient(7, "Mario", "Rossi", "mario.rossi@email.com", null, LocalDate.of(1980, 1, 1),
+                    Gender.MALE, "000", "Roma", "RSSMRA80A01H501X", 1);
+        }
+
+        @Test
+        @DisplayName("Rows show the weekly average and the missed doses of the summary")
+        void testSummaryFigures() {
+            PatientTableData row = new PatientTableData(
+                    new PatientSummary(patient, 150f, LocalDateTime.now(), 120.25, 3, 2));
+            assertTrue(row.getWeeklyAverage().endsWith(" mg/dL (3)"), row.getWeeklyAverage());
+            assertEquals(2, row.getMissedDoses());
+
+            PatientTableData empty = new PatientTableData(new PatientSummary(patient, null, null, null, 0, 0));
+            assertEquals("No readings", empty.getWeeklyAverage());
+            assertEquals(0, empty.getMissedDoses());
+        }
+    }
 }
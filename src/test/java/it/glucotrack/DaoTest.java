@@ -5,9 +5,22 @@ import it.glucotrack.util.*;
 
 import org.junit.jupiter.api.*;
 
+import java.io.File;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class DaoTest {
@@ -37,6 +50,71 @@ public class DaoTest {
         }
     }
 
+    // ------------------ DATABASE INTERACTION ------------------
+    @Test
+    @DisplayName("Test nested execution of the same cached query")
+    void testNestedCachedQuery() throws SQLException {
+        String sql = "SELECT id FROM users WHERE type = ?";
+        int outer = 0;
+        int inner = 0;
+        try (ResultSet rs = DatabaseInteraction.executeQuery(sql, "DOCTOR")) {
+            while (rs.next()) {
+                outer++;
+                try (ResultSet nested = DatabaseInteraction.executeQuery(sql, "ADMIN")) {
+                    while (nested.next()) {
+                        inner++;
+                    }
+                }
+            }
+        }
+        Assertions.assertTrue(outer > 0, "Outer query should keep iterating after the nested call");
+        Assertions.assertEquals(outer * new AdminDAO().getAllAdmins().size(), inner);
+    }
+
+    @Test
+    @DisplayName("Test inTransaction rolls back every write on failure")
+    void testTransactionRollback() throws SQLException {
+        int before = LogMedicationDAO.getLogMedicationByPatientId(testPatientId).size();
+        int medicationId = medicationDAO.getMedicationsByPatientId(testPatientId).get(0).getId();
+        LogMedicationDAO dao = new LogMedicationDAO();
+
+        Assertions.assertThrows(SQLException.class, () -> DatabaseInteraction.inTransaction(conn -> {
+            dao.insertLogMedication(new LogMedication(-1, medicationId, LocalDateTime.now(), false));
+            throw new SQLException("forced failure");
+        }));
+
+        Assertions.assertEquals(before, LogMedicationDAO.getLogMedicationByPatientId(testPatientId).size());
+    }
+
+    @Test
+    @DisplayName("Test a failed nested transaction leaves no writes in the outer commit")
+    void testNestedTransactionRollback() throws SQLException {
+        int before = LogMedicationDAO.getLogMedicationByPatientId(testPatientId).size();
+        int medicationId = medicationDAO.getMedicationsByPatientId(testPatientId).get(0).getId();
+        LogMedicationDAO dao = new LogMedicationDAO();
+        LocalDateTime time = LocalDateTime.of(2001, 5, 1, 8, 0);
+
+        DatabaseInteraction.inTransaction(conn -> {
+            dao.insertLogMedication(new LogMedication(-1, medicationId, time, false));
+            try {
+                DatabaseInteraction.inTransaction(inner -> {
+                    dao.insertLogMedication(new LogMedication(-1, medicationId, time.plusHours(1), false));
+                    throw new SQLException("forced failure");
+                });
+            } catch (SQLException expected) {
+                // The caller goes on without the inner unit
+            }
+        });
+
+        List<LogMedication> after = LogMedicationDAO.getLogMedicationByPatientId(testPatientId);
+        Assertions.assertEquals(before + 1, after.size(), "Only the outer write should be committed");
+        for (LogMedication log : after) {
+            if (log.getDateAndTime().equals(time)) {
+                dao.deleteLogMedication(log.getId());
+            }
+        }
+    }
+
     // ------------------ USER ------------------
     @Test
     @DisplayName("Test UserDAO")
@@ -66,6 +144,110 @@ public class DaoTest {
         Assertions.assertFalse(byDoctor.isEmpty());
     }
 
+    @Test
+    @DisplayName("Test profile queries leave the password out and updates keep it")
+    void testCredentialsNotMapped() throws SQLException {
+        PatientDAO patientDAO = new PatientDAO();
+        UserDAO userDAO = new UserDAO();
+        patientDAO.insertPatient(new Patient("Cred", "Test", "cred.test@email.com", "secret1",
+                LocalDate.of(1990, 1, 1), Gender.FEMALE, "000", "Pavia", "CRDTST90A41G388X", testDoctorId));
+        Patient patient = patientDAO.getPatientByEmail("cred.test@email.com");
+        try {
+            Assertions.assertNull(patient.getPassword());
+            Assertions.assertTrue(PatientDAO.getPatientsByDoctorId(testDoctorId).stream().allMatch(p -> p.getPassword() == null));
+            Assertions.assertTrue(userDAO.getAllUsers().stream().allMatch(u -> u.getPassword() == null));
+
+            // Saving a loaded profile with a new email keeps its password
+            patient.setEmail("cred.renamed@email.com");
+            Assertions.assertTrue(PatientDAO.updatePatient(patient));
+            Assertions.assertNotNull(userDAO.authenticate("cred.renamed@email.com", "secret1"));
+            Assertions.assertTrue(userDAO.verifyPassword(patient.getId(), "secret1"));
+            Assertions.assertFalse(userDAO.verifyPassword(patient.getId(), "secret2"));
+        } finally {
+            patientDAO.deletePatient(patient.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Patient aggregates load lazily on first access")
+    void testPatientLazyAggregates() throws SQLException {
+        Patient patient = PatientDAO.getPatientById(testPatientId);
+        Assertions.assertTrue(patient.toString().contains("not loaded"), "Aggregates should not be loaded by the DAO");
+
+        // The alert rules read the latest reading alone, not the history
+        List<String> executed = new ArrayList<>();
+        DatabaseInteraction.setQueryObserver(executed::add);
+        try {
+            GlucoseMeasurement last = patient.getLastGlucoseMeasurement();
+            patient.getLastGlucoseMeasurement();
+            GlucoseMeasurement latest = new GlucoseMeasurementDAO().getLatestMeasurementByPatientId(testPatientId);
+            Assertions.assertEquals(latest == null ? null : latest.getId(), last == null ? null : last.getId());
+        } finally {
+            DatabaseInteraction.setQueryObserver(null);
+        }
+        Assertions.assertEquals(2, executed.size(), "One LIMIT 1 query for the patient, one for the check: " + executed);
+        Assertions.assertTrue(executed.get(0).endsWith("LIMIT 1"));
+        Assertions.assertEquals(GlucoseMeasurementDAO.getGlucoseMeasurementsByPatientId(testPatientId).size(),
+                patient.getGlucoseReadings().size());
+        Assertions.assertEquals(MedicationDAO.getMedicationsByPatientId(testPatientId).size(),
+                patient.getMedications().size());
+    }
+
+    @Test
+    @DisplayName("Test a lazy aggregate asked by several threads at once is loaded once")
+    void testPatientLazyAggregatesAcrossThreads() throws Exception {
+        Patient patient = PatientDAO.getPatientById(testPatientId);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        List<List<Symptom>> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    seen.add(patient.getSymptoms());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    DatabaseInteraction.releaseThreadConnection();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        DatabaseInteraction.setQueryObserver(executed::add);
+        try {
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            DatabaseInteraction.setQueryObserver(null);
+        }
+        Assertions.assertEquals(1, executed.size(), "One symptoms query for every thread: " + executed);
+        Assertions.assertEquals(4, seen.size());
+        Assertions.assertTrue(seen.stream().allMatch(list -> list == seen.get(0)), "Every thread should get the same list");
+    }
+
+    @Test
+    @DisplayName("Test PatientSummaryDAO matches per-patient queries")
+    void testPatientSummaryDAO() throws SQLException {
+        Patient patient = PatientDAO.getPatientById(testPatientId);
+        List<PatientSummary> summaries = PatientSummaryDAO.getSummariesByDoctorId(patient.getDoctorId());
+        Assertions.assertEquals(PatientDAO.getPatientsByDoctorId(patient.getDoctorId()).size(), summaries.size());
+
+        PatientSummary summary = summaries.stream()
+                .filter(s -> s.getPatient().getId() == testPatientId)
+                .findFirst().orElseThrow();
+        GlucoseMeasurement latest = new GlucoseMeasurementDAO().getLatestMeasurementByPatientId(testPatientId);
+        if (latest == null) {
+            Assertions.assertFalse(summary.hasReadings());
+        } else {
+            Assertions.assertEquals(latest.getGlucoseLevel(), summary.getLastGlucoseValue());
+            Assertions.assertEquals(latest.getDateAndTime(), summary.getLastGlucoseTime());
+        }
+    }
+
     // ------------------ DOCTOR ------------------
     @Test
     @DisplayName("Test DoctorDAO")
@@ -112,6 +294,196 @@ public class DaoTest {
         Assertions.assertNotNull(latest);
     }
 
+    @Test
+    @DisplayName("Test glucose rollups follow inserts, updates and deletes")
+    void testGlucoseRollups() throws SQLException {
+        GlucoseMeasurementDAO dao = new GlucoseMeasurementDAO();
+        LocalDateTime day = LocalDateTime.of(2001, 3, 10, 0, 0);
+        dao.insertGlucoseMeasurement(new GlucoseMeasurement(testPatientId, day.plusHours(10).plusMinutes(15), 60, "Before Lunch", ""));
+        dao.insertGlucoseMeasurement(new GlucoseMeasurement(testPatientId, day.plusHours(10).plusMinutes(40), 150, "After Lunch", ""));
+        dao.insertGlucoseMeasurement(new GlucoseMeasurement(testPatientId, day.plusDays(1).plusHours(8), 200, "Before Breakfast", ""));
+
+        // Whole days, whole hours and a partial hour at the start
+        GlucoseStats all = GlucoseRollupDAO.getRangeStats(testPatientId, day, day.plusDays(3));
+        Assertions.assertEquals(3, all.getCount());
+        Assertions.assertEquals(60, all.getMin());
+        Assertions.assertEquals(200, all.getMax());
+        Assertions.assertEquals(1, all.getBelowRange());
+        Assertions.assertEquals(1, all.getInRange());
+        Assertions.assertEquals(1, all.getAboveRange());
+        GlucoseStats edge = GlucoseRollupDAO.getRangeStats(testPatientId, day.plusHours(10).plusMinutes(30), day.plusDays(3));
+        Assertions.assertEquals(2, edge.getCount());
+        Assertions.assertEquals(175.0, edge.getAverage(), 0.001);
+
+        GlucoseMeasurement low = dao.findGlucoseMeasurement(testPatientId, day.plusHours(10).plusMinutes(15), 60);
+        dao.deleteGlucoseMeasurement(low.getId());
+        GlucoseMeasurement high = dao.findGlucoseMeasurement(testPatientId, day.plusDays(1).plusHours(8), 200);
+        high.setGlucoseLevel(100);
+        dao.updateGlucoseMeasurement(high);
+
+        GlucoseStats after = GlucoseRollupDAO.getRangeStats(testPatientId, day, day.plusDays(3));
+        Assertions.assertEquals(2, after.getCount());
+        Assertions.assertEquals(100, after.getMin());
+        Assertions.assertEquals(150, after.getMax());
+        Assertions.assertEquals(2, after.getInRange());
+
+        // The profile figures: whole history and the first reading of a period
+        GlucoseSeries series = GlucoseMeasurementDAO.getGlucoseSeriesByPatientId(testPatientId);
+        GlucoseStats history = GlucoseRollupDAO.getAllTimeStats(testPatientId);
+        Assertions.assertEquals(series.stats(0, series.size(), GlucoseRollupDAO.RANGE_LOW, GlucoseRollupDAO.RANGE_HIGH).getSum(), history.getSum());
+        Assertions.assertEquals(series.size(), history.getCount());
+        Assertions.assertEquals(100, GlucoseMeasurementDAO.getFirstMeasurementSince(testPatientId, day.plusHours(11)).getGlucoseLevel());
+    }
+
+    @Test
+    @DisplayName("Test row-by-row DAO reads match the list queries and release their statement")
+    void testStreamingQueries() throws SQLException {
+        List<GlucoseMeasurement> all = GlucoseMeasurementDAO.getGlucoseMeasurementsByPatientId(testPatientId);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(all.size(), GlucoseMeasurementDAO.getGlucoseSeriesByPatientId(testPatientId).size());
+        }
+        // The period series holds exactly the readings of [from, to)
+        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime to = LocalDateTime.now();
+        long inRange = all.stream()
+                .filter(m -> !m.getDateAndTime().isBefore(from) && m.getDateAndTime().isBefore(to))
+                .count();
+        Assertions.assertEquals(inRange, GlucoseMeasurementDAO.getGlucoseSeriesByDateRange(testPatientId, from, to).size());
+        try (Stream<LogMedication> stream = LogMedicationDAO.streamLogMedicationsByPatientId(testPatientId)) {
+            Assertions.assertEquals(LogMedicationDAO.getLogMedicationByPatientId(testPatientId).size(), stream.count());
+        }
+        try (Stream<Symptom> stream = SymptomDAO.streamSymptomsByPatientId(testPatientId)) {
+            Assertions.assertEquals(SymptomDAO.getSymptomsByPatientId(testPatientId).size(), stream.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Test keyset pages cover every reading once, newest first")
+    void testGlucoseKeysetPagination() throws SQLException {
+        List<GlucoseMeasurement> all = GlucoseMeasurementDAO.getGlucoseMeasurementsByPatientId(testPatientId);
+        List<Integer> seen = new ArrayList<>();
+        LocalDateTime previous = null;
+        KeysetPage.Key after = null;
+        do {
+            KeysetPage<GlucoseMeasurement> page = GlucoseMeasurementDAO.getGlucoseMeasurementsPage(testPatientId, null, null, null, after, 2);
+            Assertions.assertTrue(page.getItems().size() <= 2);
+            for (GlucoseMeasurement measurement : page.getItems()) {
+                if (previous != null) {
+                    Assertions.assertFalse(measurement.getDateAndTime().isAfter(previous));
+                }
+                previous = measurement.getDateAndTime();
+                seen.add(measurement.getId());
+            }
+            after = page.getNextKey();
+        } while (after != null);
+
+        Assertions.assertEquals(all.size(), seen.size());
+        Assertions.assertEquals(all.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    @DisplayName("Test AlertEngine re-evaluates a patient after a glucose insert")
+    void testAlertEngineGlucoseInsert() throws SQLException {
+        int doctorId = PatientDAO.getPatientById(testPatientId).getDoctorId();
+        AlertEngine engine = AlertEngine.getInstance();
+        Assertions.assertEquals(AlertManagement.generateDoctorAlerts(doctorId).size(), engine.getDoctorAlerts(doctorId).size());
+
+        GlucoseMeasurement low = new GlucoseMeasurement();
+        low.setPatientId(testPatientId);
+        low.setGlucoseLevel(40);
+        low.setDateAndTime(LocalDateTime.now());
+        low.setType("Before Breakfast");
+        new GlucoseMeasurementDAO().insertGlucoseMeasurement(low);
+
+        List<Alert> alerts = engine.getDoctorAlerts(doctorId);
+        Assertions.assertTrue(alerts.stream().anyMatch(a -> a.getPatient().getId() == testPatientId
+                && a.getType() == AlertType.CRITICAL && a.getMessage().contains("40")));
+        Assertions.assertEquals(AlertManagement.generateDoctorAlerts(doctorId).size(), alerts.size());
+    }
+
+    @Test
+    @DisplayName("Test AlertEvaluationService isolates a failing patient")
+    void testAlertEvaluationIsolation() throws SQLException {
+        List<Patient> patients = PatientDAO.getPatientsByDoctorId(PatientDAO.getPatientById(testPatientId).getDoctorId());
+        List<Integer> reported = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> failed = Collections.synchronizedList(new ArrayList<>());
+
+        List<Alert> alerts = AlertEvaluationService.evaluateAll(patients, patient -> {
+            if (patient.getId() == testPatientId) throw new SQLException("forced failure");
+            return List.of(new Alert("ok", AlertType.INFO, patient));
+        }, new AlertEvaluationService.Listener() {
+            @Override
+            public void onPatientAlerts(Patient patient, List<Alert> result) { reported.add(patient.getId()); }
+            @Override
+            public void onPatientFailed(Patient patient, Exception error) { failed.add(patient.getId()); }
+        }).join();
+
+        Assertions.assertEquals(patients.size() - 1, alerts.size());
+        Assertions.assertEquals(patients.size() - 1, reported.size());
+        Assertions.assertEquals(List.of(testPatientId), failed);
+    }
+
+    @Test
+    @DisplayName("Test AlertSweeper persists alerts once per dedup key")
+    void testAlertSweeperPersistence() throws SQLException {
+        int doctorId = PatientDAO.getPatientById(testPatientId).getDoctorId();
+        AlertSweeper.sweep();
+        List<Alert> first = AlertDAO.getActiveAlertsByDoctorId(doctorId);
+        Assertions.assertEquals(AlertEngine.getInstance().getDoctorAlerts(doctorId).size(), first.size());
+
+        AlertSweeper.sweep();
+        Assertions.assertEquals(first.size(), AlertDAO.getActiveAlertsByDoctorId(doctorId).size(), "A second sweep must not duplicate alerts");
+
+        if (!first.isEmpty()) {
+            Assertions.assertTrue(AlertDAO.acknowledge(first.get(0).getKey()));
+            Assertions.assertTrue(AlertDAO.getActiveAlertsByDoctorId(doctorId).stream().anyMatch(Alert::isAcknowledged));
+        }
+    }
+
+    @Test
+    @DisplayName("Test dashboard alert reads store only what writes changed since the last sweep")
+    void testAlertSyncBeforeDashboardRead() throws SQLException {
+        int doctorId = PatientDAO.getPatientById(testPatientId).getDoctorId();
+        AlertEngine engine = AlertEngine.getInstance();
+        AlertSweeper.syncDoctor(doctorId);
+        Assertions.assertFalse(engine.hasPendingChanges(doctorId), "A synced doctor has nothing left to store");
+
+        GlucoseMeasurement high = new GlucoseMeasurement();
+        high.setPatientId(testPatientId);
+        high.setGlucoseLevel(321);
+        high.setDateAndTime(LocalDateTime.now().plusMinutes(1));
+        high.setType("After Lunch");
+        new GlucoseMeasurementDAO().insertGlucoseMeasurement(high);
+        Assertions.assertTrue(engine.hasPendingPatientChanges(testPatientId));
+
+        AlertSweeper.syncPatient(testPatientId);
+        Assertions.assertTrue(AlertDAO.getActiveAlertsByPatientId(testPatientId).stream()
+                .anyMatch(a -> a.getType() == AlertType.CRITICAL && a.getMessage().contains("321")));
+        Assertions.assertFalse(engine.hasPendingChanges(doctorId));
+        Assertions.assertEquals(engine.getDoctorAlerts(doctorId).size(), AlertDAO.getActiveAlertsByDoctorId(doctorId).size(),
+                "The previous reading's alert must be closed");
+    }
+
+    @Test
+    @DisplayName("Test a patient moved to another doctor takes the active alerts along")
+    void testAlertsFollowTheDoctor() throws SQLException {
+        int doctorId = PatientDAO.getPatientById(testPatientId).getDoctorId();
+        AlertSweeper.syncDoctor(doctorId);
+        int alerts = AlertDAO.getActiveAlertsByPatientId(testPatientId).size();
+        Assertions.assertTrue(alerts > 0);
+        int otherDoctorId = doctorId + 100000;
+        try {
+            DatabaseInteraction.executeUpdate("UPDATE users SET doctor_id = ? WHERE id = ?", otherDoctorId, testPatientId);
+            Assertions.assertEquals(alerts, AlertDAO.getActiveAlertsByDoctorId(otherDoctorId).size());
+            Assertions.assertTrue(AlertDAO.getActiveAlertsByDoctorId(doctorId).stream()
+                    .noneMatch(a -> a.getPatient().getId() == testPatientId));
+        } finally {
+            DatabaseInteraction.executeUpdate("UPDATE users SET doctor_id = ? WHERE id = ?", doctorId, testPatientId);
+        }
+        Assertions.assertTrue(AlertDAO.getActiveAlertsByDoctorId(doctorId).stream()
+                .anyMatch(a -> a.getPatient().getId() == testPatientId));
+    }
+
     // ------------------ LOG MEDICATION ------------------
     @Test
     @DisplayName("Test LogMedicationDAO")
@@ -126,6 +498,57 @@ public class DaoTest {
         Assertions.assertEquals(first.getMedication_id(), byId.getMedication_id());
         List<LogMedication> pending = dao.getPendingLogMedications(med.getId());
         Assertions.assertNotNull(pending);
+
+        // Adherence counted in SQL matches the due logs
+        LocalDateTime now = LocalDateTime.now();
+        List<LogMedication> due = LogMedicationDAO.getLogMedicationsByPatientIdUntillNow(testPatientId);
+        double expected = due.isEmpty() ? 0 : (double) due.stream().filter(LogMedication::isTaken).count() / due.size();
+        Assertions.assertEquals(expected, LogMedicationDAO.getAdherenceUntil(testPatientId, now), 1e-9);
+        Assertions.assertEquals(0, LogMedicationDAO.getAdherenceUntil(-1, now));
+    }
+
+    @Test
+    @DisplayName("Test missed doses grouped per medication")
+    void testMissedDoseSummaries() throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        long missedLogs = LogMedicationDAO.getLogMedicationByPatientId(testPatientId).stream()
+                .filter(log -> !log.isTaken() && log.getDateAndTime().isBefore(now))
+                .count();
+        List<DoseSummary> summaries = LogMedicationDAO.getMissedDoseSummaries(testPatientId, now);
+        Assertions.assertEquals(missedLogs, summaries.stream().mapToInt(DoseSummary::getCount).sum());
+        for (DoseSummary summary : summaries) {
+            Assertions.assertFalse(summary.getFirstDateTime().isAfter(summary.getLastDateTime()));
+        }
+    }
+
+    @Test
+    @DisplayName("Test patient log pages cover every intake once, newest first, from the patient index")
+    void testLogMedicationPages() throws SQLException {
+        int expected = 0;
+        for (Medication med : medicationDAO.getMedicationsByPatientId(testPatientId)) {
+            expected += LogMedicationDAO.getLogMedicationsByMedicationId(med.getId()).size();
+        }
+        List<Integer> seen = new ArrayList<>();
+        LocalDateTime previous = null;
+        KeysetPage.Key after = null;
+        do {
+            KeysetPage<LogMedication> page = LogMedicationDAO.getLogMedicationsPageByPatientId(testPatientId, after, 3);
+            for (LogMedication log : page.getItems()) {
+                if (previous != null) {
+                    Assertions.assertFalse(log.getDateAndTime().isAfter(previous));
+                }
+                previous = log.getDateAndTime();
+                seen.add(log.getId());
+            }
+            after = page.getNextKey();
+        } while (after != null);
+        Assertions.assertEquals(expected, seen.size());
+        Assertions.assertEquals(expected, new HashSet<>(seen).size());
+
+        String sql = "SELECT * FROM log_medications WHERE patient_id = ? ORDER BY date_time DESC, id DESC LIMIT ?";
+        List<String> plan = DatabaseInteraction.explainQueryPlan(sql);
+        Assertions.assertTrue(plan.stream().anyMatch(step -> step.contains("idx_log_medication_patient_time")), plan.toString());
+        Assertions.assertTrue(plan.stream().noneMatch(step -> step.contains("TEMP B-TREE")), plan.toString());
     }
 
     // ------------------ RISK FACTOR ------------------
@@ -225,10 +648,497 @@ public class DaoTest {
         Assertions.assertTrue(deleted, "Medication should be deleted");
     }
 
+    // ------------------ ENTITY CACHE ------------------
+    @Test
+    @DisplayName("Test entity headers are queried once per id and dropped on writes")
+    void testEntityCache() throws SQLException {
+        Patient patient = PatientDAO.getPatientById(testPatientId);
+        List<String> executed = new ArrayList<>();
+        DatabaseInteraction.setQueryObserver(executed::add);
+        try {
+            for (int i = 0; i < 100; i++) {
+                Assertions.assertEquals(patient.getFullName(), UserDAO.getUserHeader(testPatientId).getFullName());
+            }
+        } finally {
+            DatabaseInteraction.setQueryObserver(null);
+        }
+        Assertions.assertTrue(executed.size() <= 1, "Repeated lookups should be served by the cache");
+
+        String surname = patient.getSurname();
+        patient.setSurname(surname + "Edited");
+        try {
+            PatientDAO.updatePatient(patient);
+            Assertions.assertEquals(surname + "Edited", UserDAO.getUserHeader(testPatientId).getSurname());
+        } finally {
+            patient.setSurname(surname);
+            PatientDAO.updatePatient(patient);
+        }
+        Assertions.assertEquals(surname, UserDAO.getUserHeader(testPatientId).getSurname());
+
+        // The intake log names its medications from the headers kept by the patient's medication list
+        List<Medication> meds = MedicationDAO.getMedicationsByPatientId(testPatientId);
+        executed.clear();
+        DatabaseInteraction.setQueryObserver(executed::add);
+        try {
+            for (Medication med : meds) {
+                Assertions.assertEquals(med.getName_medication(), MedicationDAO.getMedicationHeader(med.getId()).getName());
+            }
+        } finally {
+            DatabaseInteraction.setQueryObserver(null);
+        }
+        Assertions.assertTrue(executed.isEmpty(), "Headers should be warm after the medication list: " + executed);
+
+        // Bounded, and a value read before an invalidation is not stored after it
+        EntityCache<String> cache = new EntityCache<>(2);
+        for (int id = 1; id <= 3; id++) {
+            cache.get(id, String::valueOf);
+        }
+        Assertions.assertEquals(2, cache.size());
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+        cache.put(4, "stale", stamp);
+        Assertions.assertEquals("4", cache.get(4, String::valueOf));
+    }
+
+    // ------------------ LOGIN ------------------
+    private static final int BENCHMARK_USERS = 100_000;
+    private static final String BENCHMARK_DB = "login-benchmark.db";
+
+    private static String benchmarkEmail(int i) {return "user" + i + "@benchmark.test";}
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark login latency with 100k users: one indexed lookup, role included")
+    void testLoginLatencyWith100kUsers() throws SQLException {
+        deleteDatabaseFiles(BENCHMARK_DB);
+        DatabaseInteraction.setDatabasePath(BENCHMARK_DB);
+        try {
+            SchemaMigrator.migrate();
+
+            // Hashes at cost 1: this measures the lookup, the KDF cost is calibrated separately
+            PasswordUtils.setIterations(1);
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < BENCHMARK_USERS; i++) {
+                String type = i % 1000 == 0 ? "ADMIN" : i % 100 == 0 ? "DOCTOR" : "PATIENT";
+                rows.add(new Object[]{"Name" + i, "Surname" + i, benchmarkEmail(i),
+                        PasswordUtils.hashPassword("password" + i),
+                        "1980-01-01", "MALE", type});
+            }
+            DatabaseInteraction.executeBatch(
+                    "INSERT INTO users (name, surname, email, password, born_date, gender, type) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+            SessionManager session = SessionManager.getInstance();
+            Random random = new Random(42);
+            for (int i = 0; i < 20; i++) {
+                session.login(benchmarkEmail(i), "password" + i); // warm-up
+            }
+            long[] samples = new long[200];
+            for (int i = 0; i < samples.length; i++) {
+                int user = random.nextInt(BENCHMARK_USERS);
+                long start = System.nanoTime();
+                Assertions.assertTrue(session.login(benchmarkEmail(user), "password" + user));
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            double median = samples[samples.length / 2] / 1e6;
+            double p95 = samples[samples.length * 95 / 100] / 1e6;
+            System.out.printf("[Benchmark] login with %d users: median %.3f ms, p95 %.3f ms%n", BENCHMARK_USERS, median, p95);
+            Assertions.assertTrue(median < 10, "Login should not depend on the number of users");
+
+            Assertions.assertFalse(session.login(benchmarkEmail(7), "password8"));
+            Assertions.assertFalse(session.login("nobody@benchmark.test", "password7"));
+            Assertions.assertTrue(session.login(benchmarkEmail(300), "password300"));
+            Assertions.assertEquals("DOCTOR", session.getCurrentUserType());
+            Assertions.assertTrue(session.login(benchmarkEmail(2000), "password2000"));
+            Assertions.assertEquals("ADMIN", session.getCurrentUserType());
+        } finally {
+            PasswordUtils.setIterations(PasswordUtils.DEFAULT_ITERATIONS);
+            DatabaseInteraction.setDatabasePath("test.db");
+            deleteDatabaseFiles(BENCHMARK_DB);
+        }
+    }
+
+    @Test
+    @DisplayName("Test legacy passwords are rehashed at login and re-authentication is cached")
+    void testPasswordRehashAndReauthentication() throws SQLException {
+        UserDAO userDAO = new UserDAO();
+        SessionManager session = SessionManager.getInstance();
+        String email = "legacy.user@email.com";
+        // The cache is checked by the queries it runs, not by time: a low cost keeps the KDF quick
+        PasswordUtils.setIterations(1_000);
+        DatabaseInteraction.executeUpdate(
+                "INSERT INTO users (name, surname, email, password, born_date, gender, type) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                "Legacy", "User", email, PasswordUtils.encryptPassword("oldsecret", email), "1980-01-01", "MALE", "PATIENT");
+        User user = userDAO.getUserByEmail(email);
+        try {
+            Assertions.assertNull(userDAO.authenticate(email, "wrong"));
+            Assertions.assertNotNull(userDAO.authenticate(email, "oldsecret"));
+            String stored = storedPassword(user.getId());
+            Assertions.assertFalse(PasswordUtils.isLegacy(stored), "Login should replace the legacy format");
+            Assertions.assertFalse(PasswordUtils.needsRehash(stored));
+            Assertions.assertNotNull(userDAO.authenticate(email, "oldsecret"));
+            Assertions.assertEquals(stored, storedPassword(user.getId()), "A current hash is not rewritten");
+
+            Assertions.assertTrue(session.login(email, "oldsecret"));
+            Assertions.assertEquals(List.of("SELECT password FROM users WHERE id = ?"), reauthenticationQueries(session, "oldsecret", true),
+                    "A cached re-authentication only compares the stored hash, without verifying the password");
+            Assertions.assertTrue(reauthenticationQueries(session, "wrong", false).contains("SELECT email, password FROM users WHERE id = ?"),
+                    "Another password is verified against the stored hash");
+
+            // A new password changes the stored hash: the cached verification no longer applies
+            Assertions.assertTrue(userDAO.updatePassword(user.getId(), "newsecret"));
+            Assertions.assertTrue(reauthenticationQueries(session, "oldsecret", false).contains("SELECT email, password FROM users WHERE id = ?"),
+                    "A changed hash invalidates the cached verification");
+            Assertions.assertTrue(session.reauthenticate("newsecret"));
+            Assertions.assertEquals(1, reauthenticationQueries(session, "newsecret", true).size());
+        } finally {
+            session.endSession();
+            PasswordUtils.setIterations(PasswordUtils.DEFAULT_ITERATIONS);
+            userDAO.deleteUser(user.getId());
+        }
+    }
+
+    // Queries run by one re-authentication, which must return expected
+    private static List<String> reauthenticationQueries(SessionManager session, String password, boolean expected) {
+        List<String> executed = new ArrayList<>();
+        DatabaseInteraction.setQueryObserver(executed::add);
+        try {
+            Assertions.assertEquals(expected, session.reauthenticate(password));
+        } finally {
+            DatabaseInteraction.setQueryObserver(null);
+        }
+        return executed;
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark re-authentication: a cached one skips the KDF")
+    void testReauthenticationBenchmark() throws SQLException {
+        UserDAO userDAO = new UserDAO();
+        SessionManager session = SessionManager.getInstance();
+        String email = "reauth.benchmark@email.com";
+        DatabaseInteraction.executeUpdate(
+                "INSERT INTO users (name, surname, email, password, born_date, gender, type) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                "Reauth", "Benchmark", email, PasswordUtils.hashPassword("secret"), "1980-01-01", "MALE", "PATIENT");
+        User user = userDAO.getUserByEmail(email);
+        try {
+            Assertions.assertTrue(session.login(email, "secret"));
+            long start = System.nanoTime();
+            Assertions.assertTrue(session.reauthenticate("secret"));
+            long cached = System.nanoTime() - start;
+            start = System.nanoTime();
+            Assertions.assertFalse(session.reauthenticate("other"));
+            long full = System.nanoTime() - start;
+            System.out.printf("[Benchmark] re-authentication: cached %.3f ms, full %.3f ms%n", cached / 1e6, full / 1e6);
+            Assertions.assertTrue(cached < full, "A cached re-authentication should skip the KDF");
+        } finally {
+            session.endSession();
+            userDAO.deleteUser(user.getId());
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark PBKDF2 calibration: the chosen cost hashes in about the target time")
+    void testPasswordHashCalibration() {
+        long targetMillis = 100;
+        int iterations = PasswordUtils.calibrateIterations(targetMillis);
+        try {
+            PasswordUtils.setIterations(iterations);
+            long[] samples = new long[5];
+            for (int i = 0; i < samples.length; i++) {
+                long start = System.nanoTime();
+                String hash = PasswordUtils.hashPassword("calibrated");
+                samples[i] = System.nanoTime() - start;
+                Assertions.assertTrue(PasswordUtils.verifyPassword(hash, "any@email.com", "calibrated"));
+            }
+            Arrays.sort(samples);
+            double median = samples[samples.length / 2] / 1e6;
+            System.out.printf("[Benchmark] PBKDF2 target %d ms: %d iterations, median %.1f ms%n", targetMillis, iterations, median);
+            Assertions.assertTrue(median > targetMillis / 4.0 && median < targetMillis * 4.0,
+                    "Calibrated cost should hash in about the target time");
+        } finally {
+            PasswordUtils.setIterations(PasswordUtils.DEFAULT_ITERATIONS);
+        }
+    }
+
+    private static String storedPassword(int userId) throws SQLException {
+        try (ResultSet rs = DatabaseInteraction.executeQuery("SELECT password FROM users WHERE id = ?", userId)) {
+            return rs.next() ? rs.getString("password") : null;
+        }
+    }
+
+    // ------------------ SEARCH ------------------
+    private static final int SEARCH_BENCHMARK_USERS = 50_000;
+    private static final String SEARCH_BENCHMARK_DB = "search-benchmark.db";
+    private static final String[] FIRST_NAMES = {"Mario", "Marta", "Marco", "Luca", "Lucia", "Giulia", "Giorgio",
+            "Anna", "Andrea", "Paolo", "Paola", "Sara", "Simone", "Elena", "Enrico", "Chiara", "Carlo", "Davide"};
+    private static final String[] SURNAMES = {"Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo",
+            "Ricci", "Marino", "Greco", "Bruno", "Gallo", "Conti", "De Luca", "Mancini", "Costa", "Giordano", "Rizzo"};
+
+    @Test
+    @DisplayName("Test prefix search ranks matches, filters by type, limits rows and follows updates")
+    void testPrefixSearch() throws SQLException {
+        UserDAO userDAO = new UserDAO();
+        PatientDAO patientDAO = new PatientDAO();
+        // More weaker matches than the search ranks, all inserted before the best one
+        List<Object[]> fillers = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            fillers.add(new Object[]{"Quarto", "Filler", "filler." + i + "@search.test", "x", "1980-01-01", "MALE", "PATIENT"});
+        }
+        DatabaseInteraction.executeBatch(
+                "INSERT INTO users (name, surname, email, password, born_date, gender, type) VALUES (?, ?, ?, ?, ?, ?, ?)", fillers);
+        patientDAO.insertPatient(new Patient("Zelinda", "Quartararo", "z.quartararo@email.com", "secret1",
+                LocalDate.of(1990, 1, 1), Gender.FEMALE, "000", "Pavia", "QRTZLN90A41G388X", testDoctorId));
+        Patient patient = patientDAO.getPatientByEmail("z.quartararo@email.com");
+        int limit = UserDAO.DEFAULT_SEARCH_LIMIT;
+        try {
+            Assertions.assertEquals(patient.getId(), patientDAO.searchPatientsByPrefix("quart", 1).get(0).getId(),
+                    "The best match should be ranked among every match, not the first ones found");
+            Assertions.assertEquals(limit, patientDAO.searchPatientsByPrefix("quart", limit).size());
+            Assertions.assertEquals(patient.getId(), patientDAO.searchPatientsByPrefix("ZEL QUA", limit).get(0).getId());
+            Assertions.assertEquals(patient.getId(), userDAO.searchUsersByPrefix("z.quartararo@", limit).get(0).getId());
+            Assertions.assertTrue(new DoctorDAO().searchDoctorsByPrefix("quart", limit).isEmpty(), "Search should keep to the type");
+            Assertions.assertTrue(patientDAO.searchPatientsByPrefix("\"quart OR *", limit).size() <= limit, "Input should not be FTS syntax");
+            Assertions.assertEquals(2, userDAO.searchUsersByPrefix("", 2).size());
+
+            // The one-argument searches still match inside a word and return every match
+            Assertions.assertEquals(1101, patientDAO.searchPatients("uart").size());
+            Assertions.assertEquals(patient.getId(), userDAO.searchUsers("artararo").get(0).getId());
+
+            // The index follows the row through the triggers
+            patient.setSurname("Quintavalle");
+            patient.setEmail("z.quintavalle@email.com");
+            PatientDAO.updatePatient(patient);
+            Assertions.assertTrue(patientDAO.searchPatientsByPrefix("quartararo", limit).isEmpty());
+            Assertions.assertEquals(patient.getId(), patientDAO.searchPatientsByPrefix("quinta", limit).get(0).getId());
+        } finally {
+            patientDAO.deletePatient(patient.getId());
+            DatabaseInteraction.executeUpdate("DELETE FROM users WHERE email LIKE '%@search.test'");
+        }
+        Assertions.assertTrue(patientDAO.searchPatientsByPrefix("quinta", limit).isEmpty());
+        Assertions.assertTrue(patientDAO.searchPatientsByPrefix("quart", limit).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark type-ahead search over 50k users: each keystroke within a frame")
+    void testPrefixSearchLatency() throws SQLException {
+        deleteDatabaseFiles(SEARCH_BENCHMARK_DB);
+        DatabaseInteraction.setDatabasePath(SEARCH_BENCHMARK_DB);
+        try {
+            SchemaMigrator.migrate();
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < SEARCH_BENCHMARK_USERS; i++) {
+                String name = FIRST_NAMES[i % FIRST_NAMES.length];
+                String surname = SURNAMES[(i / FIRST_NAMES.length) % SURNAMES.length];
+                String type = i % 1000 == 0 ? "ADMIN" : i % 100 == 0 ? "DOCTOR" : "PATIENT";
+                rows.add(new Object[]{name, surname, name.toLowerCase() + "." + i + "@benchmark.test", "x", "1980-01-01", "MALE", type});
+            }
+            DatabaseInteraction.executeBatch(
+                    "INSERT INTO users (name, surname, email, password, born_date, gender, type) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+            PatientDAO patientDAO = new PatientDAO();
+            UserDAO userDAO = new UserDAO();
+            String[] keystrokes = {"m", "ma", "mar", "mari", "mario", "mario r", "mario ro", "mario ros"};
+            List<Long> samples = new ArrayList<>();
+            for (int round = 0; round < 11; round++) {
+                for (String typed : keystrokes) {
+                    long start = System.nanoTime();
+                    List<Patient> found = patientDAO.searchPatientsByPrefix(typed, UserDAO.DEFAULT_SEARCH_LIMIT);
+                    long patientSearch = System.nanoTime() - start;
+                    start = System.nanoTime();
+                    userDAO.searchUsersByPrefix(typed, UserDAO.DEFAULT_SEARCH_LIMIT);
+                    long userSearch = System.nanoTime() - start;
+                    if (round > 0) { // round 0 warms up
+                        samples.add(patientSearch);
+                        samples.add(userSearch);
+                    }
+                    Assertions.assertFalse(found.isEmpty());
+                    Assertions.assertTrue(found.size() <= UserDAO.DEFAULT_SEARCH_LIMIT);
+                }
+            }
+            samples.sort(null);
+            double median = samples.get(samples.size() / 2) / 1e6;
+            double p95 = samples.get(samples.size() * 95 / 100) / 1e6;
+            System.out.printf("[Benchmark] type-ahead search with %d users: median %.3f ms, p95 %.3f ms%n",
+                    SEARCH_BENCHMARK_USERS, median, p95);
+            Assertions.assertTrue(median < 16, "A keystroke should be answered within a frame");
+
+            List<Patient> exact = patientDAO.searchPatientsByPrefix("mario rossi", 5);
+            Assertions.assertTrue(exact.stream().allMatch(p -> p.getName().equals("Mario") && p.getSurname().equals("Rossi")));
+        } finally {
+            DatabaseInteraction.setDatabasePath("test.db");
+            deleteDatabaseFiles(SEARCH_BENCHMARK_DB);
+        }
+    }
+
+    private static void deleteDatabaseFiles(String path) {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(path + suffix).delete();
+        }
+    }
+
+    // ------------------ SCHEMA MIGRATIONS ------------------
+    @Test
+    @DisplayName("Test migrations are recorded once and edited scripts are rejected")
+    void testSchemaMigrations() throws SQLException {
+        List<SchemaMigrator.Migration> migrations = SchemaMigrator.loadMigrations();
+        Assertions.assertEquals(migrations.size(), SchemaMigrator.getCurrentVersion());
+        Assertions.assertEquals(0, SchemaMigrator.migrate(), "A migrated database has nothing pending");
+
+        String checksum = migrations.get(0).getChecksum();
+        DatabaseInteraction.executeUpdate("UPDATE schema_version SET checksum = 'edited' WHERE version = 1");
+        try {
+            Assertions.assertThrows(SQLException.class, SchemaMigrator::migrate);
+        } finally {
+            DatabaseInteraction.executeUpdate("UPDATE schema_version SET checksum = ? WHERE version = 1", checksum);
+        }
+    }
+
+    // ------------------ QUERY PLANS ------------------
+    // Exact statements allowed to read a whole table or sort, with the reason
+    private static final String PROFILE = "id, name, surname, email, born_date, gender, phone, birth_place, fiscal_code, type, role, specialization, doctor_id";
+    private static final String U_PROFILE = "u.id, u.name, u.surname, u.email, u.born_date, u.gender, u.phone, u.birth_place, u.fiscal_code, u.type, u.role, u.specialization, u.doctor_id";
+    private static final String DOSE_SUMMARY = "SELECT m.id AS medication_id, m.name AS medication_name, COUNT(*) AS dose_count, " +
+            "MIN(lm.date_time) AS first_time, MAX(lm.date_time) AS last_time FROM log_medications lm JOIN medications m ON lm.medication_id = m.id ";
+    private static final Map<String, String> PLAN_EXCEPTIONS = Map.ofEntries(
+        Map.entry("SELECT " + PROFILE + " FROM users ORDER BY type, surname, name", "admin list of every user"),
+        Map.entry("SELECT " + PROFILE + " FROM users ORDER BY id DESC LIMIT ?", "rowid order, stops after LIMIT rows"),
+        Map.entry("SELECT " + PROFILE + " FROM (SELECT " + U_PROFILE + ", users_fts.rank AS score FROM users_fts " +
+                "CROSS JOIN users u ON u.id = users_fts.rowid WHERE users_fts MATCH ? ORDER BY users_fts.rank LIMIT 1000) ORDER BY score LIMIT ?",
+                "ranks a bounded set of full-text matches"),
+        Map.entry("SELECT " + PROFILE + " FROM (SELECT " + U_PROFILE + ", users_fts.rank AS score FROM users_fts " +
+                "CROSS JOIN users u ON u.id = users_fts.rowid WHERE users_fts MATCH ? AND u.type = ? ORDER BY users_fts.rank LIMIT 1000) ORDER BY score LIMIT ?",
+                "ranks a bounded set of full-text matches"),
+        Map.entry("SELECT " + PROFILE + " FROM users WHERE name LIKE ? OR surname LIKE ? OR email LIKE ? ORDER BY type, surname, name",
+                "substring search, no index serves LIKE '%term%'"),
+        Map.entry("SELECT " + PROFILE + " FROM users WHERE type = 'PATIENT' AND (name LIKE ? OR surname LIKE ? OR email LIKE ?) ORDER BY surname, name",
+                "substring search, no index serves LIKE '%term%'"),
+        Map.entry("SELECT " + PROFILE + " FROM users WHERE type = 'DOCTOR' AND (name LIKE ? OR surname LIKE ? OR email LIKE ? OR specialization LIKE ?) ORDER BY surname, name",
+                "substring search, no index serves LIKE '%term%'"),
+        Map.entry("SELECT " + PROFILE + " FROM users WHERE type = 'ADMIN' AND (name LIKE ? OR surname LIKE ? OR email LIKE ? OR role LIKE ?) ORDER BY surname, name",
+                "substring search, no index serves LIKE '%term%'"),
+        Map.entry("SELECT DISTINCT specialization FROM users WHERE type = 'DOCTOR' AND specialization IS NOT NULL ORDER BY specialization",
+                "vocabulary of the doctors"),
+        Map.entry("SELECT DISTINCT symptom FROM patient_symptoms ORDER BY symptom", "vocabulary of every symptom"),
+        Map.entry("SELECT DISTINCT type FROM risk_factors ORDER BY type", "vocabulary of every risk factor"),
+        Map.entry("SELECT * FROM medications ORDER BY name", "admin list of every medication"),
+        Map.entry("SELECT * FROM medication_edits ORDER BY edit_time DESC", "admin list of every edit"),
+        Map.entry(DOSE_SUMMARY + "WHERE m.patient_id = ? AND lm.taken = 0 AND lm.date_time < ? " +
+                "GROUP BY m.id, m.name ORDER BY last_time DESC", "sorts one row per medication"),
+        Map.entry(DOSE_SUMMARY + "WHERE m.patient_id = ? AND lm.taken = 0 AND lm.date_time BETWEEN ? AND ? " +
+                "GROUP BY m.id, m.name ORDER BY first_time", "sorts one row per medication")
+    );
+
+    @Test
+    @DisplayName("Test DAO queries are served by indexes, without full scans or temp sorts")
+    void testQueryPlans() throws SQLException {
+        Set<String> executed = new LinkedHashSet<>();
+        DatabaseInteraction.setQueryObserver(executed::add);
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            UserDAO userDAO = new UserDAO();
+            userDAO.getUserById(testPatientId);
+            userDAO.getUserByEmail("nobody@example.com");
+            userDAO.getAllUsers();
+            userDAO.getUsersByType("PATIENT");
+            userDAO.emailExists("nobody@example.com");
+            userDAO.fiscalCodeExists("XXXXXX00X00X000X");
+            userDAO.searchUsers("a");
+            userDAO.searchUsersByPrefix("a", UserDAO.DEFAULT_SEARCH_LIMIT);
+            userDAO.getUserCountByType("DOCTOR");
+            userDAO.getRecentUsers(5);
+            PatientDAO.getPatientById(testPatientId);
+            PatientDAO.getAllPatients();
+            PatientDAO.getPatientsByDoctorId(testDoctorId);
+            new PatientDAO().getPatientByEmail("nobody@example.com");
+            new PatientDAO().searchPatients("a");
+            new PatientDAO().searchPatientsByPrefix("a", UserDAO.DEFAULT_SEARCH_LIMIT);
+            DoctorDAO doctorDAO = new DoctorDAO();
+            DoctorDAO.getDoctorById(testDoctorId);
+            DoctorDAO.getAllDoctors();
+            doctorDAO.getDoctorsBySpecialization("Cardiology");
+            doctorDAO.searchDoctors("a");
+            doctorDAO.searchDoctorsByPrefix("a", UserDAO.DEFAULT_SEARCH_LIMIT);
+            doctorDAO.getPatientCountByDoctorId(testDoctorId);
+            doctorDAO.getUniqueSpecializations();
+            new AdminDAO().getAllAdmins();
+            new AdminDAO().searchAdmins("a");
+            new AdminDAO().searchAdminsByPrefix("a", UserDAO.DEFAULT_SEARCH_LIMIT);
+
+            GlucoseMeasurementDAO glucoseDAO = new GlucoseMeasurementDAO();
+            GlucoseMeasurementDAO.getGlucoseMeasurementsByPatientId(testPatientId);
+            GlucoseMeasurementDAO.getGlucoseSeriesByPatientId(testPatientId);
+            GlucoseMeasurementDAO.getGlucoseSeriesByDateRange(testPatientId, LocalDateTime.now().minusDays(7), LocalDateTime.now());
+            glucoseDAO.getLatestMeasurementByPatientId(testPatientId);
+            glucoseDAO.getGlucoseMeasurementsByDateRange(testPatientId, now.minusDays(7), now);
+            glucoseDAO.getHighGlucoseReadings(testPatientId, 180);
+            GlucoseMeasurementDAO.getGlucoseMeasurementsPage(testPatientId, now.minusDays(30), now, "Before Lunch", null, 10);
+            KeysetPage<GlucoseMeasurement> page = GlucoseMeasurementDAO.getGlucoseMeasurementsPage(testPatientId, null, null, null, null, 1);
+            GlucoseMeasurementDAO.getGlucoseMeasurementsPage(testPatientId, null, null, null, page.getNextKey(), 1);
+            GlucoseRollupDAO.getRangeStats(testPatientId, now.minusDays(30).withMinute(17), now);
+            GlucoseRollupDAO.getAllTimeStats(testPatientId);
+            GlucoseMeasurementDAO.getFirstMeasurementSince(testPatientId, now.minusDays(7));
+            GlucoseMeasurement probe = new GlucoseMeasurement(testPatientId, now.minusDays(400), 123, "Before Lunch", "");
+            glucoseDAO.insertGlucoseMeasurement(probe);
+            probe = glucoseDAO.findGlucoseMeasurement(testPatientId, probe.getDateAndTime(), 123);
+            glucoseDAO.deleteGlucoseMeasurement(probe.getId());
+
+            LogMedicationDAO.getLogMedicationByPatientId(testPatientId);
+            LogMedicationDAO.getLogMedicationsPageByPatientId(testPatientId, null, 5);
+            LogMedicationDAO.getAdherenceUntil(testPatientId, now);
+            LogMedicationDAO.getMissedDoseSummaries(testPatientId, now);
+            LogMedicationDAO.getUpcomingDoseSummaries(testPatientId, now, now.plusDays(1));
+            for (Medication medication : MedicationDAO.getMedicationsByPatientId(testPatientId)) {
+                LogMedicationDAO.getLogMedicationsByMedicationId(medication.getId());
+                new LogMedicationDAO().getPendingLogMedications(medication.getId());
+                new LogMedicationDAO().getLogMedicationsByDateRange(medication.getId(), now.minusDays(3), now);
+                MedicationDAO.getMedicationEditsByMedicationId(medication.getId());
+            }
+            medicationDAO.getActiveMedicationsByPatientId(testPatientId);
+            medicationDAO.getAllMedications();
+            medicationDAO.getAllMedicationEdits();
+
+            SymptomDAO.getSymptomsByPatientId(testPatientId);
+            SymptomDAO.getSymptomsPage(testPatientId, null, 5);
+            new SymptomDAO().getUniqueSymptoms();
+            new SymptomDAO().getSymptomsByPatientIdAndDateRange(testPatientId, LocalDate.now().minusDays(30), LocalDate.now());
+            RiskFactorDAO.getRiskFactorsByPatientId(testPatientId);
+            new RiskFactorDAO().getUniqueRiskFactors();
+            AlertDAO.getActiveAlertsByDoctorId(testDoctorId);
+            AlertDAO.getActiveAlertsByPatientId(testPatientId);
+            PatientSummaryDAO.getSummariesByDoctorId(testDoctorId);
+        } finally {
+            DatabaseInteraction.setQueryObserver(null);
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (String sql : executed) {
+            if (PLAN_EXCEPTIONS.containsKey(sql)) continue;
+            for (String step : DatabaseInteraction.explainQueryPlan(sql)) {
+                // "SCAN (subquery-n)" walks an already filtered result, not a table; a virtual table
+                // scan with an INDEX is a full-text MATCH
+                boolean fullScan = step.startsWith("SCAN ") && !step.startsWith("SCAN (")
+                        && !step.contains("VIRTUAL TABLE INDEX");
+                if (fullScan || step.contains("USE TEMP B-TREE")) {
+                    failures.add(step + "  <-  " + sql);
+                }
+            }
+        }
+        Assertions.assertTrue(executed.size() > 40, "The DAO calls should have been observed");
+        // An exception whose statement changed or is no longer run must go, not linger
+        for (String exempted : PLAN_EXCEPTIONS.keySet()) {
+            Assertions.assertTrue(executed.contains(exempted), "Exempted statement not run: " + exempted);
+        }
+        Assertions.assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
     @AfterAll
     public void cleanupDatabase() throws SQLException {
         String[] tables = {
             "medication_edits", "medications", "log_medications", "glucose_measurements",
+            "glucose_rollup_hourly", "glucose_rollup_daily",
             "patient_symptoms", "risk_factors", "users"
         };
         for (String table : tables) {
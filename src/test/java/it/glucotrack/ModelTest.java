@@ -1,12 +1,15 @@
 package it.glucotrack;
 
+import it.glucotrack.util.ChartDownsampler;
 import it.glucotrack.util.DatabaseInteraction;
 import org.junit.jupiter.api.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import it.glucotrack.model.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -219,6 +222,73 @@ public class ModelTest {
             LocalDate expectedDate = LocalDate.of(2024, 1, 15);
             assertEquals(expectedDate, measurement.getDate());
         }
+
+        @Test
+        @DisplayName("Test GlucoseSeries cursor, stats and lazy notes")
+        void testGlucoseSeries() {
+            LocalDateTime start = LocalDateTime.of(2024, 1, 15, 8, 0);
+            GlucoseSeries series = new GlucoseSeries();
+            for (int i = 0; i < 100; i++) {
+                series.append(i + 1, GlucoseSeries.toEpochSecond(start.plusHours(i)), 60 + i * 2, i % 2 == 0 ? "Before Lunch" : "After Lunch");
+            }
+            int[] loads = {0};
+            series.setNotesLoader(() -> {
+                loads[0]++;
+                return Map.of(3, "After a run");
+            });
+
+            assertEquals(100, series.size());
+            assertEquals(start.plusHours(10), series.getDateTime(10));
+            assertEquals("After Lunch", series.getType(1));
+
+            GlucoseSeries.Cursor cursor = series.cursor(start.plusHours(10), start.plusHours(20));
+            int count = 0;
+            while (cursor.next()) {
+                assertEquals(60 + cursor.index() * 2, cursor.value());
+                count++;
+            }
+            assertEquals(10, count);
+
+            GlucoseStats stats = series.stats(0, series.size(), 70, 180);
+            assertEquals(60, stats.getMin());
+            assertEquals(258, stats.getMax());
+            assertEquals(5, stats.getBelowRange());
+            assertEquals(56, stats.getInRange());
+            assertEquals(39, stats.getAboveRange());
+
+            assertEquals(0, loads[0]);
+            assertEquals("After a run", series.getNotes(2));
+            assertEquals("", series.getNotes(3));
+            assertEquals(1, loads[0]);
+        }
+    }
+
+    // ===== Test ChartDownsampler Class =====
+    @Nested
+    @DisplayName("ChartDownsampler Tests")
+    class ChartDownsamplerTest {
+
+        @Test
+        @DisplayName("Test ChartDownsampler keeps spikes within the point budget")
+        void testDownsample() {
+            int n = 5000;
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = i * 600.0;
+                y[i] = 120 + 20 * Math.sin(i / 50.0);
+            }
+            y[1234] = 40;   // hypo spike
+            y[4321] = 350;  // hyper spike
+
+            int[] points = ChartDownsampler.downsample(x, y, 30);
+            assertTrue(points.length <= 30);
+            assertTrue(Arrays.stream(points).anyMatch(i -> i == 1234));
+            assertTrue(Arrays.stream(points).anyMatch(i -> i == 4321));
+            for (int i = 1; i < points.length; i++) {
+                assertTrue(points[i] > points[i - 1], "Indices must be ascending");
+            }
+        }
     }
 
     // ===== Test Medication Class =====